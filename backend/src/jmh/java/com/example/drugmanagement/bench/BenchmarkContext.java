@@ -0,0 +1,65 @@
+package com.example.drugmanagement.bench;
+
+import com.example.drugmanagement.DrugManagementApplication;
+import com.example.drugmanagement.service.DataSeeder;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Boots the application without the web layer against an in-memory H2 database in
+ * MySQL mode and seeds {@link #drugCount} drugs through {@link DataSeeder} with its
+ * fixed random seed, so runs on different releases measure the same data set.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+
+    @Param("10000")
+    public int drugCount;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(DrugManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments().toArray(new String[0]));
+        bean(DataSeeder.class).seed(drugCount, 0);
+    }
+
+    protected List<String> arguments() {
+        return new ArrayList<>(Arrays.asList(
+                "--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--seed.demo=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public JdbcTemplate jdbc() {
+        return bean(JdbcTemplate.class);
+    }
+}
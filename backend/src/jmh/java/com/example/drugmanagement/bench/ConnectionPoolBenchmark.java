@@ -0,0 +1,99 @@
+package com.example.drugmanagement.bench;
+
+import com.example.drugmanagement.entity.StockOut;
+import com.example.drugmanagement.repository.DrugInfoRepository;
+import com.example.drugmanagement.service.ConnectionPoolMetrics;
+import com.example.drugmanagement.service.InventoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mixed read / write load with more threads than the default pool has connections,
+ * run once with the default settings and once with the {@code prod} profile. The
+ * {@code prod} profile's MySQL URL is replaced by H2 here, so driver statement caching
+ * is not part of the comparison. SQL logging is off in both runs. The pool counters are
+ * printed after each trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class ConnectionPoolBenchmark {
+
+    private InventoryService inventoryService;
+    private DrugInfoRepository drugInfoRepository;
+    private Long[] drugIds;
+
+    @State(Scope.Benchmark)
+    public static class ProfileContext extends BenchmarkContext {
+
+        @Param({"default", "prod"})
+        public String profile;
+
+        @Override
+        protected List<String> arguments() {
+            List<String> args = super.arguments();
+            if (!"default".equals(profile)) {
+                args.add("--spring.profiles.active=" + profile);
+            }
+            return args;
+        }
+
+        @Override
+        public void stop() {
+            System.out.println(profile + " pool: " + bean(ConnectionPoolMetrics.class).stats());
+            super.stop();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private static final AtomicInteger THREADS = new AtomicInteger();
+        private int next;
+
+        @Setup
+        public void setUp() {
+            next = THREADS.getAndIncrement() * 997;
+        }
+    }
+
+    @Setup
+    public void setUp(ProfileContext context) {
+        inventoryService = context.bean(InventoryService.class);
+        drugInfoRepository = context.bean(DrugInfoRepository.class);
+        context.jdbc().update("update drug_info set stock = ?", 1_000_000_000);
+        List<Long> ids = context.jdbc().queryForList("select id from drug_info order by id", Long.class);
+        drugIds = ids.toArray(new Long[0]);
+    }
+
+    @Benchmark
+    public StockOut stockOut(Cursor cursor) {
+        StockOut stockOut = new StockOut();
+        stockOut.setQuantity(1);
+        stockOut.setReason("benchmark");
+        return inventoryService.stockOut(drugIds[cursor.next++ % drugIds.length], stockOut);
+    }
+
+    @Benchmark
+    public Object drugPage(Cursor cursor) {
+        return drugInfoRepository.findAll(PageRequest.of(cursor.next++ % 100, 20));
+    }
+}
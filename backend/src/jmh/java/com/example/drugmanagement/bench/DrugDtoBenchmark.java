@@ -0,0 +1,100 @@
+package com.example.drugmanagement.bench;
+
+import com.example.drugmanagement.config.JacksonConfig;
+import com.example.drugmanagement.dto.DrugResponse;
+import com.example.drugmanagement.dto.DrugView;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping and serializing a page of drugs as typed {@link DrugResponse} rows, against
+ * the per-row {@code HashMap} DTOs the controllers used to build ({@code legacy*}).
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DrugDtoBenchmark {
+
+    @Param({"50", "500"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper legacyObjectMapper;
+    private List<DrugView> views;
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        new JacksonConfig().isoDateTimeCustomizer().customize(builder);
+        objectMapper = builder.build();
+        legacyObjectMapper = Jackson2ObjectMapperBuilder.json().build();
+        views = new ArrayList<>(pageSize);
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 8, 0, 0, 123456000);
+        for (int i = 0; i < pageSize; i++) {
+            views.add(new DrugView((long) i, "阿莫西林胶囊 " + i, 1L, "抗生素", "0.25g*24粒", "盒",
+                    new BigDecimal("18.50"), i % 200, null, "华北制药", LocalDate.of(2024, 1, 1),
+                    LocalDate.of(2026, 1, 1), 1, created));
+        }
+    }
+
+    @Benchmark
+    public byte[] typed() throws JsonProcessingException {
+        List<DrugResponse> page = new ArrayList<>(views.size());
+        for (DrugView view : views) {
+            page.add(DrugResponse.from(view));
+        }
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] legacyMaps() throws JsonProcessingException {
+        List<Map<String, Object>> page = new ArrayList<>(views.size());
+        for (DrugView view : views) {
+            page.add(legacyDto(view));
+        }
+        return legacyObjectMapper.writeValueAsBytes(page);
+    }
+
+    private static Map<String, Object> legacyDto(DrugView drug) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", drug.getId());
+        map.put("name", drug.getName());
+        map.put("categoryId", drug.getCategoryId());
+        map.put("categoryName", drug.getCategoryName());
+        map.put("specification", drug.getSpecification());
+        map.put("unit", drug.getUnit());
+        map.put("price", drug.getPrice() != null ? drug.getPrice() : BigDecimal.ZERO);
+        map.put("stock", drug.getStock() != null ? drug.getStock() : 0);
+        map.put("manufacturer", drug.getManufacturer());
+        map.put("productionDate", drug.getProductionDate() != null ? drug.getProductionDate().toString() : null);
+        map.put("expiryDate", drug.getExpireDate() != null ? drug.getExpireDate().toString() : null);
+        map.put("status", drug.getStatus());
+        map.put("createTime", drug.getCreateTime() != null ? drug.getCreateTime().toString() : null);
+        return map;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.drugmanagement.bench;
+
+import com.example.drugmanagement.dto.DrugSearchHit;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.repository.DrugInfoRepository;
+import com.example.drugmanagement.service.DrugSearchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code findByNameContaining} (a {@code LIKE '%kw%'} scan) against the in-memory
+ * search index for the same keyword.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DrugSearchBenchmark {
+
+    @Param({"布洛芬", "胶囊", "amxl"})
+    public String keyword;
+
+    private DrugInfoRepository drugInfoRepository;
+    private DrugSearchService drugSearchService;
+
+    @Setup
+    public void setUp(BenchmarkContext context) {
+        drugInfoRepository = context.bean(DrugInfoRepository.class);
+        drugSearchService = context.bean(DrugSearchService.class);
+    }
+
+    @Benchmark
+    public List<DrugInfo> likeQuery() {
+        return drugInfoRepository.findByNameContaining(keyword);
+    }
+
+    @Benchmark
+    public List<DrugSearchHit> searchIndex() {
+        return drugSearchService.search(keyword, 20);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.drugmanagement.bench;
+
+import com.example.drugmanagement.entity.StockOut;
+import com.example.drugmanagement.service.InventoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stock-out write throughput through {@link InventoryService}: every thread on one
+ * drug (row contention) and threads spread over distinct drugs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class StockOutBenchmark {
+
+    private InventoryService inventoryService;
+    private Long[] drugIds;
+
+    @Setup
+    public void setUp(BenchmarkContext context) {
+        inventoryService = context.bean(InventoryService.class);
+        context.jdbc().update("update drug_info set stock = ?", 1_000_000_000);
+        List<Long> ids = context.jdbc().queryForList("select id from drug_info order by id", Long.class);
+        drugIds = ids.toArray(new Long[0]);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private static final AtomicInteger THREADS = new AtomicInteger();
+        private int next;
+
+        @Setup
+        public void setUp() {
+            next = THREADS.getAndIncrement() * 997;
+        }
+    }
+
+    @Benchmark
+    public StockOut hotDrug() {
+        return inventoryService.stockOut(drugIds[0], newStockOut());
+    }
+
+    @Benchmark
+    public StockOut spreadDrugs(Cursor cursor) {
+        Long drugId = drugIds[1 + cursor.next++ % (drugIds.length - 1)];
+        return inventoryService.stockOut(drugId, newStockOut());
+    }
+
+    private static StockOut newStockOut() {
+        StockOut stockOut = new StockOut();
+        stockOut.setQuantity(1);
+        stockOut.setReason("benchmark");
+        return stockOut;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.drugmanagement.config;
+
+import com.example.drugmanagement.service.TokenService;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class AuthConfig implements WebMvcConfigurer {
+
+    @Bean
+    public FilterRegistrationBean<AuthTokenFilter> authTokenFilter(TokenService tokenService) {
+        FilterRegistrationBean<AuthTokenFilter> registration = new FilterRegistrationBean<>(
+                new AuthTokenFilter(tokenService));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AuthInterceptor());
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.drugmanagement.config;
+
+import com.example.drugmanagement.service.AuthPrincipal;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Denies anonymous calls to every REST handler after handler mapping, whatever path
+ * reached it; only the exemptions of {@link AuthTokenFilter} pass. Page controllers
+ * redirect to the login page themselves.
+ */
+class AuthInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!(handler instanceof HandlerMethod) || !isRest((HandlerMethod) handler)
+                || AuthPrincipal.from(request) != null || AuthTokenFilter.isExempt(request)) {
+            return true;
+        }
+        AuthTokenFilter.unauthorized(response);
+        return false;
+    }
+
+    private static boolean isRest(HandlerMethod method) {
+        return method.hasMethodAnnotation(ResponseBody.class)
+                || AnnotatedElementUtils.hasAnnotation(method.getBeanType(), ResponseBody.class);
+    }
+}
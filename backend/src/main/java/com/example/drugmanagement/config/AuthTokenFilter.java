@@ -0,0 +1,108 @@
+package com.example.drugmanagement.config;
+
+import com.example.drugmanagement.service.AuthPrincipal;
+import com.example.drugmanagement.service.TokenService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Verifies the caller's token and exposes it as {@link AuthPrincipal}. REST calls
+ * ({@code /api/**}) must send {@code Authorization: Bearer <token>}. The EventSource
+ * streams and exports in {@link #LINK_PATHS}, which cannot set headers, may instead pass
+ * a short-lived link token for that path as {@code access_token}; the session token is
+ * never accepted in a URL, where it would end up in access logs, history and Referer
+ * headers. Server-rendered pages read the token from the {@code token} cookie and leave
+ * redirecting to the login page to their controllers.
+ * <p>
+ * Paths are classified by the decoded lookup path Spring MVC routes on, so encoded
+ * characters or {@code ;} parameters cannot move an API call out of {@code /api}.
+ * {@link AuthInterceptor} rejects anonymous calls to any REST handler as well.
+ */
+public class AuthTokenFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE_NAME = "token";
+
+    /**
+     * GET paths that accept a link token in the query.
+     */
+    public static final Set<String> LINK_PATHS = Set.of(
+            "/api/alerts/stream", "/api/inventory/stream", "/api/stock-in/export", "/api/stock-out/export");
+
+    private static final String BEARER = "Bearer ";
+    private static final String LINK_TOKEN_PARAMETER = "access_token";
+    private static final Set<String> PUBLIC_API = new HashSet<>(Arrays.asList(
+            "/api/auth/login", "/api/auth/register"));
+    private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+    private static final byte[] UNAUTHORIZED = "{\"message\":\"未登录或登录已过期\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final TokenService tokenService;
+
+    public AuthTokenFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = PATH_HELPER.getLookupPathForRequest(request);
+        boolean api = path.equals("/api") || path.startsWith("/api/");
+        AuthPrincipal principal = api ? apiPrincipal(request, path) : tokenService.verify(cookieToken(request));
+        if (principal != null) {
+            request.setAttribute(AuthPrincipal.REQUEST_ATTRIBUTE, principal);
+        } else if (api && !isExempt(request)) {
+            unauthorized(response);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Login, registration and CORS preflight are the only API calls served without a token.
+     */
+    static boolean isExempt(HttpServletRequest request) {
+        return "OPTIONS".equals(request.getMethod())
+                || PUBLIC_API.contains(PATH_HELPER.getLookupPathForRequest(request));
+    }
+
+    static void unauthorized(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.UNAUTHORIZED.value());
+        response.setContentType("application/json;charset=UTF-8");
+        response.getOutputStream().write(UNAUTHORIZED);
+    }
+
+    private AuthPrincipal apiPrincipal(HttpServletRequest request, String path) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER)) {
+            return tokenService.verify(header.substring(BEARER.length()).trim());
+        }
+        if ("GET".equals(request.getMethod()) && LINK_PATHS.contains(path)) {
+            return tokenService.verifyLink(request.getParameter(LINK_TOKEN_PARAMETER), path);
+        }
+        return null;
+    }
+
+    private static String cookieToken(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE_NAME.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -5,12 +5,20 @@ import com.example.drugmanagement.entity.DrugInfo;
 import com.example.drugmanagement.entity.StockIn;
 import com.example.drugmanagement.entity.StockOut;
 import com.example.drugmanagement.entity.User;
+import com.example.drugmanagement.event.DataReloadedEvent;
 import com.example.drugmanagement.repository.DrugCategoryRepository;
 import com.example.drugmanagement.repository.DrugInfoRepository;
 import com.example.drugmanagement.repository.StockInRepository;
 import com.example.drugmanagement.repository.StockOutRepository;
 import com.example.drugmanagement.repository.UserRepository;
-import org.springframework.boot.CommandLineRunner;
+import com.example.drugmanagement.service.DataSeeder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -19,30 +27,91 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Seeds data in the background once the application is ready, so startup never waits
+ * for it: the demo rows when the tables are empty ({@code seed.demo}), and synthetic
+ * drugs and stock history up to {@code seed.drugs} drugs through {@link DataSeeder}.
+ */
 @Component
-public class DataInitializer implements CommandLineRunner {
+public class DataInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
 
     private final DrugCategoryRepository categoryRepository;
     private final DrugInfoRepository drugInfoRepository;
     private final StockInRepository stockInRepository;
     private final StockOutRepository stockOutRepository;
     private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSeeder dataSeeder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean demo;
+    private final int seedDrugs;
+    private final long seedLedgerRows;
 
     public DataInitializer(DrugCategoryRepository categoryRepository,
                            DrugInfoRepository drugInfoRepository,
                            StockInRepository stockInRepository,
                            StockOutRepository stockOutRepository,
-                           UserRepository userRepository) {
+                           UserRepository userRepository,
+                           JdbcTemplate jdbcTemplate,
+                           DataSeeder dataSeeder,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${seed.demo:true}") boolean demo,
+                           @Value("${seed.drugs:0}") int seedDrugs,
+                           @Value("${seed.ledger-rows:0}") long seedLedgerRows) {
         this.categoryRepository = categoryRepository;
         this.drugInfoRepository = drugInfoRepository;
         this.stockInRepository = stockInRepository;
         this.stockOutRepository = stockOutRepository;
         this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSeeder = dataSeeder;
+        this.eventPublisher = eventPublisher;
+        this.demo = demo;
+        this.seedDrugs = seedDrugs;
+        this.seedLedgerRows = seedLedgerRows;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!demo && seedDrugs <= 0) {
+            return;
+        }
+        Thread thread = new Thread(this::run, "data-init");
+        thread.setDaemon(true);
+        thread.start();
     }
 
-    @Override
-    public void run(String... args) {
-        if (categoryRepository.count() == 0) {
+    private void run() {
+        try {
+            if (demo && seedDemo()) {
+                eventPublisher.publishEvent(new DataReloadedEvent());
+            }
+            if (seedDrugs > 0) {
+                long existing = jdbcTemplate.queryForObject("select count(*) from drug_info", Long.class);
+                if (existing < seedDrugs) {
+                    dataSeeder.seed((int) (seedDrugs - existing), seedLedgerRows);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Data seeding failed", e);
+        }
+    }
+
+    /**
+     * The original demo rows, each table only when it is empty; the four counts come
+     * from one query. Returns whether anything was inserted.
+     */
+    private boolean seedDemo() {
+        long[] counts = jdbcTemplate.queryForObject("select (select count(*) from drug_category), "
+                + "(select count(*) from drug_info), (select count(*) from stock_in), "
+                + "(select count(*) from stock_out)", (rs, i) -> new long[]{
+                        rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)});
+        if (counts[0] > 0 && counts[1] > 0 && counts[2] > 0 && counts[3] > 0) {
+            return false;
+        }
+        if (counts[0] == 0) {
             DrugCategory c1 = new DrugCategory();
             c1.setName("抗生素");
             c1.setDescription("常用抗生素类药品");
@@ -61,7 +130,7 @@ public class DataInitializer implements CommandLineRunner {
             categoryRepository.saveAll(Arrays.asList(c1, c2, c3));
         }
 
-        if (drugInfoRepository.count() == 0) {
+        if (counts[1] == 0) {
             List<DrugCategory> categories = categoryRepository.findAll();
             if (!categories.isEmpty()) {
                 DrugCategory c1 = categories.get(0);
@@ -110,7 +179,7 @@ public class DataInitializer implements CommandLineRunner {
             }
         }
 
-        if (stockInRepository.count() == 0 || stockOutRepository.count() == 0) {
+        if (counts[2] == 0 || counts[3] == 0) {
             List<DrugInfo> drugs = drugInfoRepository.findAll();
             if (!drugs.isEmpty()) {
                 DrugInfo d1 = drugs.get(0);
@@ -121,7 +190,7 @@ public class DataInitializer implements CommandLineRunner {
                     operator = users.get(0);
                 }
 
-                if (stockInRepository.count() == 0) {
+                if (counts[2] == 0) {
                     StockIn s1 = new StockIn();
                     s1.setDrug(d1);
                     s1.setQuantity(50);
@@ -145,7 +214,7 @@ public class DataInitializer implements CommandLineRunner {
                     stockInRepository.saveAll(Arrays.asList(s1, s2));
                 }
 
-                if (stockOutRepository.count() == 0) {
+                if (counts[3] == 0) {
                     StockOut o1 = new StockOut();
                     o1.setDrug(d1);
                     o1.setQuantity(10);
@@ -166,5 +235,6 @@ public class DataInitializer implements CommandLineRunner {
                 }
             }
         }
+        return true;
     }
 }
@@ -0,0 +1,39 @@
+package com.example.drugmanagement.config;
+
+import com.example.drugmanagement.service.ConnectionPoolMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Attaches {@link ConnectionPoolMetrics} to every Hikari pool before it starts and
+ * wraps the pool so statements are counted per request. Pool sizing and driver
+ * statement caching live in {@code application-prod.properties}.
+ */
+@Configuration
+public class DataSourcePoolConfig {
+
+    @Bean
+    public static ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
+    }
+
+    @Bean
+    public static BeanPostProcessor hikariPostProcessor(ObjectProvider<ConnectionPoolMetrics> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    HikariDataSource dataSource = (HikariDataSource) bean;
+                    if (dataSource.getMetricsTrackerFactory() == null && dataSource.getMetricRegistry() == null) {
+                        dataSource.setMetricsTrackerFactory(metrics.getObject());
+                    }
+                    return new QueryCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
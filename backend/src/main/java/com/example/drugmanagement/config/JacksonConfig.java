@@ -0,0 +1,101 @@
+package com.example.drugmanagement.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Writes {@link LocalDate} and {@link LocalDateTime} as ISO-8601 text straight into the
+ * generator from a small char buffer. The output matches {@code ISO_LOCAL_DATE} and
+ * {@code ISO_LOCAL_DATE_TIME}, but skips the formatter and the intermediate String it
+ * builds for every value.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer isoDateTimeCustomizer() {
+        return builder -> builder
+                .serializerByType(LocalDate.class, new IsoLocalDateSerializer())
+                .serializerByType(LocalDateTime.class, new IsoLocalDateTimeSerializer());
+    }
+
+    static class IsoLocalDateSerializer extends StdSerializer<LocalDate> {
+
+        IsoLocalDateSerializer() {
+            super(LocalDate.class);
+        }
+
+        @Override
+        public void serialize(LocalDate value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (value.getYear() < 0 || value.getYear() > 9999) {
+                gen.writeString(value.toString());
+                return;
+            }
+            char[] buf = new char[10];
+            int len = writeDate(buf, 0, value.getYear(), value.getMonthValue(), value.getDayOfMonth());
+            gen.writeString(buf, 0, len);
+        }
+    }
+
+    static class IsoLocalDateTimeSerializer extends StdSerializer<LocalDateTime> {
+
+        IsoLocalDateTimeSerializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (value.getYear() < 0 || value.getYear() > 9999) {
+                gen.writeString(value.toString());
+                return;
+            }
+            char[] buf = new char[29];
+            int pos = writeDate(buf, 0, value.getYear(), value.getMonthValue(), value.getDayOfMonth());
+            buf[pos++] = 'T';
+            pos = writeTwoDigits(buf, pos, value.getHour());
+            buf[pos++] = ':';
+            pos = writeTwoDigits(buf, pos, value.getMinute());
+            buf[pos++] = ':';
+            pos = writeTwoDigits(buf, pos, value.getSecond());
+            int nano = value.getNano();
+            if (nano > 0) {
+                buf[pos++] = '.';
+                int end = pos + 9;
+                for (int i = end - 1; i >= pos; i--) {
+                    buf[i] = (char) ('0' + nano % 10);
+                    nano /= 10;
+                }
+                while (buf[end - 1] == '0') {
+                    end--;
+                }
+                pos = end;
+            }
+            gen.writeString(buf, 0, pos);
+        }
+    }
+
+    private static int writeDate(char[] buf, int pos, int year, int month, int day) {
+        buf[pos++] = (char) ('0' + year / 1000);
+        buf[pos++] = (char) ('0' + year / 100 % 10);
+        buf[pos++] = (char) ('0' + year / 10 % 10);
+        buf[pos++] = (char) ('0' + year % 10);
+        buf[pos++] = '-';
+        pos = writeTwoDigits(buf, pos, month);
+        buf[pos++] = '-';
+        return writeTwoDigits(buf, pos, day);
+    }
+
+    private static int writeTwoDigits(char[] buf, int pos, int value) {
+        buf[pos++] = (char) ('0' + value / 10);
+        buf[pos++] = (char) ('0' + value % 10);
+        return pos;
+    }
+}
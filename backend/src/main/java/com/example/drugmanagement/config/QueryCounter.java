@@ -0,0 +1,30 @@
+package com.example.drugmanagement.config;
+
+/**
+ * Per-thread count of JDBC statements prepared while a request is being handled. Only
+ * threads that called {@link #start()} are counted.
+ */
+final class QueryCounter {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    static void increment() {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count != null ? count[0] : 0;
+    }
+}
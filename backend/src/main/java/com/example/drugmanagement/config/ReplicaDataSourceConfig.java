@@ -0,0 +1,83 @@
+package com.example.drugmanagement.config;
+
+import com.example.drugmanagement.service.ConnectionPoolMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * With {@code replica.urls} set, the application data source routes the read-only
+ * transactions of {@link ReplicaRead} handlers to the replicas and everything else to
+ * the primary. Replica pools take the {@code spring.datasource.hikari.*} settings and
+ * open their connections read-only.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "replica", name = "urls")
+public class ReplicaDataSourceConfig implements WebMvcConfigurer {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            ConnectionPoolMetrics connectionPoolMetrics,
+            @Value("${replica.urls}") String urls,
+            @Value("${replica.username:${spring.datasource.username:}}") String username,
+            @Value("${replica.password:${spring.datasource.password:}}") String password,
+            @Value("${replica.max-lag:5s}") Duration maxLag) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        configure(primary, environment, connectionPoolMetrics);
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (String url : StringUtils.commaDelimitedListToStringArray(urls)) {
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            HikariDataSource pool = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(url.trim()).username(username).password(password).build();
+            configure(pool, environment, connectionPoolMetrics);
+            pool.setPoolName("replica-" + (replicas.size() + 1));
+            pool.setReadOnly(true);
+            pool.setInitializationFailTimeout(-1);
+            replicas.add(new ReplicaRoutingDataSource.Replica(pool, maxLag.toMillis()));
+        }
+        return new ReplicaRoutingDataSource(new ReplicaRoutingDataSource.Pool(primary), replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new ReplicaLagMonitor(replicaRoutingDataSource);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReplicaRoutingInterceptor());
+    }
+
+    private static void configure(HikariDataSource pool, Environment environment,
+                                  ConnectionPoolMetrics connectionPoolMetrics) {
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setMetricsTrackerFactory(connectionPoolMetrics);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.drugmanagement.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Timestamp;
+
+/**
+ * Measures replica lag: writes the time to {@code replica_heartbeat} on the primary, then
+ * reads each replica's copy back; the difference is how far behind it is, to within one
+ * heartbeat. A replica that cannot be read is marked down until it can.
+ */
+class ReplicaLagMonitor implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final String BEAT = "update replica_heartbeat set beat_time = ? where id = 1";
+    private static final String READ = "select beat_time from replica_heartbeat where id = 1";
+
+    private final ReplicaRoutingDataSource routing;
+    private final JdbcTemplate primary;
+
+    ReplicaLagMonitor(ReplicaRoutingDataSource routing) {
+        this.routing = routing;
+        this.primary = new JdbcTemplate(routing.getPrimary().dataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${replica.heartbeat-ms:1000}")
+    public void beat() {
+        long now = System.currentTimeMillis();
+        try {
+            primary.update(BEAT, new Timestamp(now));
+        } catch (DataAccessException e) {
+            log.warn("Replica heartbeat failed: {}", e.getMessage());
+            return;
+        }
+        for (ReplicaRoutingDataSource.Replica replica : routing.getReplicas()) {
+            try {
+                Timestamp beat = new JdbcTemplate(replica.dataSource).queryForObject(READ, Timestamp.class);
+                replica.lagged(beat != null ? now - beat.getTime() : Long.MAX_VALUE);
+            } catch (DataAccessException e) {
+                replica.markDown(e);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (ReplicaRoutingDataSource.Replica replica : routing.getReplicas()) {
+            Gauge.builder("db.replica.lag", replica, r -> r.getLagMillis() < 0 ? Double.NaN : r.getLagMillis() / 1000.0)
+                    .description("Replica lag behind the primary, as of the last heartbeat")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.getName())
+                    .register(registry);
+            Gauge.builder("db.replica.usable", replica, r -> r.isUsable() ? 1 : 0)
+                    .description("Whether reads are routed to the replica")
+                    .tag("replica", replica.getName())
+                    .register(registry);
+            FunctionCounter.builder("db.replica.connections", replica, r -> r.connections.sum())
+                    .description("Connections handed out from the replica")
+                    .tag("replica", replica.getName())
+                    .register(registry);
+        }
+        FunctionCounter.builder("db.replica.fallbacks", routing, ReplicaRoutingDataSource::getFallbacks)
+                .description("Replica reads served by the primary because no replica was usable")
+                .register(registry);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.drugmanagement.config;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Per-thread opt-in to replica reads, set around {@link ReplicaRead} handlers and
+ * carried over to the threads that write their streamed responses.
+ */
+public final class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> REQUESTED = new ThreadLocal<>();
+
+    private ReplicaRouting() {
+    }
+
+    static void enter() {
+        REQUESTED.set(Boolean.TRUE);
+    }
+
+    static void exit() {
+        REQUESTED.remove();
+    }
+
+    static boolean isRequested() {
+        return REQUESTED.get() != null;
+    }
+
+    /**
+     * Lets {@code body} read from a replica if the calling handler may.
+     */
+    public static StreamingResponseBody wrap(StreamingResponseBody body) {
+        if (!isRequested()) {
+            return body;
+        }
+        return out -> {
+            enter();
+            try {
+                body.writeTo(out);
+            } finally {
+                exit();
+            }
+        };
+    }
+}
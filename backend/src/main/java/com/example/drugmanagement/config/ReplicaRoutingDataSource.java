@@ -0,0 +1,150 @@
+package com.example.drugmanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out primary connections, except to threads opted in by {@link ReplicaRouting}
+ * that are in a read-only transaction or in none: those get the next replica in turn
+ * that is up and no further behind than the allowed lag, else the primary. A replica
+ * that refuses a connection is skipped until its next heartbeat check. Sits behind a
+ * lazy connection proxy, so the choice is made at the first statement, once the
+ * transaction's read-only flag is known.
+ */
+class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final Pool primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder fallbacks = new LongAdder();
+
+    ReplicaRoutingDataSource(Pool primary, List<Replica> replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReplicaRouting.isRequested() && (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || !TransactionSynchronizationManager.isActualTransactionActive())) {
+            int start = next.getAndIncrement();
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+                if (!replica.isUsable()) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replica.connections.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.markDown(e);
+                }
+            }
+            fallbacks.increment();
+        }
+        return primary.dataSource.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.dataSource.getConnection(username, password);
+    }
+
+    Pool getPrimary() {
+        return primary;
+    }
+
+    List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+        primary.pool.close();
+    }
+
+    /**
+     * A Hikari pool and the statement-counting view of it that connections come from.
+     */
+    static class Pool {
+
+        final HikariDataSource pool;
+        final DataSource dataSource;
+
+        Pool(HikariDataSource pool) {
+            this.pool = pool;
+            this.dataSource = new QueryCountingDataSource(pool);
+        }
+    }
+
+    static final class Replica extends Pool {
+
+        private final long maxLagMillis;
+        final LongAdder connections = new LongAdder();
+        private volatile long lagMillis = -1;
+        private volatile boolean up;
+        private volatile boolean checked;
+
+        Replica(HikariDataSource pool, long maxLagMillis) {
+            super(pool);
+            this.maxLagMillis = maxLagMillis;
+        }
+
+        String getName() {
+            return pool.getPoolName();
+        }
+
+        boolean isUsable() {
+            return up && lagMillis <= maxLagMillis;
+        }
+
+        /**
+         * Lag measured by the heartbeat: now minus the newest beat the replica has.
+         */
+        void lagged(long millis) {
+            if (millis > maxLagMillis && (isUsable() || !checked)) {
+                log.warn("Replica {} is {} ms behind, reading from the primary", getName(), millis);
+            }
+            lagMillis = Math.max(millis, 0);
+            up = true;
+            checked = true;
+        }
+
+        void markDown(Exception e) {
+            if (up || !checked) {
+                log.warn("Replica {} is unavailable, reading from the primary: {}", getName(), e.getMessage());
+            }
+            up = false;
+            checked = true;
+        }
+
+        boolean isUp() {
+            return up;
+        }
+
+        long getLagMillis() {
+            return lagMillis;
+        }
+    }
+}
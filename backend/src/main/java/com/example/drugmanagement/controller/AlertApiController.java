@@ -0,0 +1,47 @@
+package com.example.drugmanagement.controller;
+
+import com.example.drugmanagement.dto.AlertResponse;
+import com.example.drugmanagement.service.AlertService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/alerts")
+public class AlertApiController {
+
+    private static final int MAX_DAYS = 365;
+    private static final int MAX_LIMIT = 1000;
+
+    private final AlertService alertService;
+
+    public AlertApiController(AlertService alertService) {
+        this.alertService = alertService;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> list(@RequestParam(value = "type", required = false) String type,
+                                  @RequestParam(value = "days", required = false) Integer days,
+                                  @RequestParam(value = "limit", defaultValue = "200") int limit) {
+        if (type != null && !AlertResponse.LOW_STOCK.equals(type) && !AlertResponse.EXPIRING.equals(type)
+                && !AlertResponse.EXPIRED.equals(type)) {
+            Map<String, Object> body = new HashMap<>();
+            body.put("message", "不支持的预警类型");
+            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        }
+        int window = days != null ? Math.max(0, Math.min(days, MAX_DAYS)) : alertService.getExpiryWindowDays();
+        return ResponseEntity.ok(alertService.alerts(type, window, Math.max(1, Math.min(limit, MAX_LIMIT))));
+    }
+
+    @GetMapping("/stream")
+    public SseEmitter stream() {
+        return alertService.subscribe();
+    }
+}
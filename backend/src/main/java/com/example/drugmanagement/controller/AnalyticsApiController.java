@@ -0,0 +1,98 @@
+package com.example.drugmanagement.controller;
+
+import com.example.drugmanagement.config.ReplicaRead;
+import com.example.drugmanagement.service.ConsumptionService;
+import com.example.drugmanagement.service.StockRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsApiController {
+
+    private static final int DEFAULT_RANGE_DAYS = 30;
+    private static final int MAX_RANGE_DAYS = 3660;
+
+    private final ConsumptionService consumptionService;
+    private final StockRollupService stockRollupService;
+
+    public AnalyticsApiController(ConsumptionService consumptionService, StockRollupService stockRollupService) {
+        this.consumptionService = consumptionService;
+        this.stockRollupService = stockRollupService;
+    }
+
+    /**
+     * Stock received and dispensed per day, week or month between {@code from} and
+     * {@code to} (default: the last 30 days), for one drug, one category or everything.
+     */
+    @ReplicaRead
+    @GetMapping("/consumption")
+    public ResponseEntity<?> consumption(
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "granularity", defaultValue = "day") String granularity,
+            @RequestParam(value = "drugId", required = false) Long drugId,
+            @RequestParam(value = "categoryId", required = false) Long categoryId) {
+        Map<String, Object> body = new HashMap<>();
+        ChronoUnit unit = unit(granularity);
+        if (unit == null) {
+            body.put("message", "不支持的统计粒度");
+            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        }
+        if (drugId != null && categoryId != null) {
+            body.put("message", "药品和分类只能指定一个");
+            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+        if (start.isAfter(end)) {
+            body.put("message", "开始日期不能晚于结束日期");
+            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_RANGE_DAYS) {
+            body.put("message", "查询范围不能超过 " + MAX_RANGE_DAYS + " 天");
+            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(consumptionService.consumption(start, end, unit, drugId, categoryId));
+    }
+
+    /**
+     * Recomputes the rollups from the stock ledger in the background.
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        Map<String, Object> body = new HashMap<>();
+        if (!stockRollupService.rebuildAsync()) {
+            body.put("message", "统计数据正在重建中");
+            return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+        }
+        body.put("message", "已开始重建统计数据");
+        return new ResponseEntity<>(body, HttpStatus.ACCEPTED);
+    }
+
+    private static ChronoUnit unit(String granularity) {
+        switch (granularity) {
+            case "day":
+                return ChronoUnit.DAYS;
+            case "week":
+                return ChronoUnit.WEEKS;
+            case "month":
+                return ChronoUnit.MONTHS;
+            default:
+                return null;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.example.drugmanagement.controller;
 
+import com.example.drugmanagement.config.AuthTokenFilter;
 import com.example.drugmanagement.entity.User;
 import com.example.drugmanagement.repository.UserRepository;
+import com.example.drugmanagement.service.AuthPrincipal;
+import com.example.drugmanagement.service.AuthService;
+import com.example.drugmanagement.service.ReferenceDataCache;
+import com.example.drugmanagement.service.TokenService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -9,6 +14,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -18,9 +24,18 @@ import java.util.Map;
 public class AuthApiController {
 
     private final UserRepository userRepository;
-
-    public AuthApiController(UserRepository userRepository) {
+    private final ReferenceDataCache referenceDataCache;
+    private final AuthService authService;
+    private final TokenService tokenService;
+
+    public AuthApiController(UserRepository userRepository,
+                             ReferenceDataCache referenceDataCache,
+                             AuthService authService,
+                             TokenService tokenService) {
         this.userRepository = userRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.authService = authService;
+        this.tokenService = tokenService;
     }
 
     @PostMapping("/register")
@@ -39,11 +54,12 @@ public class AuthApiController {
         }
         User user = new User();
         user.setUsername(username);
-        user.setPassword(request.getPassword());
+        user.setPassword(authService.hashPassword(request.getPassword()));
         user.setRole("admin");
         user.setStatus(1);
         user.setCreateTime(LocalDateTime.now());
         userRepository.save(user);
+        referenceDataCache.evictUser(user.getUsername());
         body.put("message", "注册成功");
         return new ResponseEntity<>(body, HttpStatus.OK);
     }
@@ -56,13 +72,43 @@ public class AuthApiController {
             return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
         }
         String username = request.getUsername().trim();
-        User user = userRepository.findByUsername(username);
-        if (user == null || !user.getPassword().equals(request.getPassword()) || user.getStatus() == null || user.getStatus() != 1) {
+        User user = authService.authenticate(username, request.getPassword());
+        if (user == null) {
             body.put("message", "用户名或密码错误，或账号被禁用");
             return new ResponseEntity<>(body, HttpStatus.UNAUTHORIZED);
         }
-        body.put("token", "dummy-token");
+        body.put("token", tokenService.issue(user));
         body.put("username", user.getUsername());
+        body.put("expiresIn", tokenService.getTtl().getSeconds());
+        return new ResponseEntity<>(body, HttpStatus.OK);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Map<String, Object>> logout(HttpServletRequest request) {
+        AuthPrincipal principal = AuthPrincipal.from(request);
+        if (principal != null) {
+            tokenService.revoke(principal);
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", "已退出登录");
+        return new ResponseEntity<>(body, HttpStatus.OK);
+    }
+
+    /**
+     * A short-lived token for one stream or export path (relative to {@code /api}), to
+     * pass as {@code access_token} where the session token cannot go in a header.
+     */
+    @PostMapping("/link-token")
+    public ResponseEntity<Map<String, Object>> linkToken(@RequestBody LinkTokenRequest request,
+                                                         HttpServletRequest httpRequest) {
+        Map<String, Object> body = new HashMap<>();
+        String path = request != null && request.getPath() != null ? "/api" + request.getPath().trim() : null;
+        if (path == null || !AuthTokenFilter.LINK_PATHS.contains(path)) {
+            body.put("message", "该路径不支持链接令牌");
+            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        }
+        body.put("token", tokenService.issueLink(AuthPrincipal.from(httpRequest), path));
+        body.put("expiresIn", tokenService.getLinkTtl().getSeconds());
         return new ResponseEntity<>(body, HttpStatus.OK);
     }
 
@@ -107,4 +153,16 @@ public class AuthApiController {
             this.password = password;
         }
     }
+
+    public static class LinkTokenRequest {
+        private String path;
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+    }
 }
@@ -1,23 +1,39 @@
 package com.example.drugmanagement.controller;
 
+import com.example.drugmanagement.config.AuthTokenFilter;
 import com.example.drugmanagement.entity.User;
 import com.example.drugmanagement.repository.UserRepository;
+import com.example.drugmanagement.service.AuthPrincipal;
+import com.example.drugmanagement.service.AuthService;
+import com.example.drugmanagement.service.ReferenceDataCache;
+import com.example.drugmanagement.service.TokenService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import javax.servlet.http.HttpSession;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.time.LocalDateTime;
 
 @Controller
 public class AuthController {
 
     private final UserRepository userRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final AuthService authService;
+    private final TokenService tokenService;
 
-    public AuthController(UserRepository userRepository) {
+    public AuthController(UserRepository userRepository,
+                          ReferenceDataCache referenceDataCache,
+                          AuthService authService,
+                          TokenService tokenService) {
         this.userRepository = userRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.authService = authService;
+        this.tokenService = tokenService;
     }
 
     @GetMapping("/login")
@@ -28,14 +44,15 @@ public class AuthController {
     @PostMapping("/login")
     public String login(@RequestParam String username,
                         @RequestParam String password,
-                        HttpSession session,
+                        HttpServletRequest request,
+                        HttpServletResponse response,
                         Model model) {
-        User user = userRepository.findByUsername(username);
-        if (user == null || !user.getPassword().equals(password) || user.getStatus() == null || user.getStatus() != 1) {
+        User user = authService.authenticate(username, password);
+        if (user == null) {
             model.addAttribute("error", "用户名或密码错误，或账号被禁用");
             return "auth/login";
         }
-        session.setAttribute("currentUser", user);
+        response.addCookie(tokenCookie(request, tokenService.issue(user), (int) tokenService.getTtl().getSeconds()));
         return "redirect:/dashboard";
     }
 
@@ -55,11 +72,12 @@ public class AuthController {
         }
         User user = new User();
         user.setUsername(username);
-        user.setPassword(password);
+        user.setPassword(authService.hashPassword(password));
         user.setRole("admin");
         user.setStatus(1);
         user.setCreateTime(LocalDateTime.now());
         userRepository.save(user);
+        referenceDataCache.evictUser(user.getUsername());
         model.addAttribute("msg", "注册成功，请登录");
         return "auth/login";
     }
@@ -70,8 +88,21 @@ public class AuthController {
     }
 
     @GetMapping("/logout")
-    public String logout(HttpSession session) {
-        session.invalidate();
+    public String logout(HttpServletRequest request, HttpServletResponse response) {
+        AuthPrincipal principal = AuthPrincipal.from(request);
+        if (principal != null) {
+            tokenService.revoke(principal);
+        }
+        response.addCookie(tokenCookie(request, "", 0));
         return "redirect:/login";
     }
+
+    private static Cookie tokenCookie(HttpServletRequest request, String value, int maxAge) {
+        Cookie cookie = new Cookie(AuthTokenFilter.COOKIE_NAME, value);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setPath(request.getContextPath().isEmpty() ? "/" : request.getContextPath());
+        cookie.setMaxAge(maxAge);
+        return cookie;
+    }
 }
@@ -0,0 +1,24 @@
+package com.example.drugmanagement.controller;
+
+import com.example.drugmanagement.service.ReferenceDataCache;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheApiController {
+
+    private final ReferenceDataCache referenceDataCache;
+
+    public CacheApiController(ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Map<String, Object>> stats() {
+        return referenceDataCache.stats();
+    }
+}
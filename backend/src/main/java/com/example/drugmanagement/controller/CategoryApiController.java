@@ -1,7 +1,11 @@
 package com.example.drugmanagement.controller;
 
+import com.example.drugmanagement.dto.CategoryResponse;
 import com.example.drugmanagement.entity.DrugCategory;
+import com.example.drugmanagement.event.CategoryChangedEvent;
 import com.example.drugmanagement.repository.DrugCategoryRepository;
+import com.example.drugmanagement.service.ReferenceDataCache;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,6 +18,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,14 +28,25 @@ import java.util.Map;
 public class CategoryApiController {
 
     private final DrugCategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReferenceDataCache referenceDataCache;
 
-    public CategoryApiController(DrugCategoryRepository categoryRepository) {
+    public CategoryApiController(DrugCategoryRepository categoryRepository,
+                                 ApplicationEventPublisher eventPublisher,
+                                 ReferenceDataCache referenceDataCache) {
         this.categoryRepository = categoryRepository;
+        this.eventPublisher = eventPublisher;
+        this.referenceDataCache = referenceDataCache;
     }
 
     @GetMapping
-    public List<DrugCategory> list() {
-        return categoryRepository.findAll();
+    public List<CategoryResponse> list() {
+        List<DrugCategory> categories = referenceDataCache.listCategories();
+        List<CategoryResponse> result = new ArrayList<>(categories.size());
+        for (DrugCategory category : categories) {
+            result.add(CategoryResponse.from(category));
+        }
+        return result;
     }
 
     @PostMapping
@@ -45,7 +61,8 @@ public class CategoryApiController {
         category.setDescription(request.getDescription());
         category.setCreateTime(LocalDateTime.now());
         DrugCategory saved = categoryRepository.save(category);
-        return new ResponseEntity<>(saved, HttpStatus.OK);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId(), false));
+        return new ResponseEntity<>(CategoryResponse.from(saved), HttpStatus.OK);
     }
 
     @PutMapping("/{id}")
@@ -61,7 +78,8 @@ public class CategoryApiController {
         }
         category.setDescription(request.getDescription());
         DrugCategory saved = categoryRepository.save(category);
-        return new ResponseEntity<>(saved, HttpStatus.OK);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId(), false));
+        return new ResponseEntity<>(CategoryResponse.from(saved), HttpStatus.OK);
     }
 
     @DeleteMapping("/{id}")
@@ -69,6 +87,7 @@ public class CategoryApiController {
         Map<String, Object> body = new HashMap<>();
         try {
             categoryRepository.deleteById(id);
+            eventPublisher.publishEvent(new CategoryChangedEvent(id, true));
             body.put("message", "删除成功");
             return new ResponseEntity<>(body, HttpStatus.OK);
         } catch (Exception e) {
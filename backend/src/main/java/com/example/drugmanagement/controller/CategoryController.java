@@ -2,7 +2,11 @@ package com.example.drugmanagement.controller;
 
 import com.example.drugmanagement.entity.DrugCategory;
 import com.example.drugmanagement.entity.User;
+import com.example.drugmanagement.event.CategoryChangedEvent;
 import com.example.drugmanagement.repository.DrugCategoryRepository;
+import com.example.drugmanagement.service.AuthPrincipal;
+import com.example.drugmanagement.service.ReferenceDataCache;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,7 +14,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 
-import javax.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -20,32 +24,35 @@ import java.util.Optional;
 public class CategoryController {
 
     private final DrugCategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReferenceDataCache referenceDataCache;
 
-    public CategoryController(DrugCategoryRepository categoryRepository) {
+    public CategoryController(DrugCategoryRepository categoryRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              ReferenceDataCache referenceDataCache) {
         this.categoryRepository = categoryRepository;
+        this.eventPublisher = eventPublisher;
+        this.referenceDataCache = referenceDataCache;
     }
 
-    private User getCurrentUser(HttpSession session) {
-        Object obj = session.getAttribute("currentUser");
-        if (obj instanceof User) {
-            return (User) obj;
-        }
-        return null;
+    private User getCurrentUser(HttpServletRequest request) {
+        AuthPrincipal principal = AuthPrincipal.from(request);
+        return principal != null ? referenceDataCache.findUser(principal.getUsername()) : null;
     }
 
     @GetMapping
-    public String list(Model model, HttpSession session) {
-        if (getCurrentUser(session) == null) {
+    public String list(Model model, HttpServletRequest request) {
+        if (getCurrentUser(request) == null) {
             return "redirect:/login";
         }
-        List<DrugCategory> list = categoryRepository.findAll();
+        List<DrugCategory> list = referenceDataCache.listCategories();
         model.addAttribute("list", list);
         return "category/list";
     }
 
     @GetMapping("/add")
-    public String addForm(Model model, HttpSession session) {
-        if (getCurrentUser(session) == null) {
+    public String addForm(Model model, HttpServletRequest request) {
+        if (getCurrentUser(request) == null) {
             return "redirect:/login";
         }
         model.addAttribute("category", new DrugCategory());
@@ -53,8 +60,8 @@ public class CategoryController {
     }
 
     @GetMapping("/edit/{id}")
-    public String editForm(@PathVariable Long id, Model model, HttpSession session) {
-        if (getCurrentUser(session) == null) {
+    public String editForm(@PathVariable Long id, Model model, HttpServletRequest request) {
+        if (getCurrentUser(request) == null) {
             return "redirect:/login";
         }
         Optional<DrugCategory> optional = categoryRepository.findById(id);
@@ -66,8 +73,8 @@ public class CategoryController {
     }
 
     @PostMapping("/save")
-    public String save(DrugCategory formCategory, HttpSession session, Model model) {
-        if (getCurrentUser(session) == null) {
+    public String save(DrugCategory formCategory, HttpServletRequest request, Model model) {
+        if (getCurrentUser(request) == null) {
             return "redirect:/login";
         }
         DrugCategory category;
@@ -85,20 +92,22 @@ public class CategoryController {
         }
         category.setName(formCategory.getName());
         category.setDescription(formCategory.getDescription());
-        categoryRepository.save(category);
+        DrugCategory saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId(), false));
         return "redirect:/categories";
     }
 
     @GetMapping("/delete/{id}")
-    public String delete(@PathVariable Long id, HttpSession session, Model model) {
-        if (getCurrentUser(session) == null) {
+    public String delete(@PathVariable Long id, HttpServletRequest request, Model model) {
+        if (getCurrentUser(request) == null) {
             return "redirect:/login";
         }
         try {
             categoryRepository.deleteById(id);
+            eventPublisher.publishEvent(new CategoryChangedEvent(id, true));
             return "redirect:/categories";
         } catch (Exception e) {
-            List<DrugCategory> list = categoryRepository.findAll();
+            List<DrugCategory> list = referenceDataCache.listCategories();
             model.addAttribute("list", list);
             model.addAttribute("error", "删除失败，可能有药品正在使用该分类");
             return "category/list";
@@ -0,0 +1,23 @@
+package com.example.drugmanagement.controller;
+
+import com.example.drugmanagement.dto.DashboardStats;
+import com.example.drugmanagement.service.DashboardStatsService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardApiController {
+
+    private final DashboardStatsService dashboardStatsService;
+
+    public DashboardApiController(DashboardStatsService dashboardStatsService) {
+        this.dashboardStatsService = dashboardStatsService;
+    }
+
+    @GetMapping("/stats")
+    public DashboardStats stats() {
+        return dashboardStatsService.getStats();
+    }
+}
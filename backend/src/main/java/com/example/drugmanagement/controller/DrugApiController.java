@@ -1,9 +1,23 @@
 package com.example.drugmanagement.controller;
 
+import com.example.drugmanagement.config.ReplicaRead;
+import com.example.drugmanagement.dto.CursorPage;
+import com.example.drugmanagement.dto.DrugResponse;
+import com.example.drugmanagement.dto.DrugSearchHit;
+import com.example.drugmanagement.dto.DrugView;
 import com.example.drugmanagement.entity.DrugCategory;
 import com.example.drugmanagement.entity.DrugInfo;
-import com.example.drugmanagement.repository.DrugCategoryRepository;
+import com.example.drugmanagement.event.DrugChangedEvent;
+import com.example.drugmanagement.repository.DrugFilter;
 import com.example.drugmanagement.repository.DrugInfoRepository;
+import com.example.drugmanagement.service.DemandForecastService;
+import com.example.drugmanagement.service.DrugSearchService;
+import com.example.drugmanagement.service.InventoryService;
+import com.example.drugmanagement.service.ReferenceDataCache;
+import com.example.drugmanagement.service.StockConflictException;
+import com.example.drugmanagement.service.StockOperationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -19,56 +33,156 @@ import org.springframework.web.bind.annotation.RestController;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/drugs")
 public class DrugApiController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = 100;
+
     private final DrugInfoRepository drugInfoRepository;
-    private final DrugCategoryRepository drugCategoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DrugSearchService drugSearchService;
+    private final ReferenceDataCache referenceDataCache;
+    private final DemandForecastService demandForecastService;
+    private final InventoryService inventoryService;
 
     public DrugApiController(DrugInfoRepository drugInfoRepository,
-                             DrugCategoryRepository drugCategoryRepository) {
+                             ApplicationEventPublisher eventPublisher,
+                             DrugSearchService drugSearchService,
+                             ReferenceDataCache referenceDataCache,
+                             DemandForecastService demandForecastService,
+                             InventoryService inventoryService) {
         this.drugInfoRepository = drugInfoRepository;
-        this.drugCategoryRepository = drugCategoryRepository;
+        this.eventPublisher = eventPublisher;
+        this.drugSearchService = drugSearchService;
+        this.referenceDataCache = referenceDataCache;
+        this.demandForecastService = demandForecastService;
+        this.inventoryService = inventoryService;
     }
 
+    @ReplicaRead
     @GetMapping
-    public List<Map<String, Object>> list(@RequestParam(value = "keyword", required = false) String keyword) {
-        List<DrugInfo> list;
+    public CursorPage<DrugResponse> list(@RequestParam(value = "keyword", required = false) String keyword,
+                                         @RequestParam(value = "categoryId", required = false) Long categoryId,
+                                         @RequestParam(value = "status", required = false) Integer status,
+                                         @RequestParam(value = "minStock", required = false) Integer minStock,
+                                         @RequestParam(value = "maxStock", required = false) Integer maxStock,
+                                         @RequestParam(value = "lowStock", defaultValue = "false") boolean lowStock,
+                                         @RequestParam(value = "expireFrom", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expireFrom,
+                                         @RequestParam(value = "expireTo", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expireTo,
+                                         @RequestParam(value = "after", required = false) Long after,
+                                         @RequestParam(value = "limit", required = false) Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+
+        DrugFilter filter = new DrugFilter();
+        filter.setAfter(after);
+        filter.setLimit(pageSize + 1);
         if (keyword != null && !keyword.trim().isEmpty()) {
-            list = drugInfoRepository.findByNameContaining(keyword.trim());
-        } else {
-            list = drugInfoRepository.findAll();
+            filter.setKeyword(keyword.trim());
+        }
+        filter.setCategoryId(categoryId);
+        filter.setStatus(status);
+        filter.setMinStock(minStock);
+        filter.setMaxStock(maxStock);
+        filter.setLowStock(lowStock);
+        filter.setExpireFrom(expireFrom);
+        filter.setExpireTo(expireTo);
+
+        List<DrugView> list = drugInfoRepository.findPage(filter);
+        boolean hasMore = list.size() > pageSize;
+        if (hasMore) {
+            list = list.subList(0, pageSize);
         }
-        return list.stream().map(this::toDto).collect(Collectors.toList());
+
+        List<DrugResponse> page = new ArrayList<>(list.size());
+        for (DrugView drug : list) {
+            page.add(DrugResponse.from(drug));
+        }
+        return new CursorPage<>(page, hasMore ? list.get(list.size() - 1).getId() : null);
+    }
+
+    @GetMapping("/search")
+    public List<DrugSearchHit> search(@RequestParam(value = "q", required = false) String q,
+                                      @RequestParam(value = "limit", required = false) Integer limit) {
+        int size = limit == null || limit <= 0 ? DEFAULT_SEARCH_LIMIT : Math.min(limit, MAX_SEARCH_LIMIT);
+        return drugSearchService.search(q, size);
+    }
+
+    @PostMapping("/search/rebuild")
+    public Map<String, Object> rebuildSearchIndex() {
+        Map<String, Object> body = new HashMap<>();
+        body.put("count", drugSearchService.rebuild());
+        body.put("message", "索引重建完成");
+        return body;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> get(@PathVariable Long id) {
+        DrugView drug = referenceDataCache.findDrug(id);
+        if (drug == null) {
+            Map<String, Object> body = new HashMap<>();
+            body.put("message", "药品不存在");
+            return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(DrugResponse.from(drug), HttpStatus.OK);
+    }
+
+    /**
+     * Forecast daily demand of the drug with the suggested reorder point and, given its
+     * current stock, the quantity to order now.
+     */
+    @GetMapping("/{id}/forecast")
+    public ResponseEntity<?> forecast(@PathVariable Long id) {
+        Map<String, Object> body = new HashMap<>();
+        DrugView drug = referenceDataCache.findDrug(id);
+        if (drug == null) {
+            body.put("message", "药品不存在");
+            return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+        }
+        if (!demandForecastService.isReady()) {
+            body.put("message", "需求预测正在计算中，请稍后再试");
+            return new ResponseEntity<>(body, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        int stock = drug.getStock() != null ? drug.getStock() : 0;
+        return new ResponseEntity<>(demandForecastService.forecast(id, stock, drug.getReorderLevel()), HttpStatus.OK);
     }
 
     @PostMapping
-    public ResponseEntity<Map<String, Object>> create(@RequestBody DrugRequest request) {
+    public ResponseEntity<?> create(@RequestBody DrugRequest request) {
         Map<String, Object> body = new HashMap<>();
         if (request == null || request.getName() == null || request.getName().trim().isEmpty()
                 || request.getCategoryId() == null) {
             body.put("message", "名称和分类不能为空");
             return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
         }
-        DrugCategory category = drugCategoryRepository.findById(request.getCategoryId()).orElse(null);
+        DrugCategory category = referenceDataCache.findCategory(request.getCategoryId());
         if (category == null) {
             body.put("message", "无效的分类");
             return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
         }
         DrugInfo drug = new DrugInfo();
         applyRequestToEntity(request, drug, category, true);
-        DrugInfo saved = drugInfoRepository.save(drug);
-        return new ResponseEntity<>(toDto(saved), HttpStatus.OK);
+        DrugInfo saved = inventoryService.saveDrug(drug, request.getStock());
+        eventPublisher.publishEvent(DrugChangedEvent.saved(saved));
+        return new ResponseEntity<>(DrugResponse.from(saved), HttpStatus.OK);
     }
 
+    /**
+     * Drug details only; {@code stock} is ignored, stock counts go through
+     * {@link #adjustStock}.
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> update(@PathVariable Long id, @RequestBody DrugRequest request) {
+    public ResponseEntity<?> update(@PathVariable Long id, @RequestBody DrugRequest request) {
         Map<String, Object> body = new HashMap<>();
         DrugInfo drug = drugInfoRepository.findById(id).orElse(null);
         if (drug == null) {
@@ -77,15 +191,44 @@ public class DrugApiController {
         }
         DrugCategory category = drug.getCategory();
         if (request.getCategoryId() != null) {
-            category = drugCategoryRepository.findById(request.getCategoryId()).orElse(null);
+            category = referenceDataCache.findCategory(request.getCategoryId());
             if (category == null) {
                 body.put("message", "无效的分类");
                 return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
             }
         }
         applyRequestToEntity(request, drug, category, false);
-        DrugInfo saved = drugInfoRepository.save(drug);
-        return new ResponseEntity<>(toDto(saved), HttpStatus.OK);
+        DrugInfo saved = inventoryService.saveDrug(drug, null);
+        eventPublisher.publishEvent(DrugChangedEvent.saved(saved));
+        return new ResponseEntity<>(DrugResponse.from(saved), HttpStatus.OK);
+    }
+
+    /**
+     * Corrects the stock to a counted quantity while it still is {@code expectedStock};
+     * 409 with the current stock when it changed in the meantime.
+     */
+    @PostMapping("/{id}/stock-adjustment")
+    public ResponseEntity<Map<String, Object>> adjustStock(@PathVariable Long id,
+                                                           @RequestBody StockAdjustmentRequest request) {
+        Map<String, Object> body = new HashMap<>();
+        if (request == null || request.getExpectedStock() == null || request.getStock() == null
+                || request.getStock() < 0) {
+            body.put("message", "原库存和盘点库存不能为空");
+            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        }
+        try {
+            body.put("delta", inventoryService.adjustStock(id, request.getExpectedStock(), request.getStock()));
+        } catch (StockConflictException e) {
+            body.put("message", e.getMessage());
+            body.put("stock", e.getCurrentStock());
+            return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+        } catch (StockOperationException e) {
+            body.put("message", e.getMessage());
+            return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+        }
+        body.put("stock", request.getStock());
+        body.put("message", "库存调整成功");
+        return new ResponseEntity<>(body, HttpStatus.OK);
     }
 
     @DeleteMapping("/{id}")
@@ -93,6 +236,7 @@ public class DrugApiController {
         Map<String, Object> body = new HashMap<>();
         try {
             drugInfoRepository.deleteById(id);
+            eventPublisher.publishEvent(DrugChangedEvent.deleted(id));
             body.put("message", "删除成功");
             return new ResponseEntity<>(body, HttpStatus.OK);
         } catch (Exception e) {
@@ -101,24 +245,6 @@ public class DrugApiController {
         }
     }
 
-    private Map<String, Object> toDto(DrugInfo drug) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", drug.getId());
-        map.put("name", drug.getName());
-        map.put("categoryId", drug.getCategory() != null ? drug.getCategory().getId() : null);
-        map.put("categoryName", drug.getCategory() != null ? drug.getCategory().getName() : null);
-        map.put("specification", drug.getSpecification());
-        map.put("unit", drug.getUnit());
-        map.put("price", drug.getPrice() != null ? drug.getPrice() : BigDecimal.ZERO);
-        map.put("stock", drug.getStock() != null ? drug.getStock() : 0);
-        map.put("manufacturer", drug.getManufacturer());
-        map.put("productionDate", drug.getProductionDate() != null ? drug.getProductionDate().toString() : null);
-        map.put("expiryDate", drug.getExpireDate() != null ? drug.getExpireDate().toString() : null);
-        map.put("status", drug.getStatus());
-        map.put("createTime", drug.getCreateTime() != null ? drug.getCreateTime().toString() : null);
-        return map;
-    }
-
     private void applyRequestToEntity(DrugRequest request, DrugInfo drug, DrugCategory category, boolean isCreate) {
         drug.setName(request.getName());
         drug.setCategory(category);
@@ -131,10 +257,8 @@ public class DrugApiController {
             drug.setPrice(null);
         }
 
-        if (request.getStock() != null) {
-            drug.setStock(request.getStock());
-        } else if (isCreate && drug.getStock() == null) {
-            drug.setStock(0);
+        if (request.getReorderLevel() != null) {
+            drug.setReorderLevel(request.getReorderLevel() >= 0 ? request.getReorderLevel() : null);
         }
 
         drug.setManufacturer(request.getManufacturer());
@@ -170,6 +294,27 @@ public class DrugApiController {
         }
     }
 
+    public static class StockAdjustmentRequest {
+        private Integer expectedStock;
+        private Integer stock;
+
+        public Integer getExpectedStock() {
+            return expectedStock;
+        }
+
+        public void setExpectedStock(Integer expectedStock) {
+            this.expectedStock = expectedStock;
+        }
+
+        public Integer getStock() {
+            return stock;
+        }
+
+        public void setStock(Integer stock) {
+            this.stock = stock;
+        }
+    }
+
     public static class DrugRequest {
         private Long id;
         private String name;
@@ -178,6 +323,7 @@ public class DrugApiController {
         private String unit;
         private BigDecimal price;
         private Integer stock;
+        private Integer reorderLevel;
         private String manufacturer;
         private String productionDate;
         private String expiryDate;
@@ -239,6 +385,14 @@ public class DrugApiController {
             this.stock = stock;
         }
 
+        public Integer getReorderLevel() {
+            return reorderLevel;
+        }
+
+        public void setReorderLevel(Integer reorderLevel) {
+            this.reorderLevel = reorderLevel;
+        }
+
         public String getManufacturer() {
             return manufacturer;
         }
@@ -1,10 +1,15 @@
 package com.example.drugmanagement.controller;
 
+import com.example.drugmanagement.config.ReplicaRead;
 import com.example.drugmanagement.entity.DrugCategory;
 import com.example.drugmanagement.entity.DrugInfo;
 import com.example.drugmanagement.entity.User;
-import com.example.drugmanagement.repository.DrugCategoryRepository;
+import com.example.drugmanagement.event.DrugChangedEvent;
 import com.example.drugmanagement.repository.DrugInfoRepository;
+import com.example.drugmanagement.service.AuthPrincipal;
+import com.example.drugmanagement.service.InventoryService;
+import com.example.drugmanagement.service.ReferenceDataCache;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,7 +18,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import javax.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -25,27 +30,31 @@ import java.util.Optional;
 public class DrugController {
 
     private final DrugInfoRepository drugInfoRepository;
-    private final DrugCategoryRepository categoryRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryService inventoryService;
 
     public DrugController(DrugInfoRepository drugInfoRepository,
-                          DrugCategoryRepository categoryRepository) {
+                          ReferenceDataCache referenceDataCache,
+                          ApplicationEventPublisher eventPublisher,
+                          InventoryService inventoryService) {
         this.drugInfoRepository = drugInfoRepository;
-        this.categoryRepository = categoryRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.eventPublisher = eventPublisher;
+        this.inventoryService = inventoryService;
     }
 
-    private User getCurrentUser(HttpSession session) {
-        Object obj = session.getAttribute("currentUser");
-        if (obj instanceof User) {
-            return (User) obj;
-        }
-        return null;
+    private User getCurrentUser(HttpServletRequest request) {
+        AuthPrincipal principal = AuthPrincipal.from(request);
+        return principal != null ? referenceDataCache.findUser(principal.getUsername()) : null;
     }
 
+    @ReplicaRead
     @GetMapping
     public String list(@RequestParam(value = "keyword", required = false) String keyword,
                        Model model,
-                       HttpSession session) {
-        if (getCurrentUser(session) == null) {
+                       HttpServletRequest request) {
+        if (getCurrentUser(request) == null) {
             return "redirect:/login";
         }
         List<DrugInfo> list;
@@ -60,26 +69,26 @@ public class DrugController {
     }
 
     @GetMapping("/add")
-    public String addForm(Model model, HttpSession session) {
-        if (getCurrentUser(session) == null) {
+    public String addForm(Model model, HttpServletRequest request) {
+        if (getCurrentUser(request) == null) {
             return "redirect:/login";
         }
-        List<DrugCategory> categories = categoryRepository.findAll();
+        List<DrugCategory> categories = referenceDataCache.listCategories();
         model.addAttribute("drug", new DrugInfo());
         model.addAttribute("categories", categories);
         return "drug/form";
     }
 
     @GetMapping("/edit/{id}")
-    public String editForm(@PathVariable Long id, Model model, HttpSession session) {
-        if (getCurrentUser(session) == null) {
+    public String editForm(@PathVariable Long id, Model model, HttpServletRequest request) {
+        if (getCurrentUser(request) == null) {
             return "redirect:/login";
         }
         Optional<DrugInfo> optional = drugInfoRepository.findById(id);
         if (!optional.isPresent()) {
             return "redirect:/drugs";
         }
-        List<DrugCategory> categories = categoryRepository.findAll();
+        List<DrugCategory> categories = referenceDataCache.listCategories();
         model.addAttribute("drug", optional.get());
         model.addAttribute("categories", categories);
         return "drug/form";
@@ -93,19 +102,20 @@ public class DrugController {
                        @RequestParam(value = "unit", required = false) String unit,
                        @RequestParam(value = "price", required = false) String priceStr,
                        @RequestParam(value = "stock", required = false) String stockStr,
+                       @RequestParam(value = "reorderLevel", required = false) String reorderLevelStr,
                        @RequestParam(value = "manufacturer", required = false) String manufacturer,
                        @RequestParam(value = "productionDate", required = false) String productionDateStr,
                        @RequestParam(value = "expireDate", required = false) String expireDateStr,
                        @RequestParam(value = "status", required = false) Integer status,
-                       HttpSession session,
+                       HttpServletRequest request,
                        Model model) {
-        if (getCurrentUser(session) == null) {
+        if (getCurrentUser(request) == null) {
             return "redirect:/login";
         }
-        Optional<DrugCategory> categoryOptional = categoryRepository.findById(categoryId);
-        if (!categoryOptional.isPresent()) {
+        DrugCategory category = referenceDataCache.findCategory(categoryId);
+        if (category == null) {
             model.addAttribute("error", "请选择有效的药品分类");
-            model.addAttribute("categories", categoryRepository.findAll());
+            model.addAttribute("categories", referenceDataCache.listCategories());
             model.addAttribute("drug", new DrugInfo());
             return "drug/form";
         }
@@ -125,7 +135,7 @@ public class DrugController {
         }
 
         drug.setName(name);
-        drug.setCategory(categoryOptional.get());
+        drug.setCategory(category);
         drug.setSpecification(specification);
         drug.setUnit(unit);
 
@@ -139,14 +149,23 @@ public class DrugController {
             drug.setPrice(null);
         }
 
+        Integer stock = null;
         if (stockStr != null && !stockStr.trim().isEmpty()) {
             try {
-                drug.setStock(Integer.parseInt(stockStr.trim()));
+                stock = Integer.parseInt(stockStr.trim());
             } catch (NumberFormatException e) {
-                drug.setStock(0);
+                stock = 0;
             }
-        } else if (drug.getStock() == null) {
-            drug.setStock(0);
+        }
+
+        if (reorderLevelStr != null && !reorderLevelStr.trim().isEmpty()) {
+            try {
+                drug.setReorderLevel(Integer.parseInt(reorderLevelStr.trim()));
+            } catch (NumberFormatException e) {
+                drug.setReorderLevel(null);
+            }
+        } else {
+            drug.setReorderLevel(null);
         }
 
         drug.setManufacturer(manufacturer);
@@ -176,17 +195,19 @@ public class DrugController {
         }
         drug.setStatus(status);
 
-        drugInfoRepository.save(drug);
+        DrugInfo saved = inventoryService.saveDrug(drug, stock);
+        eventPublisher.publishEvent(DrugChangedEvent.saved(saved));
         return "redirect:/drugs";
     }
 
     @GetMapping("/delete/{id}")
-    public String delete(@PathVariable Long id, HttpSession session) {
-        if (getCurrentUser(session) == null) {
+    public String delete(@PathVariable Long id, HttpServletRequest request) {
+        if (getCurrentUser(request) == null) {
             return "redirect:/login";
         }
         try {
             drugInfoRepository.deleteById(id);
+            eventPublisher.publishEvent(DrugChangedEvent.deleted(id));
         } catch (Exception e) {
             // ignore for now
         }
@@ -0,0 +1,83 @@
+package com.example.drugmanagement.controller;
+
+import com.example.drugmanagement.config.ReplicaRead;
+import com.example.drugmanagement.dto.JournalStock;
+import com.example.drugmanagement.dto.StockReconciliation;
+import com.example.drugmanagement.service.InventoryStreamService;
+import com.example.drugmanagement.service.StockJournalService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/inventory")
+public class InventoryApiController {
+
+    private final InventoryStreamService inventoryStreamService;
+    private final StockJournalService stockJournalService;
+
+    public InventoryApiController(InventoryStreamService inventoryStreamService,
+                                  StockJournalService stockJournalService) {
+        this.inventoryStreamService = inventoryStreamService;
+        this.stockJournalService = stockJournalService;
+    }
+
+    @GetMapping("/stream")
+    public SseEmitter stream() {
+        return inventoryStreamService.subscribe();
+    }
+
+    /**
+     * A drug's stock replayed from the stock journal, now or at {@code at}.
+     */
+    @ReplicaRead
+    @GetMapping("/journal/{drugId}")
+    public ResponseEntity<?> journalStock(
+            @PathVariable Long drugId,
+            @RequestParam(value = "at", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        JournalStock stock = at != null ? stockJournalService.stockAt(drugId, at) : stockJournalService.replay(drugId);
+        if (stock == null) {
+            Map<String, Object> body = new HashMap<>();
+            body.put("message", "该时间点没有库存日志记录");
+            return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok(stock);
+    }
+
+    @GetMapping("/reconciliation")
+    public ResponseEntity<?> reconciliation() {
+        StockReconciliation reconciliation = stockJournalService.getLastReconciliation();
+        if (reconciliation == null) {
+            Map<String, Object> body = new HashMap<>();
+            body.put("message", stockJournalService.isReconciling() ? "库存核对进行中" : "尚未进行库存核对");
+            return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok(reconciliation);
+    }
+
+    /**
+     * Checks every drug's stock against the journal in the background.
+     */
+    @PostMapping("/reconciliation")
+    public ResponseEntity<Map<String, Object>> reconcile() {
+        Map<String, Object> body = new HashMap<>();
+        if (!stockJournalService.reconcileAsync()) {
+            body.put("message", "库存核对进行中");
+            return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+        }
+        body.put("message", "已开始库存核对");
+        return new ResponseEntity<>(body, HttpStatus.ACCEPTED);
+    }
+}
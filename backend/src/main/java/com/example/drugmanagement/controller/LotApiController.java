@@ -0,0 +1,55 @@
+package com.example.drugmanagement.controller;
+
+import com.example.drugmanagement.dto.LotResponse;
+import com.example.drugmanagement.dto.LotView;
+import com.example.drugmanagement.repository.DrugLotRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/lots")
+public class LotApiController {
+
+    private static final int DEFAULT_EXPIRY_WINDOW_DAYS = 30;
+    private static final int MAX_LIMIT = 500;
+
+    private final DrugLotRepository drugLotRepository;
+
+    public LotApiController(DrugLotRepository drugLotRepository) {
+        this.drugLotRepository = drugLotRepository;
+    }
+
+    /**
+     * Open lots of one drug in dispensing order, or, without {@code drugId}, the open
+     * lots of all drugs expiring before {@code expireBefore} (default: 30 days from now).
+     */
+    @GetMapping
+    public List<LotResponse> list(
+            @RequestParam(value = "drugId", required = false) Long drugId,
+            @RequestParam(value = "expireBefore", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expireBefore,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        List<LotView> lots;
+        if (drugId != null) {
+            lots = drugLotRepository.findOpenViewsByDrug(drugId);
+        } else {
+            LocalDate before = expireBefore != null
+                    ? expireBefore : LocalDate.now().plusDays(DEFAULT_EXPIRY_WINDOW_DAYS);
+            lots = drugLotRepository.findOpenViewsExpiringBefore(before,
+                    PageRequest.of(0, Math.max(1, Math.min(limit, MAX_LIMIT))));
+        }
+        List<LotResponse> result = new ArrayList<>(lots.size());
+        for (LotView lot : lots) {
+            result.add(LotResponse.from(lot));
+        }
+        return result;
+    }
+}
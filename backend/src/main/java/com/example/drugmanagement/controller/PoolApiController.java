@@ -0,0 +1,24 @@
+package com.example.drugmanagement.controller;
+
+import com.example.drugmanagement.service.ConnectionPoolMetrics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/pool")
+public class PoolApiController {
+
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+
+    public PoolApiController(ConnectionPoolMetrics connectionPoolMetrics) {
+        this.connectionPoolMetrics = connectionPoolMetrics;
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Map<String, Object>> stats() {
+        return connectionPoolMetrics.stats();
+    }
+}
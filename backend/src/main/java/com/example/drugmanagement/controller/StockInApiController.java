@@ -1,101 +1,203 @@
 package com.example.drugmanagement.controller;
 
-import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.config.ReplicaRead;
+import com.example.drugmanagement.config.ReplicaRouting;
+import com.example.drugmanagement.dto.StockInResponse;
+import com.example.drugmanagement.dto.StockInView;
 import com.example.drugmanagement.entity.StockIn;
 import com.example.drugmanagement.entity.User;
-import com.example.drugmanagement.repository.DrugInfoRepository;
 import com.example.drugmanagement.repository.StockInRepository;
-import com.example.drugmanagement.repository.UserRepository;
+import com.example.drugmanagement.service.AuthPrincipal;
+import com.example.drugmanagement.service.IdempotencyService;
+import com.example.drugmanagement.service.InventoryService;
+import com.example.drugmanagement.service.LedgerExportService;
+import com.example.drugmanagement.service.ReferenceDataCache;
+import com.example.drugmanagement.service.StockInLine;
+import com.example.drugmanagement.service.StockOperationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/stock-in")
 public class StockInApiController {
 
+    private static final int MAX_BATCH_LINES = 10000;
+
+    private static final LocalDate EXPORT_EPOCH = LocalDate.of(1970, 1, 1);
+
     private final StockInRepository stockInRepository;
-    private final DrugInfoRepository drugInfoRepository;
-    private final UserRepository userRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final InventoryService inventoryService;
+    private final LedgerExportService ledgerExportService;
+    private final IdempotencyService idempotencyService;
 
     public StockInApiController(StockInRepository stockInRepository,
-                                DrugInfoRepository drugInfoRepository,
-                                UserRepository userRepository) {
+                                ReferenceDataCache referenceDataCache,
+                                InventoryService inventoryService,
+                                LedgerExportService ledgerExportService,
+                                IdempotencyService idempotencyService) {
         this.stockInRepository = stockInRepository;
-        this.drugInfoRepository = drugInfoRepository;
-        this.userRepository = userRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.inventoryService = inventoryService;
+        this.ledgerExportService = ledgerExportService;
+        this.idempotencyService = idempotencyService;
     }
 
+    @ReplicaRead
     @GetMapping
-    public List<Map<String, Object>> list() {
-        List<StockIn> list = stockInRepository.findAll();
-        return list.stream().map(this::toDto).collect(Collectors.toList());
+    public List<StockInResponse> list() {
+        List<StockInView> list = stockInRepository.findAllViews();
+        List<StockInResponse> result = new ArrayList<>(list.size());
+        for (StockInView view : list) {
+            result.add(StockInResponse.from(view));
+        }
+        return result;
     }
 
+    @ReplicaRead
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "format", defaultValue = LedgerExportService.FORMAT_CSV) String format,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (!LedgerExportService.FORMAT_CSV.equals(format) && !LedgerExportService.FORMAT_NDJSON.equals(format)) {
+            StreamingResponseBody error = out -> out.write(
+                    "{\"message\":\"不支持的导出格式\"}".getBytes(StandardCharsets.UTF_8));
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(error);
+        }
+        LocalDate start = from != null ? from : EXPORT_EPOCH;
+        LocalDate end = to != null ? to : LocalDate.now();
+        StreamingResponseBody stream = ReplicaRouting.wrap(out -> ledgerExportService.exportStockIn(
+                start.atStartOfDay(), end.plusDays(1).atStartOfDay(), format, out));
+        MediaType contentType = LedgerExportService.FORMAT_NDJSON.equals(format)
+                ? MediaType.parseMediaType("application/x-ndjson;charset=UTF-8")
+                : MediaType.parseMediaType("text/csv;charset=UTF-8");
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=stock-in-" + start + "-" + end + "." + format)
+                .body(stream);
+    }
+
+    /**
+     * A retry carrying the same {@code Idempotency-Key} gets the first response back
+     * instead of booking the stock again.
+     */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> create(@RequestBody StockInRequest request) {
+    public ResponseEntity<?> create(@RequestBody StockInRequest request,
+                                    @RequestHeader(value = IdempotencyService.HEADER, required = false) String key,
+                                    HttpServletRequest httpRequest) {
+        return idempotencyService.execute(key, IdempotencyService.scope("stock-in", AuthPrincipal.from(httpRequest)),
+                request, () -> doCreate(request));
+    }
+
+    private ResponseEntity<?> doCreate(StockInRequest request) {
         Map<String, Object> body = new HashMap<>();
         if (request == null || request.getDrugId() == null || request.getQuantity() == null
                 || request.getQuantity() <= 0) {
             body.put("message", "药品和数量不能为空");
             return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
         }
-        DrugInfo drug = drugInfoRepository.findById(request.getDrugId()).orElse(null);
-        if (drug == null) {
-            body.put("message", "无效的药品");
-            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
-        }
-
         StockIn stockIn = new StockIn();
-        stockIn.setDrug(drug);
         stockIn.setQuantity(request.getQuantity());
         if (request.getPrice() != null) {
             stockIn.setPrice(request.getPrice());
         }
         stockIn.setSupplier(request.getSupplier());
         stockIn.setBatchNo(request.getBatchNumber());
-        stockIn.setInTime(LocalDateTime.now());
+        stockIn.setExpireDate(parseDate(request.getExpiryDate()));
         if (request.getOperator() != null && !request.getOperator().trim().isEmpty()) {
-            User operator = userRepository.findByUsername(request.getOperator().trim());
+            User operator = referenceDataCache.findUser(request.getOperator().trim());
             stockIn.setOperator(operator);
         }
         stockIn.setRemark(request.getRemark());
-        StockIn saved = stockInRepository.save(stockIn);
-
-        Integer oldStock = drug.getStock();
-        if (oldStock == null) {
-            oldStock = 0;
+        StockIn saved;
+        try {
+            saved = inventoryService.stockIn(request.getDrugId(), stockIn);
+        } catch (StockOperationException e) {
+            body.put("message", e.getMessage());
+            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
         }
-        drug.setStock(oldStock + request.getQuantity());
-        drugInfoRepository.save(drug);
 
-        return new ResponseEntity<>(toDto(saved), HttpStatus.OK);
+        return new ResponseEntity<>(StockInResponse.from(saved), HttpStatus.OK);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> createBatch(@RequestBody StockInBatchRequest request,
+                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String key,
+                                         HttpServletRequest httpRequest) {
+        return idempotencyService.execute(key, IdempotencyService.scope("stock-in/batch",
+                AuthPrincipal.from(httpRequest)), request, () -> doCreateBatch(request));
+    }
+
+    private ResponseEntity<?> doCreateBatch(StockInBatchRequest request) {
+        Map<String, Object> body = new HashMap<>();
+        if (request == null || request.getLines() == null || request.getLines().isEmpty()) {
+            body.put("message", "入库明细不能为空");
+            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        }
+        if (request.getLines().size() > MAX_BATCH_LINES) {
+            body.put("message", "单次入库明细不能超过 " + MAX_BATCH_LINES + " 行");
+            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        }
+        List<StockInLine> lines = new ArrayList<>(request.getLines().size());
+        for (int i = 0; i < request.getLines().size(); i++) {
+            StockInRequest item = request.getLines().get(i);
+            if (item == null || item.getDrugId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                body.put("message", "第 " + (i + 1) + " 行药品和数量不能为空");
+                return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+            }
+            String operator = item.getOperator() != null ? item.getOperator() : request.getOperator();
+            StockInLine line = new StockInLine();
+            line.setDrugId(item.getDrugId());
+            line.setQuantity(item.getQuantity());
+            line.setPrice(item.getPrice());
+            line.setSupplier(item.getSupplier() != null ? item.getSupplier() : request.getSupplier());
+            line.setBatchNo(item.getBatchNumber());
+            line.setExpireDate(parseDate(item.getExpiryDate()));
+            line.setRemark(item.getRemark());
+            line.setOperator(operator != null && !operator.trim().isEmpty() ? operator.trim() : null);
+            lines.add(line);
+        }
+        try {
+            body.put("count", inventoryService.stockInBatch(lines));
+        } catch (StockOperationException e) {
+            body.put("message", e.getMessage());
+            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        }
+        body.put("message", "入库成功");
+        return new ResponseEntity<>(body, HttpStatus.OK);
     }
 
-    private Map<String, Object> toDto(StockIn stockIn) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", stockIn.getId());
-        map.put("drugId", stockIn.getDrug() != null ? stockIn.getDrug().getId() : null);
-        map.put("drugName", stockIn.getDrug() != null ? stockIn.getDrug().getName() : null);
-        map.put("quantity", stockIn.getQuantity());
-        map.put("price", stockIn.getPrice() != null ? stockIn.getPrice() : BigDecimal.ZERO);
-        map.put("supplier", stockIn.getSupplier());
-        map.put("batchNumber", stockIn.getBatchNo());
-        map.put("createTime", stockIn.getInTime() != null ? stockIn.getInTime().toString() : null);
-        map.put("operator", stockIn.getOperator() != null ? stockIn.getOperator().getUsername() : null);
-        map.put("remark", stockIn.getRemark());
-        return map;
+    private static LocalDate parseDate(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (Exception e) {
+            return null;
+        }
     }
 
     public static class StockInRequest {
@@ -104,6 +206,7 @@ public class StockInApiController {
         private BigDecimal price;
         private String supplier;
         private String batchNumber;
+        private String expiryDate;
         private String remark;
         private String operator;
 
@@ -147,6 +250,14 @@ public class StockInApiController {
             this.batchNumber = batchNumber;
         }
 
+        public String getExpiryDate() {
+            return expiryDate;
+        }
+
+        public void setExpiryDate(String expiryDate) {
+            this.expiryDate = expiryDate;
+        }
+
         public String getRemark() {
             return remark;
         }
@@ -163,4 +274,34 @@ public class StockInApiController {
             this.operator = operator;
         }
     }
+
+    public static class StockInBatchRequest {
+        private String operator;
+        private String supplier;
+        private List<StockInRequest> lines;
+
+        public String getOperator() {
+            return operator;
+        }
+
+        public void setOperator(String operator) {
+            this.operator = operator;
+        }
+
+        public String getSupplier() {
+            return supplier;
+        }
+
+        public void setSupplier(String supplier) {
+            this.supplier = supplier;
+        }
+
+        public List<StockInRequest> getLines() {
+            return lines;
+        }
+
+        public void setLines(List<StockInRequest> lines) {
+            this.lines = lines;
+        }
+    }
 }
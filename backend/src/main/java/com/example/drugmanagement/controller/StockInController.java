@@ -1,10 +1,16 @@
 package com.example.drugmanagement.controller;
 
+import com.example.drugmanagement.config.ReplicaRead;
+import com.example.drugmanagement.dto.DrugView;
 import com.example.drugmanagement.entity.DrugInfo;
 import com.example.drugmanagement.entity.StockIn;
 import com.example.drugmanagement.entity.User;
 import com.example.drugmanagement.repository.DrugInfoRepository;
 import com.example.drugmanagement.repository.StockInRepository;
+import com.example.drugmanagement.service.AuthPrincipal;
+import com.example.drugmanagement.service.InventoryService;
+import com.example.drugmanagement.service.ReferenceDataCache;
+import com.example.drugmanagement.service.StockOperationException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,9 +18,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import javax.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.util.List;
 
 @Controller
@@ -23,24 +29,28 @@ public class StockInController {
 
     private final StockInRepository stockInRepository;
     private final DrugInfoRepository drugInfoRepository;
+    private final InventoryService inventoryService;
+    private final ReferenceDataCache referenceDataCache;
 
     public StockInController(StockInRepository stockInRepository,
-                             DrugInfoRepository drugInfoRepository) {
+                             DrugInfoRepository drugInfoRepository,
+                             InventoryService inventoryService,
+                             ReferenceDataCache referenceDataCache) {
         this.stockInRepository = stockInRepository;
         this.drugInfoRepository = drugInfoRepository;
+        this.inventoryService = inventoryService;
+        this.referenceDataCache = referenceDataCache;
     }
 
-    private User getCurrentUser(HttpSession session) {
-        Object obj = session.getAttribute("currentUser");
-        if (obj instanceof User) {
-            return (User) obj;
-        }
-        return null;
+    private User getCurrentUser(HttpServletRequest request) {
+        AuthPrincipal principal = AuthPrincipal.from(request);
+        return principal != null ? referenceDataCache.findUser(principal.getUsername()) : null;
     }
 
+    @ReplicaRead
     @GetMapping
-    public String list(Model model, HttpSession session) {
-        if (getCurrentUser(session) == null) {
+    public String list(Model model, HttpServletRequest request) {
+        if (getCurrentUser(request) == null) {
             return "redirect:/login";
         }
         List<StockIn> list = stockInRepository.findAll();
@@ -49,8 +59,8 @@ public class StockInController {
     }
 
     @GetMapping("/add")
-    public String addForm(Model model, HttpSession session) {
-        User current = getCurrentUser(session);
+    public String addForm(Model model, HttpServletRequest request) {
+        User current = getCurrentUser(request);
         if (current == null) {
             return "redirect:/login";
         }
@@ -66,14 +76,15 @@ public class StockInController {
                        @RequestParam(value = "price", required = false) String priceStr,
                        @RequestParam(value = "supplier", required = false) String supplier,
                        @RequestParam(value = "batchNo", required = false) String batchNo,
+                       @RequestParam(value = "expireDate", required = false) String expireDateStr,
                        @RequestParam(value = "remark", required = false) String remark,
-                       HttpSession session,
+                       HttpServletRequest request,
                        Model model) {
-        User current = getCurrentUser(session);
+        User current = getCurrentUser(request);
         if (current == null) {
             return "redirect:/login";
         }
-        DrugInfo drug = drugInfoRepository.findById(drugId).orElse(null);
+        DrugView drug = referenceDataCache.findDrug(drugId);
         if (drug == null) {
             model.addAttribute("error", "请选择有效的药品");
             model.addAttribute("drugs", drugInfoRepository.findAll());
@@ -88,7 +99,6 @@ public class StockInController {
         }
 
         StockIn stockIn = new StockIn();
-        stockIn.setDrug(drug);
         stockIn.setQuantity(quantity);
         if (priceStr != null && !priceStr.trim().isEmpty()) {
             try {
@@ -99,17 +109,23 @@ public class StockInController {
         }
         stockIn.setSupplier(supplier);
         stockIn.setBatchNo(batchNo);
-        stockIn.setInTime(LocalDateTime.now());
+        if (expireDateStr != null && !expireDateStr.trim().isEmpty()) {
+            try {
+                stockIn.setExpireDate(LocalDate.parse(expireDateStr.trim()));
+            } catch (Exception e) {
+                stockIn.setExpireDate(null);
+            }
+        }
         stockIn.setOperator(current);
         stockIn.setRemark(remark);
-        stockInRepository.save(stockIn);
-
-        Integer oldStock = drug.getStock();
-        if (oldStock == null) {
-            oldStock = 0;
+        try {
+            inventoryService.stockIn(drugId, stockIn);
+        } catch (StockOperationException e) {
+            model.addAttribute("error", e.getMessage());
+            model.addAttribute("drugs", drugInfoRepository.findAll());
+            model.addAttribute("stockIn", new StockIn());
+            return "stockin/form";
         }
-        drug.setStock(oldStock + quantity);
-        drugInfoRepository.save(drug);
 
         return "redirect:/stock-in";
     }
@@ -1,98 +1,136 @@
 package com.example.drugmanagement.controller;
 
-import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.config.ReplicaRead;
+import com.example.drugmanagement.config.ReplicaRouting;
+import com.example.drugmanagement.dto.StockOutResponse;
+import com.example.drugmanagement.dto.StockOutView;
 import com.example.drugmanagement.entity.StockOut;
 import com.example.drugmanagement.entity.User;
-import com.example.drugmanagement.repository.DrugInfoRepository;
 import com.example.drugmanagement.repository.StockOutRepository;
-import com.example.drugmanagement.repository.UserRepository;
+import com.example.drugmanagement.service.AuthPrincipal;
+import com.example.drugmanagement.service.IdempotencyService;
+import com.example.drugmanagement.service.InventoryService;
+import com.example.drugmanagement.service.LedgerExportService;
+import com.example.drugmanagement.service.ReferenceDataCache;
+import com.example.drugmanagement.service.StockOperationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDateTime;
+import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/stock-out")
 public class StockOutApiController {
 
+    private static final LocalDate EXPORT_EPOCH = LocalDate.of(1970, 1, 1);
+
     private final StockOutRepository stockOutRepository;
-    private final DrugInfoRepository drugInfoRepository;
-    private final UserRepository userRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final InventoryService inventoryService;
+    private final LedgerExportService ledgerExportService;
+    private final IdempotencyService idempotencyService;
 
     public StockOutApiController(StockOutRepository stockOutRepository,
-                                 DrugInfoRepository drugInfoRepository,
-                                 UserRepository userRepository) {
+                                 ReferenceDataCache referenceDataCache,
+                                 InventoryService inventoryService,
+                                 LedgerExportService ledgerExportService,
+                                 IdempotencyService idempotencyService) {
         this.stockOutRepository = stockOutRepository;
-        this.drugInfoRepository = drugInfoRepository;
-        this.userRepository = userRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.inventoryService = inventoryService;
+        this.ledgerExportService = ledgerExportService;
+        this.idempotencyService = idempotencyService;
     }
 
+    @ReplicaRead
     @GetMapping
-    public List<Map<String, Object>> list() {
-        List<StockOut> list = stockOutRepository.findAll();
-        return list.stream().map(this::toDto).collect(Collectors.toList());
+    public List<StockOutResponse> list() {
+        List<StockOutView> list = stockOutRepository.findAllViews();
+        List<StockOutResponse> result = new ArrayList<>(list.size());
+        for (StockOutView view : list) {
+            result.add(StockOutResponse.from(view));
+        }
+        return result;
+    }
+
+    @ReplicaRead
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "format", defaultValue = LedgerExportService.FORMAT_CSV) String format,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (!LedgerExportService.FORMAT_CSV.equals(format) && !LedgerExportService.FORMAT_NDJSON.equals(format)) {
+            StreamingResponseBody error = out -> out.write(
+                    "{\"message\":\"不支持的导出格式\"}".getBytes(StandardCharsets.UTF_8));
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(error);
+        }
+        LocalDate start = from != null ? from : EXPORT_EPOCH;
+        LocalDate end = to != null ? to : LocalDate.now();
+        StreamingResponseBody stream = ReplicaRouting.wrap(out -> ledgerExportService.exportStockOut(
+                start.atStartOfDay(), end.plusDays(1).atStartOfDay(), format, out));
+        MediaType contentType = LedgerExportService.FORMAT_NDJSON.equals(format)
+                ? MediaType.parseMediaType("application/x-ndjson;charset=UTF-8")
+                : MediaType.parseMediaType("text/csv;charset=UTF-8");
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=stock-out-" + start + "-" + end + "." + format)
+                .body(stream);
     }
 
+    /**
+     * A retry carrying the same {@code Idempotency-Key} gets the first response back
+     * instead of booking the stock again.
+     */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> create(@RequestBody StockOutRequest request) {
+    public ResponseEntity<?> create(@RequestBody StockOutRequest request,
+                                    @RequestHeader(value = IdempotencyService.HEADER, required = false) String key,
+                                    HttpServletRequest httpRequest) {
+        return idempotencyService.execute(key, IdempotencyService.scope("stock-out", AuthPrincipal.from(httpRequest)),
+                request, () -> doCreate(request));
+    }
+
+    private ResponseEntity<?> doCreate(StockOutRequest request) {
         Map<String, Object> body = new HashMap<>();
         if (request == null || request.getDrugId() == null || request.getQuantity() == null
                 || request.getQuantity() <= 0) {
             body.put("message", "药品和数量不能为空");
             return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
         }
-        DrugInfo drug = drugInfoRepository.findById(request.getDrugId()).orElse(null);
-        if (drug == null) {
-            body.put("message", "无效的药品");
-            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
-        }
-        Integer stock = drug.getStock();
-        if (stock == null) {
-            stock = 0;
-        }
-        if (request.getQuantity() > stock) {
-            body.put("message", "库存不足，当前库存为 " + stock);
-            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
-        }
-
         StockOut stockOut = new StockOut();
-        stockOut.setDrug(drug);
         stockOut.setQuantity(request.getQuantity());
         stockOut.setReason(request.getReason());
-        stockOut.setOutTime(LocalDateTime.now());
         if (request.getOperator() != null && !request.getOperator().trim().isEmpty()) {
-            User operator = userRepository.findByUsername(request.getOperator().trim());
+            User operator = referenceDataCache.findUser(request.getOperator().trim());
             stockOut.setOperator(operator);
         }
         stockOut.setRemark(request.getRemark());
-        StockOut saved = stockOutRepository.save(stockOut);
-
-        drug.setStock(stock - request.getQuantity());
-        drugInfoRepository.save(drug);
-
-        return new ResponseEntity<>(toDto(saved), HttpStatus.OK);
-    }
+        StockOut saved;
+        try {
+            saved = inventoryService.stockOut(request.getDrugId(), stockOut);
+        } catch (StockOperationException e) {
+            body.put("message", e.getMessage());
+            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        }
 
-    private Map<String, Object> toDto(StockOut stockOut) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", stockOut.getId());
-        map.put("drugId", stockOut.getDrug() != null ? stockOut.getDrug().getId() : null);
-        map.put("drugName", stockOut.getDrug() != null ? stockOut.getDrug().getName() : null);
-        map.put("quantity", stockOut.getQuantity());
-        map.put("reason", stockOut.getReason());
-        map.put("createTime", stockOut.getOutTime() != null ? stockOut.getOutTime().toString() : null);
-        map.put("operator", stockOut.getOperator() != null ? stockOut.getOperator().getUsername() : null);
-        map.put("remark", stockOut.getRemark());
-        return map;
+        return new ResponseEntity<>(StockOutResponse.from(saved), HttpStatus.OK);
     }
 
     public static class StockOutRequest {
@@ -1,10 +1,16 @@
 package com.example.drugmanagement.controller;
 
+import com.example.drugmanagement.config.ReplicaRead;
+import com.example.drugmanagement.dto.DrugView;
 import com.example.drugmanagement.entity.DrugInfo;
 import com.example.drugmanagement.entity.StockOut;
 import com.example.drugmanagement.entity.User;
 import com.example.drugmanagement.repository.DrugInfoRepository;
 import com.example.drugmanagement.repository.StockOutRepository;
+import com.example.drugmanagement.service.AuthPrincipal;
+import com.example.drugmanagement.service.InventoryService;
+import com.example.drugmanagement.service.ReferenceDataCache;
+import com.example.drugmanagement.service.StockOperationException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,8 +18,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import javax.servlet.http.HttpSession;
-import java.time.LocalDateTime;
+import jakarta.servlet.http.HttpServletRequest;
 import java.util.List;
 
 @Controller
@@ -22,24 +27,28 @@ public class StockOutController {
 
     private final StockOutRepository stockOutRepository;
     private final DrugInfoRepository drugInfoRepository;
+    private final InventoryService inventoryService;
+    private final ReferenceDataCache referenceDataCache;
 
     public StockOutController(StockOutRepository stockOutRepository,
-                              DrugInfoRepository drugInfoRepository) {
+                              DrugInfoRepository drugInfoRepository,
+                              InventoryService inventoryService,
+                              ReferenceDataCache referenceDataCache) {
         this.stockOutRepository = stockOutRepository;
         this.drugInfoRepository = drugInfoRepository;
+        this.inventoryService = inventoryService;
+        this.referenceDataCache = referenceDataCache;
     }
 
-    private User getCurrentUser(HttpSession session) {
-        Object obj = session.getAttribute("currentUser");
-        if (obj instanceof User) {
-            return (User) obj;
-        }
-        return null;
+    private User getCurrentUser(HttpServletRequest request) {
+        AuthPrincipal principal = AuthPrincipal.from(request);
+        return principal != null ? referenceDataCache.findUser(principal.getUsername()) : null;
     }
 
+    @ReplicaRead
     @GetMapping
-    public String list(Model model, HttpSession session) {
-        if (getCurrentUser(session) == null) {
+    public String list(Model model, HttpServletRequest request) {
+        if (getCurrentUser(request) == null) {
             return "redirect:/login";
         }
         List<StockOut> list = stockOutRepository.findAll();
@@ -48,8 +57,8 @@ public class StockOutController {
     }
 
     @GetMapping("/add")
-    public String addForm(Model model, HttpSession session) {
-        User current = getCurrentUser(session);
+    public String addForm(Model model, HttpServletRequest request) {
+        User current = getCurrentUser(request);
         if (current == null) {
             return "redirect:/login";
         }
@@ -64,13 +73,13 @@ public class StockOutController {
                        @RequestParam("quantity") Integer quantity,
                        @RequestParam(value = "reason", required = false) String reason,
                        @RequestParam(value = "remark", required = false) String remark,
-                       HttpSession session,
+                       HttpServletRequest request,
                        Model model) {
-        User current = getCurrentUser(session);
+        User current = getCurrentUser(request);
         if (current == null) {
             return "redirect:/login";
         }
-        DrugInfo drug = drugInfoRepository.findById(drugId).orElse(null);
+        DrugView drug = referenceDataCache.findDrug(drugId);
         if (drug == null) {
             model.addAttribute("error", "请选择有效的药品");
             model.addAttribute("drugs", drugInfoRepository.findAll());
@@ -83,28 +92,19 @@ public class StockOutController {
             model.addAttribute("stockOut", new StockOut());
             return "stockout/form";
         }
-        Integer stock = drug.getStock();
-        if (stock == null) {
-            stock = 0;
-        }
-        if (quantity > stock) {
-            model.addAttribute("error", "库存不足，当前库存为 " + stock);
-            model.addAttribute("drugs", drugInfoRepository.findAll());
-            model.addAttribute("stockOut", new StockOut());
-            return "stockout/form";
-        }
-
         StockOut stockOut = new StockOut();
-        stockOut.setDrug(drug);
         stockOut.setQuantity(quantity);
         stockOut.setReason(reason);
-        stockOut.setOutTime(LocalDateTime.now());
         stockOut.setOperator(current);
         stockOut.setRemark(remark);
-        stockOutRepository.save(stockOut);
-
-        drug.setStock(stock - quantity);
-        drugInfoRepository.save(drug);
+        try {
+            inventoryService.stockOut(drugId, stockOut);
+        } catch (StockOperationException e) {
+            model.addAttribute("error", e.getMessage());
+            model.addAttribute("drugs", drugInfoRepository.findAll());
+            model.addAttribute("stockOut", new StockOut());
+            return "stockout/form";
+        }
 
         return "redirect:/stock-out";
     }
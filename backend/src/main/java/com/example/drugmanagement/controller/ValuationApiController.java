@@ -0,0 +1,87 @@
+package com.example.drugmanagement.controller;
+
+import com.example.drugmanagement.config.ReplicaRead;
+import com.example.drugmanagement.repository.DrugInfoRepository;
+import com.example.drugmanagement.service.ValuationService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/valuation")
+public class ValuationApiController {
+
+    private final ValuationService valuationService;
+    private final DrugInfoRepository drugInfoRepository;
+
+    public ValuationApiController(ValuationService valuationService, DrugInfoRepository drugInfoRepository) {
+        this.valuationService = valuationService;
+        this.drugInfoRepository = drugInfoRepository;
+    }
+
+    /**
+     * Stock at cost per category as of the end of {@code date} (default: today), with
+     * the cost of goods dispensed since {@code from} when given.
+     */
+    @ReplicaRead
+    @GetMapping
+    public ResponseEntity<?> valuation(
+            @RequestParam(value = "date", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "categoryId", required = false) Long categoryId) {
+        LocalDate asOf = date != null ? date : LocalDate.now();
+        if (from != null && from.isAfter(asOf)) {
+            Map<String, Object> body = new HashMap<>();
+            body.put("message", "开始日期不能晚于结束日期");
+            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(valuationService.valuation(asOf, from, categoryId));
+    }
+
+    @ReplicaRead
+    @GetMapping("/drugs/{id}")
+    public ResponseEntity<?> drugValuation(
+            @PathVariable Long id,
+            @RequestParam(value = "date", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from) {
+        Map<String, Object> body = new HashMap<>();
+        if (!drugInfoRepository.existsById(id)) {
+            body.put("message", "药品不存在");
+            return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+        }
+        LocalDate asOf = date != null ? date : LocalDate.now();
+        if (from != null && from.isAfter(asOf)) {
+            body.put("message", "开始日期不能晚于结束日期");
+            return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(valuationService.drugValuation(id, asOf, from));
+    }
+
+    /**
+     * Revalues everything from the ledger in the background.
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        Map<String, Object> body = new HashMap<>();
+        if (!valuationService.rebuildAsync()) {
+            body.put("message", "库存估值正在重建中");
+            return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+        }
+        body.put("message", "已开始重建库存估值");
+        return new ResponseEntity<>(body, HttpStatus.ACCEPTED);
+    }
+}
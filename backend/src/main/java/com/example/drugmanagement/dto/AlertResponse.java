@@ -0,0 +1,80 @@
+package com.example.drugmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.LocalDate;
+
+@JsonPropertyOrder({"type", "drugId", "drugName", "lotId", "batchNumber", "quantity", "reorderLevel", "expiryDate",
+        "daysLeft"})
+public class AlertResponse {
+
+    public static final String LOW_STOCK = "LOW_STOCK";
+    public static final String EXPIRING = "EXPIRING";
+    public static final String EXPIRED = "EXPIRED";
+
+    private final String type;
+    private final Long drugId;
+    private final String drugName;
+    private final Long lotId;
+    private final String batchNumber;
+    private final int quantity;
+    private final Integer reorderLevel;
+    private final LocalDate expiryDate;
+    private final Long daysLeft;
+
+    public AlertResponse(String type,
+                         Long drugId,
+                         String drugName,
+                         Long lotId,
+                         String batchNumber,
+                         int quantity,
+                         Integer reorderLevel,
+                         LocalDate expiryDate,
+                         Long daysLeft) {
+        this.type = type;
+        this.drugId = drugId;
+        this.drugName = drugName;
+        this.lotId = lotId;
+        this.batchNumber = batchNumber;
+        this.quantity = quantity;
+        this.reorderLevel = reorderLevel;
+        this.expiryDate = expiryDate;
+        this.daysLeft = daysLeft;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public String getDrugName() {
+        return drugName;
+    }
+
+    public Long getLotId() {
+        return lotId;
+    }
+
+    public String getBatchNumber() {
+        return batchNumber;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public Integer getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public LocalDate getExpiryDate() {
+        return expiryDate;
+    }
+
+    public Long getDaysLeft() {
+        return daysLeft;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.drugmanagement.dto;
+
+import com.example.drugmanagement.entity.DrugCategory;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.LocalDateTime;
+
+@JsonPropertyOrder({"id", "name", "description", "createTime"})
+public class CategoryResponse {
+
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final LocalDateTime createTime;
+
+    public CategoryResponse(Long id,
+                            String name,
+                            String description,
+                            LocalDateTime createTime) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.createTime = createTime;
+    }
+
+    public static CategoryResponse from(DrugCategory category) {
+        return new CategoryResponse(category.getId(), category.getName(), category.getDescription(),
+                category.getCreateTime());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.drugmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Stock received and dispensed in one day, week (starting Monday) or month, identified
+ * by the first day of the bucket. Values are at the receipt price and at the drug's
+ * price when dispensed.
+ */
+@JsonPropertyOrder({"bucket", "qtyIn", "inValue", "qtyOut", "outValue"})
+public class ConsumptionBucket {
+
+    private final LocalDate bucket;
+    private final long qtyIn;
+    private final BigDecimal inValue;
+    private final long qtyOut;
+    private final BigDecimal outValue;
+
+    public ConsumptionBucket(LocalDate bucket, long qtyIn, BigDecimal inValue, long qtyOut, BigDecimal outValue) {
+        this.bucket = bucket;
+        this.qtyIn = qtyIn;
+        this.inValue = inValue;
+        this.qtyOut = qtyOut;
+        this.outValue = outValue;
+    }
+
+    public static ConsumptionBucket empty(LocalDate bucket) {
+        return new ConsumptionBucket(bucket, 0, BigDecimal.ZERO, 0, BigDecimal.ZERO);
+    }
+
+    public ConsumptionBucket plus(long qtyIn, BigDecimal inValue, long qtyOut, BigDecimal outValue) {
+        return new ConsumptionBucket(bucket, this.qtyIn + qtyIn, this.inValue.add(inValue),
+                this.qtyOut + qtyOut, this.outValue.add(outValue));
+    }
+
+    public LocalDate getBucket() {
+        return bucket;
+    }
+
+    public long getQtyIn() {
+        return qtyIn;
+    }
+
+    public BigDecimal getInValue() {
+        return inValue;
+    }
+
+    public long getQtyOut() {
+        return qtyOut;
+    }
+
+    public BigDecimal getOutValue() {
+        return outValue;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.drugmanagement.dto;
+
+import java.util.List;
+
+public class CursorPage<T> {
+
+    private final List<T> list;
+    private final Long nextAfter;
+
+    public CursorPage(List<T> list, Long nextAfter) {
+        this.list = list;
+        this.nextAfter = nextAfter;
+    }
+
+    public List<T> getList() {
+        return list;
+    }
+
+    public Long getNextAfter() {
+        return nextAfter;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.drugmanagement.dto;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+public class DashboardStats {
+
+    public static final DashboardStats EMPTY =
+            new DashboardStats(0, 0, BigDecimal.ZERO, 0, Collections.<CategoryStats>emptyList());
+
+    private final int totalDrugs;
+    private final int lowStockCount;
+    private final BigDecimal totalValue;
+    private final long categoryCount;
+    private final List<CategoryStats> categories;
+
+    public DashboardStats(int totalDrugs,
+                          int lowStockCount,
+                          BigDecimal totalValue,
+                          long categoryCount,
+                          List<CategoryStats> categories) {
+        this.totalDrugs = totalDrugs;
+        this.lowStockCount = lowStockCount;
+        this.totalValue = totalValue;
+        this.categoryCount = categoryCount;
+        this.categories = categories;
+    }
+
+    public int getTotalDrugs() {
+        return totalDrugs;
+    }
+
+    public int getLowStockCount() {
+        return lowStockCount;
+    }
+
+    public BigDecimal getTotalValue() {
+        return totalValue;
+    }
+
+    public long getCategoryCount() {
+        return categoryCount;
+    }
+
+    public List<CategoryStats> getCategories() {
+        return categories;
+    }
+
+    public static class CategoryStats {
+        private final Long categoryId;
+        private final int drugCount;
+        private final BigDecimal value;
+
+        public CategoryStats(Long categoryId, int drugCount, BigDecimal value) {
+            this.categoryId = categoryId;
+            this.drugCount = drugCount;
+            this.value = value;
+        }
+
+        public Long getCategoryId() {
+            return categoryId;
+        }
+
+        public int getDrugCount() {
+            return drugCount;
+        }
+
+        public BigDecimal getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.drugmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.LocalDate;
+
+/**
+ * Daily demand of a drug estimated from its dispensing history up to {@code computedThrough},
+ * with the reorder point and order-up-to level derived from it and the quantity to order
+ * now given the current stock. Demand figures are units per day.
+ */
+@JsonPropertyOrder({"drugId", "computedThrough", "movingAverage", "smoothedDemand", "demandStdDev",
+        "leadTimeDays", "reviewDays", "safetyStock", "reorderPoint", "orderUpTo", "stock", "reorderLevel",
+        "suggestedQuantity"})
+public class DemandForecast {
+
+    private final Long drugId;
+    private final LocalDate computedThrough;
+    private final double movingAverage;
+    private final double smoothedDemand;
+    private final double demandStdDev;
+    private final int leadTimeDays;
+    private final int reviewDays;
+    private final int safetyStock;
+    private final int reorderPoint;
+    private final int orderUpTo;
+    private final int stock;
+    private final Integer reorderLevel;
+    private final int suggestedQuantity;
+
+    public DemandForecast(Long drugId,
+                          LocalDate computedThrough,
+                          double movingAverage,
+                          double smoothedDemand,
+                          double demandStdDev,
+                          int leadTimeDays,
+                          int reviewDays,
+                          int safetyStock,
+                          int reorderPoint,
+                          int orderUpTo,
+                          int stock,
+                          Integer reorderLevel,
+                          int suggestedQuantity) {
+        this.drugId = drugId;
+        this.computedThrough = computedThrough;
+        this.movingAverage = movingAverage;
+        this.smoothedDemand = smoothedDemand;
+        this.demandStdDev = demandStdDev;
+        this.leadTimeDays = leadTimeDays;
+        this.reviewDays = reviewDays;
+        this.safetyStock = safetyStock;
+        this.reorderPoint = reorderPoint;
+        this.orderUpTo = orderUpTo;
+        this.stock = stock;
+        this.reorderLevel = reorderLevel;
+        this.suggestedQuantity = suggestedQuantity;
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public LocalDate getComputedThrough() {
+        return computedThrough;
+    }
+
+    public double getMovingAverage() {
+        return movingAverage;
+    }
+
+    public double getSmoothedDemand() {
+        return smoothedDemand;
+    }
+
+    public double getDemandStdDev() {
+        return demandStdDev;
+    }
+
+    public int getLeadTimeDays() {
+        return leadTimeDays;
+    }
+
+    public int getReviewDays() {
+        return reviewDays;
+    }
+
+    public int getSafetyStock() {
+        return safetyStock;
+    }
+
+    public int getReorderPoint() {
+        return reorderPoint;
+    }
+
+    public int getOrderUpTo() {
+        return orderUpTo;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public Integer getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public int getSuggestedQuantity() {
+        return suggestedQuantity;
+    }
+}
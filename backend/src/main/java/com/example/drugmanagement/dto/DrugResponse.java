@@ -0,0 +1,138 @@
+package com.example.drugmanagement.dto;
+
+import com.example.drugmanagement.entity.DrugCategory;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@JsonPropertyOrder({"id", "name", "categoryId", "categoryName", "specification", "unit", "price", "stock",
+        "reorderLevel", "manufacturer", "productionDate", "expiryDate", "status", "createTime"})
+public class DrugResponse {
+
+    private final Long id;
+    private final String name;
+    private final Long categoryId;
+    private final String categoryName;
+    private final String specification;
+    private final String unit;
+    private final BigDecimal price;
+    private final int stock;
+    private final int reorderLevel;
+    private final String manufacturer;
+    private final LocalDate productionDate;
+    private final LocalDate expiryDate;
+    private final Integer status;
+    private final LocalDateTime createTime;
+
+    public DrugResponse(Long id,
+                        String name,
+                        Long categoryId,
+                        String categoryName,
+                        String specification,
+                        String unit,
+                        BigDecimal price,
+                        int stock,
+                        int reorderLevel,
+                        String manufacturer,
+                        LocalDate productionDate,
+                        LocalDate expiryDate,
+                        Integer status,
+                        LocalDateTime createTime) {
+        this.id = id;
+        this.name = name;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.specification = specification;
+        this.unit = unit;
+        this.price = price;
+        this.stock = stock;
+        this.reorderLevel = reorderLevel;
+        this.manufacturer = manufacturer;
+        this.productionDate = productionDate;
+        this.expiryDate = expiryDate;
+        this.status = status;
+        this.createTime = createTime;
+    }
+
+    public static DrugResponse from(DrugView drug) {
+        return new DrugResponse(drug.getId(), drug.getName(), drug.getCategoryId(), drug.getCategoryName(),
+                drug.getSpecification(), drug.getUnit(),
+                drug.getPrice() != null ? drug.getPrice() : BigDecimal.ZERO,
+                drug.getStock() != null ? drug.getStock() : 0,
+                drug.getReorderLevel() != null ? drug.getReorderLevel() : DrugInfo.DEFAULT_REORDER_LEVEL,
+                drug.getManufacturer(), drug.getProductionDate(), drug.getExpireDate(), drug.getStatus(),
+                drug.getCreateTime());
+    }
+
+    public static DrugResponse from(DrugInfo drug) {
+        DrugCategory category = drug.getCategory();
+        return new DrugResponse(drug.getId(), drug.getName(),
+                category != null ? category.getId() : null,
+                category != null ? category.getName() : null,
+                drug.getSpecification(), drug.getUnit(),
+                drug.getPrice() != null ? drug.getPrice() : BigDecimal.ZERO,
+                drug.getStock() != null ? drug.getStock() : 0,
+                drug.getReorderLevel() != null ? drug.getReorderLevel() : DrugInfo.DEFAULT_REORDER_LEVEL,
+                drug.getManufacturer(), drug.getProductionDate(), drug.getExpireDate(), drug.getStatus(),
+                drug.getCreateTime());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public String getSpecification() {
+        return specification;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public int getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    public LocalDate getProductionDate() {
+        return productionDate;
+    }
+
+    public LocalDate getExpiryDate() {
+        return expiryDate;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.drugmanagement.dto;
+
+public class DrugSearchHit {
+
+    private final Long id;
+    private final String name;
+    private final String specification;
+    private final String manufacturer;
+    private final int stock;
+    private final int score;
+
+    public DrugSearchHit(Long id, String name, String specification, String manufacturer, int stock, int score) {
+        this.id = id;
+        this.name = name;
+        this.specification = specification;
+        this.manufacturer = manufacturer;
+        this.stock = stock;
+        this.score = score;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSpecification() {
+        return specification;
+    }
+
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public int getScore() {
+        return score;
+    }
+}
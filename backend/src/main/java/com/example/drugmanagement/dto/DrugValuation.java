@@ -0,0 +1,69 @@
+package com.example.drugmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One drug's stock at cost as of the end of {@code date}; {@code averageUnitCost} is
+ * {@code null} without stock. Cost of goods covers the report period, if any.
+ */
+@JsonPropertyOrder({"drugId", "date", "quantity", "averageUnitCost", "averageCostValue", "fifoValue",
+        "cogsAverage", "cogsFifo"})
+public class DrugValuation {
+
+    private final Long drugId;
+    private final LocalDate date;
+    private final int quantity;
+    private final BigDecimal averageUnitCost;
+    private final BigDecimal averageCostValue;
+    private final BigDecimal fifoValue;
+    private final BigDecimal cogsAverage;
+    private final BigDecimal cogsFifo;
+
+    public DrugValuation(Long drugId, LocalDate date, int quantity, BigDecimal averageUnitCost,
+                         BigDecimal averageCostValue, BigDecimal fifoValue, BigDecimal cogsAverage,
+                         BigDecimal cogsFifo) {
+        this.drugId = drugId;
+        this.date = date;
+        this.quantity = quantity;
+        this.averageUnitCost = averageUnitCost;
+        this.averageCostValue = averageCostValue;
+        this.fifoValue = fifoValue;
+        this.cogsAverage = cogsAverage;
+        this.cogsFifo = cogsFifo;
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getAverageUnitCost() {
+        return averageUnitCost;
+    }
+
+    public BigDecimal getAverageCostValue() {
+        return averageCostValue;
+    }
+
+    public BigDecimal getFifoValue() {
+        return fifoValue;
+    }
+
+    public BigDecimal getCogsAverage() {
+        return cogsAverage;
+    }
+
+    public BigDecimal getCogsFifo() {
+        return cogsFifo;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.drugmanagement.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class DrugView {
+
+    private final Long id;
+    private final String name;
+    private final Long categoryId;
+    private final String categoryName;
+    private final String specification;
+    private final String unit;
+    private final BigDecimal price;
+    private final Integer stock;
+    private final Integer reorderLevel;
+    private final String manufacturer;
+    private final LocalDate productionDate;
+    private final LocalDate expireDate;
+    private final Integer status;
+    private final LocalDateTime createTime;
+
+    public DrugView(Long id,
+                    String name,
+                    Long categoryId,
+                    String categoryName,
+                    String specification,
+                    String unit,
+                    BigDecimal price,
+                    Integer stock,
+                    Integer reorderLevel,
+                    String manufacturer,
+                    LocalDate productionDate,
+                    LocalDate expireDate,
+                    Integer status,
+                    LocalDateTime createTime) {
+        this.id = id;
+        this.name = name;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.specification = specification;
+        this.unit = unit;
+        this.price = price;
+        this.stock = stock;
+        this.reorderLevel = reorderLevel;
+        this.manufacturer = manufacturer;
+        this.productionDate = productionDate;
+        this.expireDate = expireDate;
+        this.status = status;
+        this.createTime = createTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public String getSpecification() {
+        return specification;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public Integer getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    public LocalDate getProductionDate() {
+        return productionDate;
+    }
+
+    public LocalDate getExpireDate() {
+        return expireDate;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+}
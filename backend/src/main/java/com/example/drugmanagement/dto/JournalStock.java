@@ -0,0 +1,55 @@
+package com.example.drugmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.LocalDateTime;
+
+/**
+ * A drug's stock at {@code at} replayed from the stock journal: the balance of the
+ * latest snapshot taken by then (none when {@code snapshotSeq} is 0) plus the
+ * {@code tailEvents} journal rows recorded after it.
+ */
+@JsonPropertyOrder({"drugId", "at", "stock", "snapshotSeq", "snapshotTime", "tailEvents"})
+public class JournalStock {
+
+    private final Long drugId;
+    private final LocalDateTime at;
+    private final int stock;
+    private final long snapshotSeq;
+    private final LocalDateTime snapshotTime;
+    private final int tailEvents;
+
+    public JournalStock(Long drugId, LocalDateTime at, int stock, long snapshotSeq, LocalDateTime snapshotTime,
+                        int tailEvents) {
+        this.drugId = drugId;
+        this.at = at;
+        this.stock = stock;
+        this.snapshotSeq = snapshotSeq;
+        this.snapshotTime = snapshotTime;
+        this.tailEvents = tailEvents;
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public LocalDateTime getAt() {
+        return at;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public long getSnapshotSeq() {
+        return snapshotSeq;
+    }
+
+    public LocalDateTime getSnapshotTime() {
+        return snapshotTime;
+    }
+
+    public int getTailEvents() {
+        return tailEvents;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.drugmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.LocalDate;
+
+@JsonPropertyOrder({"id", "drugId", "drugName", "batchNumber", "expiryDate", "quantity"})
+public class LotResponse {
+
+    private final Long id;
+    private final Long drugId;
+    private final String drugName;
+    private final String batchNumber;
+    private final LocalDate expiryDate;
+    private final Integer quantity;
+
+    public LotResponse(Long id,
+                       Long drugId,
+                       String drugName,
+                       String batchNumber,
+                       LocalDate expiryDate,
+                       Integer quantity) {
+        this.id = id;
+        this.drugId = drugId;
+        this.drugName = drugName;
+        this.batchNumber = batchNumber;
+        this.expiryDate = expiryDate;
+        this.quantity = quantity;
+    }
+
+    public static LotResponse from(LotView lot) {
+        return new LotResponse(lot.getId(), lot.getDrugId(), lot.getDrugName(), lot.getBatchNo(),
+                lot.getExpireDate(), lot.getQuantity());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public String getDrugName() {
+        return drugName;
+    }
+
+    public String getBatchNumber() {
+        return batchNumber;
+    }
+
+    public LocalDate getExpiryDate() {
+        return expiryDate;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+}
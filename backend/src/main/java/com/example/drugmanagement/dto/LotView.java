@@ -0,0 +1,51 @@
+package com.example.drugmanagement.dto;
+
+import java.time.LocalDate;
+
+public class LotView {
+
+    private final Long id;
+    private final Long drugId;
+    private final String drugName;
+    private final String batchNo;
+    private final LocalDate expireDate;
+    private final Integer quantity;
+
+    public LotView(Long id,
+                   Long drugId,
+                   String drugName,
+                   String batchNo,
+                   LocalDate expireDate,
+                   Integer quantity) {
+        this.id = id;
+        this.drugId = drugId;
+        this.drugName = drugName;
+        this.batchNo = batchNo;
+        this.expireDate = expireDate;
+        this.quantity = quantity;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public String getDrugName() {
+        return drugName;
+    }
+
+    public String getBatchNo() {
+        return batchNo;
+    }
+
+    public LocalDate getExpireDate() {
+        return expireDate;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+}
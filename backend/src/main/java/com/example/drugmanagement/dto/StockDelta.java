@@ -0,0 +1,37 @@
+package com.example.drugmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Net stock change of one drug since the last push, with the committed stock after it.
+ * {@code stock} is {@code null} when the drug no longer exists.
+ */
+@JsonPropertyOrder({"drugId", "delta", "stock"})
+public class StockDelta {
+
+    private final Long drugId;
+    private final int delta;
+    private final Integer stock;
+
+    public StockDelta(Long drugId, int delta, Integer stock) {
+        this.drugId = drugId;
+        this.delta = delta;
+        this.stock = stock;
+    }
+
+    public StockDelta merge(StockDelta next) {
+        return new StockDelta(drugId, delta + next.delta, next.stock);
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+}
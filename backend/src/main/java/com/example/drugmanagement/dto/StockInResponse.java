@@ -0,0 +1,111 @@
+package com.example.drugmanagement.dto;
+
+import com.example.drugmanagement.entity.StockIn;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@JsonPropertyOrder({"id", "drugId", "drugName", "quantity", "price", "supplier", "batchNumber", "expiryDate",
+        "createTime", "operator", "remark"})
+public class StockInResponse {
+
+    private final Long id;
+    private final Long drugId;
+    private final String drugName;
+    private final Integer quantity;
+    private final BigDecimal price;
+    private final String supplier;
+    private final String batchNumber;
+    private final LocalDate expiryDate;
+    private final LocalDateTime createTime;
+    private final String operator;
+    private final String remark;
+
+    public StockInResponse(Long id,
+                           Long drugId,
+                           String drugName,
+                           Integer quantity,
+                           BigDecimal price,
+                           String supplier,
+                           String batchNumber,
+                           LocalDate expiryDate,
+                           LocalDateTime createTime,
+                           String operator,
+                           String remark) {
+        this.id = id;
+        this.drugId = drugId;
+        this.drugName = drugName;
+        this.quantity = quantity;
+        this.price = price;
+        this.supplier = supplier;
+        this.batchNumber = batchNumber;
+        this.expiryDate = expiryDate;
+        this.createTime = createTime;
+        this.operator = operator;
+        this.remark = remark;
+    }
+
+    public static StockInResponse from(StockInView stockIn) {
+        return new StockInResponse(stockIn.getId(), stockIn.getDrugId(), stockIn.getDrugName(), stockIn.getQuantity(),
+                stockIn.getPrice() != null ? stockIn.getPrice() : BigDecimal.ZERO,
+                stockIn.getSupplier(), stockIn.getBatchNo(), stockIn.getExpireDate(), stockIn.getInTime(),
+                stockIn.getOperator(), stockIn.getRemark());
+    }
+
+    public static StockInResponse from(StockIn stockIn) {
+        return new StockInResponse(stockIn.getId(),
+                stockIn.getDrug() != null ? stockIn.getDrug().getId() : null,
+                stockIn.getDrug() != null ? stockIn.getDrug().getName() : null,
+                stockIn.getQuantity(),
+                stockIn.getPrice() != null ? stockIn.getPrice() : BigDecimal.ZERO,
+                stockIn.getSupplier(), stockIn.getBatchNo(), stockIn.getExpireDate(), stockIn.getInTime(),
+                stockIn.getOperator() != null ? stockIn.getOperator().getUsername() : null,
+                stockIn.getRemark());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public String getDrugName() {
+        return drugName;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public String getSupplier() {
+        return supplier;
+    }
+
+    public String getBatchNumber() {
+        return batchNumber;
+    }
+
+    public LocalDate getExpiryDate() {
+        return expiryDate;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+}
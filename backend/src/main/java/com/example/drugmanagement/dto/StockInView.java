@@ -0,0 +1,88 @@
+package com.example.drugmanagement.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class StockInView {
+
+    private final Long id;
+    private final Long drugId;
+    private final String drugName;
+    private final Integer quantity;
+    private final BigDecimal price;
+    private final String supplier;
+    private final String batchNo;
+    private final LocalDate expireDate;
+    private final LocalDateTime inTime;
+    private final String operator;
+    private final String remark;
+
+    public StockInView(Long id,
+                       Long drugId,
+                       String drugName,
+                       Integer quantity,
+                       BigDecimal price,
+                       String supplier,
+                       String batchNo,
+                       LocalDate expireDate,
+                       LocalDateTime inTime,
+                       String operator,
+                       String remark) {
+        this.id = id;
+        this.drugId = drugId;
+        this.drugName = drugName;
+        this.quantity = quantity;
+        this.price = price;
+        this.supplier = supplier;
+        this.batchNo = batchNo;
+        this.expireDate = expireDate;
+        this.inTime = inTime;
+        this.operator = operator;
+        this.remark = remark;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public String getDrugName() {
+        return drugName;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public String getSupplier() {
+        return supplier;
+    }
+
+    public String getBatchNo() {
+        return batchNo;
+    }
+
+    public LocalDate getExpireDate() {
+        return expireDate;
+    }
+
+    public LocalDateTime getInTime() {
+        return inTime;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+}
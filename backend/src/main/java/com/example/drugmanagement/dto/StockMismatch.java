@@ -0,0 +1,33 @@
+package com.example.drugmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * A drug whose stock counter disagrees with its journal; {@code journalStock} is
+ * {@code null} when the drug has no journal rows at all.
+ */
+@JsonPropertyOrder({"drugId", "stock", "journalStock"})
+public class StockMismatch {
+
+    private final Long drugId;
+    private final int stock;
+    private final Integer journalStock;
+
+    public StockMismatch(Long drugId, int stock, Integer journalStock) {
+        this.drugId = drugId;
+        this.stock = stock;
+        this.journalStock = journalStock;
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public Integer getJournalStock() {
+        return journalStock;
+    }
+}
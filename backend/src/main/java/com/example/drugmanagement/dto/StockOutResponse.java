@@ -0,0 +1,84 @@
+package com.example.drugmanagement.dto;
+
+import com.example.drugmanagement.entity.StockOut;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.LocalDateTime;
+
+@JsonPropertyOrder({"id", "drugId", "drugName", "quantity", "reason", "createTime", "operator", "remark"})
+public class StockOutResponse {
+
+    private final Long id;
+    private final Long drugId;
+    private final String drugName;
+    private final Integer quantity;
+    private final String reason;
+    private final LocalDateTime createTime;
+    private final String operator;
+    private final String remark;
+
+    public StockOutResponse(Long id,
+                            Long drugId,
+                            String drugName,
+                            Integer quantity,
+                            String reason,
+                            LocalDateTime createTime,
+                            String operator,
+                            String remark) {
+        this.id = id;
+        this.drugId = drugId;
+        this.drugName = drugName;
+        this.quantity = quantity;
+        this.reason = reason;
+        this.createTime = createTime;
+        this.operator = operator;
+        this.remark = remark;
+    }
+
+    public static StockOutResponse from(StockOutView stockOut) {
+        return new StockOutResponse(stockOut.getId(), stockOut.getDrugId(), stockOut.getDrugName(),
+                stockOut.getQuantity(), stockOut.getReason(), stockOut.getOutTime(), stockOut.getOperator(),
+                stockOut.getRemark());
+    }
+
+    public static StockOutResponse from(StockOut stockOut) {
+        return new StockOutResponse(stockOut.getId(),
+                stockOut.getDrug() != null ? stockOut.getDrug().getId() : null,
+                stockOut.getDrug() != null ? stockOut.getDrug().getName() : null,
+                stockOut.getQuantity(), stockOut.getReason(), stockOut.getOutTime(),
+                stockOut.getOperator() != null ? stockOut.getOperator().getUsername() : null,
+                stockOut.getRemark());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public String getDrugName() {
+        return drugName;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.drugmanagement.dto;
+
+import java.time.LocalDateTime;
+
+public class StockOutView {
+
+    private final Long id;
+    private final Long drugId;
+    private final String drugName;
+    private final Integer quantity;
+    private final String reason;
+    private final LocalDateTime outTime;
+    private final String operator;
+    private final String remark;
+
+    public StockOutView(Long id,
+                        Long drugId,
+                        String drugName,
+                        Integer quantity,
+                        String reason,
+                        LocalDateTime outTime,
+                        String operator,
+                        String remark) {
+        this.id = id;
+        this.drugId = drugId;
+        this.drugName = drugName;
+        this.quantity = quantity;
+        this.reason = reason;
+        this.outTime = outTime;
+        this.operator = operator;
+        this.remark = remark;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public String getDrugName() {
+        return drugName;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public LocalDateTime getOutTime() {
+        return outTime;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.drugmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outcome of checking every drug's stock counter against its journal. {@code mismatches}
+ * lists at most the first 100 of {@code mismatchCount} drugs, in id order.
+ */
+@JsonPropertyOrder({"finishedAt", "durationMs", "drugsChecked", "mismatchCount", "mismatches"})
+public class StockReconciliation {
+
+    private final LocalDateTime finishedAt;
+    private final long durationMs;
+    private final long drugsChecked;
+    private final int mismatchCount;
+    private final List<StockMismatch> mismatches;
+
+    public StockReconciliation(LocalDateTime finishedAt, long durationMs, long drugsChecked, int mismatchCount,
+                               List<StockMismatch> mismatches) {
+        this.finishedAt = finishedAt;
+        this.durationMs = durationMs;
+        this.drugsChecked = drugsChecked;
+        this.mismatchCount = mismatchCount;
+        this.mismatches = mismatches;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public long getDrugsChecked() {
+        return drugsChecked;
+    }
+
+    public int getMismatchCount() {
+        return mismatchCount;
+    }
+
+    public List<StockMismatch> getMismatches() {
+        return mismatches;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.drugmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.math.BigDecimal;
+
+/**
+ * A category's stock at cost as of a date: drugs valued, closing quantity, its value at
+ * moving weighted average cost and at FIFO cost, and the cost of goods dispensed in the
+ * report period under each method.
+ */
+@JsonPropertyOrder({"categoryId", "drugs", "quantity", "averageCostValue", "fifoValue", "cogsAverage", "cogsFifo"})
+public class ValuationLine {
+
+    private final Long categoryId;
+    private final long drugs;
+    private final long quantity;
+    private final BigDecimal averageCostValue;
+    private final BigDecimal fifoValue;
+    private final BigDecimal cogsAverage;
+    private final BigDecimal cogsFifo;
+
+    public ValuationLine(Long categoryId, long drugs, long quantity, BigDecimal averageCostValue,
+                         BigDecimal fifoValue, BigDecimal cogsAverage, BigDecimal cogsFifo) {
+        this.categoryId = categoryId;
+        this.drugs = drugs;
+        this.quantity = quantity;
+        this.averageCostValue = averageCostValue;
+        this.fifoValue = fifoValue;
+        this.cogsAverage = cogsAverage;
+        this.cogsFifo = cogsFifo;
+    }
+
+    public ValuationLine withCogs(BigDecimal cogsAverage, BigDecimal cogsFifo) {
+        return new ValuationLine(categoryId, drugs, quantity, averageCostValue, fifoValue, cogsAverage, cogsFifo);
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public long getDrugs() {
+        return drugs;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getAverageCostValue() {
+        return averageCostValue;
+    }
+
+    public BigDecimal getFifoValue() {
+        return fifoValue;
+    }
+
+    public BigDecimal getCogsAverage() {
+        return cogsAverage;
+    }
+
+    public BigDecimal getCogsFifo() {
+        return cogsFifo;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.drugmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Stock at cost as of the end of {@code date}, in total and per category, with the cost
+ * of goods dispensed from {@code cogsFrom} through {@code date} ({@code null} and zero
+ * when no period was asked for).
+ */
+@JsonPropertyOrder({"date", "cogsFrom", "drugs", "quantity", "averageCostValue", "fifoValue", "cogsAverage",
+        "cogsFifo", "categories"})
+public class ValuationReport {
+
+    private final LocalDate date;
+    private final LocalDate cogsFrom;
+    private final long drugs;
+    private final long quantity;
+    private final BigDecimal averageCostValue;
+    private final BigDecimal fifoValue;
+    private final BigDecimal cogsAverage;
+    private final BigDecimal cogsFifo;
+    private final List<ValuationLine> categories;
+
+    public ValuationReport(LocalDate date, LocalDate cogsFrom, long drugs, long quantity,
+                           BigDecimal averageCostValue, BigDecimal fifoValue, BigDecimal cogsAverage,
+                           BigDecimal cogsFifo, List<ValuationLine> categories) {
+        this.date = date;
+        this.cogsFrom = cogsFrom;
+        this.drugs = drugs;
+        this.quantity = quantity;
+        this.averageCostValue = averageCostValue;
+        this.fifoValue = fifoValue;
+        this.cogsAverage = cogsAverage;
+        this.cogsFifo = cogsFifo;
+        this.categories = categories;
+    }
+
+    public static ValuationReport of(LocalDate date, LocalDate cogsFrom, List<ValuationLine> categories) {
+        long drugs = 0;
+        long quantity = 0;
+        BigDecimal averageCostValue = BigDecimal.ZERO;
+        BigDecimal fifoValue = BigDecimal.ZERO;
+        BigDecimal cogsAverage = BigDecimal.ZERO;
+        BigDecimal cogsFifo = BigDecimal.ZERO;
+        for (ValuationLine line : categories) {
+            drugs += line.getDrugs();
+            quantity += line.getQuantity();
+            averageCostValue = averageCostValue.add(line.getAverageCostValue());
+            fifoValue = fifoValue.add(line.getFifoValue());
+            cogsAverage = cogsAverage.add(line.getCogsAverage());
+            cogsFifo = cogsFifo.add(line.getCogsFifo());
+        }
+        return new ValuationReport(date, cogsFrom, drugs, quantity, averageCostValue, fifoValue, cogsAverage,
+                cogsFifo, categories);
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalDate getCogsFrom() {
+        return cogsFrom;
+    }
+
+    public long getDrugs() {
+        return drugs;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getAverageCostValue() {
+        return averageCostValue;
+    }
+
+    public BigDecimal getFifoValue() {
+        return fifoValue;
+    }
+
+    public BigDecimal getCogsAverage() {
+        return cogsAverage;
+    }
+
+    public BigDecimal getCogsFifo() {
+        return cogsFifo;
+    }
+
+    public List<ValuationLine> getCategories() {
+        return categories;
+    }
+}
@@ -1,14 +1,20 @@
 package com.example.drugmanagement.entity;
 
-import javax.persistence.*;
+import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "drug_info")
+@Table(name = "drug_info", indexes = {
+        @Index(name = "idx_drug_category_status", columnList = "category_id, status, id"),
+        @Index(name = "idx_drug_stock", columnList = "stock, id"),
+        @Index(name = "idx_drug_expire", columnList = "expire_date, id")
+})
 public class DrugInfo {
 
+    public static final int DEFAULT_REORDER_LEVEL = 10;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -29,8 +35,12 @@ public class DrugInfo {
     @Column(precision = 10, scale = 2)
     private BigDecimal price;
 
+    @Column(updatable = false)
     private Integer stock;
 
+    @Column(name = "reorder_level")
+    private Integer reorderLevel;
+
     @Column(length = 100)
     private String manufacturer;
 
@@ -101,6 +111,14 @@ public class DrugInfo {
         this.stock = stock;
     }
 
+    public Integer getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public void setReorderLevel(Integer reorderLevel) {
+        this.reorderLevel = reorderLevel;
+    }
+
     public String getManufacturer() {
         return manufacturer;
     }
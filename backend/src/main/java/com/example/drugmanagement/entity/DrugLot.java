@@ -0,0 +1,80 @@
+package com.example.drugmanagement.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "drug_lot",
+        uniqueConstraints = @UniqueConstraint(name = "uk_lot_drug_batch", columnNames = {"drug_id", "batch_no"}),
+        indexes = @Index(name = "idx_lot_expire", columnList = "expire_date, id"))
+public class DrugLot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "drug_id", nullable = false)
+    private DrugInfo drug;
+
+    @Column(name = "batch_no", nullable = false, length = 50)
+    private String batchNo;
+
+    @Column(name = "expire_date")
+    private LocalDate expireDate;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public DrugInfo getDrug() {
+        return drug;
+    }
+
+    public void setDrug(DrugInfo drug) {
+        this.drug = drug;
+    }
+
+    public String getBatchNo() {
+        return batchNo;
+    }
+
+    public void setBatchNo(String batchNo) {
+        this.batchNo = batchNo;
+    }
+
+    public LocalDate getExpireDate() {
+        return expireDate;
+    }
+
+    public void setExpireDate(LocalDate expireDate) {
+        this.expireDate = expireDate;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.drugmanagement.entity;
 
-import javax.persistence.*;
+import jakarta.persistence.*;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "stock_in")
+@Table(name = "stock_in", indexes = {
+        @Index(name = "idx_stockin_time", columnList = "in_time"),
+        @Index(name = "idx_stockin_drug_time", columnList = "drug_id, in_time")
+})
 public class StockIn {
 
     @Id
@@ -21,12 +25,18 @@ public class StockIn {
     @Column(precision = 10, scale = 2)
     private BigDecimal price;
 
+    @Column(name = "list_price", precision = 10, scale = 2)
+    private BigDecimal listPrice;
+
     @Column(length = 100)
     private String supplier;
 
     @Column(name = "batch_no", length = 50)
     private String batchNo;
 
+    @Column(name = "expire_date")
+    private LocalDate expireDate;
+
     @Column(name = "in_time", nullable = false)
     private LocalDateTime inTime;
 
@@ -69,6 +79,14 @@ public class StockIn {
         this.price = price;
     }
 
+    public BigDecimal getListPrice() {
+        return listPrice;
+    }
+
+    public void setListPrice(BigDecimal listPrice) {
+        this.listPrice = listPrice;
+    }
+
     public String getSupplier() {
         return supplier;
     }
@@ -85,6 +103,14 @@ public class StockIn {
         this.batchNo = batchNo;
     }
 
+    public LocalDate getExpireDate() {
+        return expireDate;
+    }
+
+    public void setExpireDate(LocalDate expireDate) {
+        this.expireDate = expireDate;
+    }
+
     public LocalDateTime getInTime() {
         return inTime;
     }
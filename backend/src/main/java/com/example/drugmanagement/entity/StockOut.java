@@ -1,10 +1,14 @@
 package com.example.drugmanagement.entity;
 
-import javax.persistence.*;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "stock_out")
+@Table(name = "stock_out", indexes = {
+        @Index(name = "idx_stockout_time", columnList = "out_time"),
+        @Index(name = "idx_stockout_drug_time", columnList = "drug_id, out_time")
+})
 public class StockOut {
 
     @Id
@@ -17,6 +21,9 @@ public class StockOut {
 
     private Integer quantity;
 
+    @Column(name = "list_price", precision = 10, scale = 2)
+    private BigDecimal listPrice;
+
     @Column(length = 100)
     private String reason;
 
@@ -54,6 +61,14 @@ public class StockOut {
         this.quantity = quantity;
     }
 
+    public BigDecimal getListPrice() {
+        return listPrice;
+    }
+
+    public void setListPrice(BigDecimal listPrice) {
+        this.listPrice = listPrice;
+    }
+
     public String getReason() {
         return reason;
     }
@@ -0,0 +1,55 @@
+package com.example.drugmanagement.entity;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "stock_out_lot")
+public class StockOutLot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "stock_out_id", nullable = false)
+    private StockOut stockOut;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "lot_id", nullable = false)
+    private DrugLot lot;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public StockOut getStockOut() {
+        return stockOut;
+    }
+
+    public void setStockOut(StockOut stockOut) {
+        this.stockOut = stockOut;
+    }
+
+    public DrugLot getLot() {
+        return lot;
+    }
+
+    public void setLot(DrugLot lot) {
+        this.lot = lot;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
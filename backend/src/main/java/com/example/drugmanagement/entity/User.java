@@ -1,6 +1,6 @@
 package com.example.drugmanagement.entity;
 
-import javax.persistence.*;
+import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
@@ -0,0 +1,8 @@
+package com.example.drugmanagement.event;
+
+/**
+ * Published after rows were written in bulk without the per-row events, e.g. by the
+ * data seeder; in-memory indexes and caches rebuild from the tables.
+ */
+public class DataReloadedEvent {
+}
@@ -0,0 +1,34 @@
+package com.example.drugmanagement.event;
+
+import com.example.drugmanagement.entity.DrugInfo;
+
+public class DrugChangedEvent {
+
+    private final Long drugId;
+    private final DrugInfo drug;
+
+    public DrugChangedEvent(Long drugId, DrugInfo drug) {
+        this.drugId = drugId;
+        this.drug = drug;
+    }
+
+    public static DrugChangedEvent saved(DrugInfo drug) {
+        return new DrugChangedEvent(drug.getId(), drug);
+    }
+
+    public static DrugChangedEvent deleted(Long drugId) {
+        return new DrugChangedEvent(drugId, null);
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public DrugInfo getDrug() {
+        return drug;
+    }
+
+    public boolean isDeleted() {
+        return drug == null;
+    }
+}
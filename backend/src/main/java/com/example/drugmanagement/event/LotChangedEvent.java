@@ -0,0 +1,66 @@
+package com.example.drugmanagement.event;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Lot quantities of one drug after a stock write. {@code lots} holds the new state of
+ * each touched lot; a {@code null} list means the lots of the drug must be re-read.
+ */
+public class LotChangedEvent {
+
+    private final Long drugId;
+    private final List<LotState> lots;
+
+    public LotChangedEvent(Long drugId, List<LotState> lots) {
+        this.drugId = drugId;
+        this.lots = lots;
+    }
+
+    public static LotChangedEvent reload(Long drugId) {
+        return new LotChangedEvent(drugId, null);
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public List<LotState> getLots() {
+        return lots;
+    }
+
+    public boolean isReload() {
+        return lots == null;
+    }
+
+    public static class LotState {
+
+        private final long lotId;
+        private final String batchNo;
+        private final LocalDate expireDate;
+        private final int quantity;
+
+        public LotState(long lotId, String batchNo, LocalDate expireDate, int quantity) {
+            this.lotId = lotId;
+            this.batchNo = batchNo;
+            this.expireDate = expireDate;
+            this.quantity = quantity;
+        }
+
+        public long getLotId() {
+            return lotId;
+        }
+
+        public String getBatchNo() {
+            return batchNo;
+        }
+
+        public LocalDate getExpireDate() {
+            return expireDate;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.drugmanagement.event;
+
+/**
+ * Published after the stock rollups were recomputed from the ledger; consumers of the
+ * rollups reload from them.
+ */
+public class RollupsRebuiltEvent {
+}
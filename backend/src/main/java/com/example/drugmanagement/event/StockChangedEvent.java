@@ -0,0 +1,32 @@
+package com.example.drugmanagement.event;
+
+/**
+ * A committed change of a drug's stock. {@code seq} is the change's
+ * {@code stock_journal} sequence number, which grows with commit order per drug, so
+ * an in-memory view loaded from the database can tell whether it already holds the
+ * change.
+ */
+public class StockChangedEvent {
+
+    private final Long drugId;
+    private final int delta;
+    private final long seq;
+
+    public StockChangedEvent(Long drugId, int delta, long seq) {
+        this.drugId = drugId;
+        this.delta = delta;
+        this.seq = seq;
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.drugmanagement.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Secondary indexes for the list, report and alert queries, including the
+ * {@code (drug_id, time)} indexes behind per-drug stock history. Databases created
+ * before migrations, by the old schema script or by Hibernate, may already hold some of
+ * them, so each index is only created when no index of that name exists on the table.
+ */
+@Component
+public class V2__PerformanceIndexes extends BaseJavaMigration {
+
+    private static final String[][] INDEXES = {
+            {"drug_info", "idx_drug_category_status", "category_id, status, id"},
+            {"drug_info", "idx_drug_stock", "stock, id"},
+            {"drug_info", "idx_drug_expire", "expire_date, id"},
+            {"drug_lot", "idx_lot_expire", "expire_date, id"},
+            {"stock_in", "idx_stockin_time", "in_time"},
+            {"stock_in", "idx_stockin_drug_time", "drug_id, in_time"},
+            {"stock_out", "idx_stockout_time", "out_time"},
+            {"stock_out", "idx_stockout_drug_time", "drug_id, out_time"}
+    };
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            for (String[] index : INDEXES) {
+                if (!indexNames(connection, index[0]).contains(index[1])) {
+                    statement.execute("create index " + index[1] + " on " + index[0] + " (" + index[2] + ")");
+                }
+            }
+        }
+    }
+
+    private static Set<String> indexNames(Connection connection, String table) throws SQLException {
+        Set<String> names = new HashSet<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), table,
+                false, false)) {
+            while (rs.next()) {
+                String name = rs.getString("INDEX_NAME");
+                if (name != null) {
+                    names.add(name.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return names;
+    }
+}
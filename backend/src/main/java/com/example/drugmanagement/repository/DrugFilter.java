@@ -0,0 +1,97 @@
+package com.example.drugmanagement.repository;
+
+import java.time.LocalDate;
+
+public class DrugFilter {
+
+    private Long after;
+    private int limit;
+    private String keyword;
+    private Long categoryId;
+    private Integer status;
+    private Integer minStock;
+    private Integer maxStock;
+    private boolean lowStock;
+    private LocalDate expireFrom;
+    private LocalDate expireTo;
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public void setAfter(Long after) {
+        this.after = after;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public void setKeyword(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public Integer getMinStock() {
+        return minStock;
+    }
+
+    public void setMinStock(Integer minStock) {
+        this.minStock = minStock;
+    }
+
+    public Integer getMaxStock() {
+        return maxStock;
+    }
+
+    public void setMaxStock(Integer maxStock) {
+        this.maxStock = maxStock;
+    }
+
+    public boolean isLowStock() {
+        return lowStock;
+    }
+
+    public void setLowStock(boolean lowStock) {
+        this.lowStock = lowStock;
+    }
+
+    public LocalDate getExpireFrom() {
+        return expireFrom;
+    }
+
+    public void setExpireFrom(LocalDate expireFrom) {
+        this.expireFrom = expireFrom;
+    }
+
+    public LocalDate getExpireTo() {
+        return expireTo;
+    }
+
+    public void setExpireTo(LocalDate expireTo) {
+        this.expireTo = expireTo;
+    }
+}
@@ -1,11 +1,43 @@
 package com.example.drugmanagement.repository;
 
+import com.example.drugmanagement.dto.DrugView;
 import com.example.drugmanagement.entity.DrugInfo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
-public interface DrugInfoRepository extends JpaRepository<DrugInfo, Long> {
+public interface DrugInfoRepository extends JpaRepository<DrugInfo, Long>, DrugInfoRepositoryCustom {
 
     List<DrugInfo> findByNameContaining(String name);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update DrugInfo d set d.stock = coalesce(d.stock, 0) + :quantity where d.id = :id")
+    int increaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update DrugInfo d set d.stock = d.stock - :quantity where d.id = :id and d.stock >= :quantity")
+    int decreaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Id and price of each drug that exists; prices can be {@code null}.
+     */
+    @Query("select d.id, d.price from DrugInfo d where d.id in :ids")
+    List<Object[]> findPrices(@Param("ids") Collection<Long> ids);
+
+    @Query("select d.stock from DrugInfo d where d.id = :id")
+    Integer findStockById(@Param("id") Long id);
+
+    @Query("select d.price from DrugInfo d where d.id = :id")
+    BigDecimal findPriceById(@Param("id") Long id);
+
+    @Query("select new com.example.drugmanagement.dto.DrugView(d.id, d.name, c.id, c.name, d.specification, d.unit, "
+            + "d.price, d.stock, d.reorderLevel, d.manufacturer, d.productionDate, d.expireDate, d.status, "
+            + "d.createTime) "
+            + "from DrugInfo d left join d.category c where d.id = :id")
+    DrugView findViewById(@Param("id") Long id);
 }
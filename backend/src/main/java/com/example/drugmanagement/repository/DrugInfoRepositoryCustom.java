@@ -0,0 +1,10 @@
+package com.example.drugmanagement.repository;
+
+import com.example.drugmanagement.dto.DrugView;
+
+import java.util.List;
+
+public interface DrugInfoRepositoryCustom {
+
+    List<DrugView> findPage(DrugFilter filter);
+}
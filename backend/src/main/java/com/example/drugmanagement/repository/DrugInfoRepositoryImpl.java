@@ -0,0 +1,100 @@
+package com.example.drugmanagement.repository;
+
+import com.example.drugmanagement.dto.DrugView;
+import com.example.drugmanagement.entity.DrugCategory;
+import com.example.drugmanagement.entity.DrugInfo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DrugInfoRepositoryImpl implements DrugInfoRepositoryCustom {
+
+    // Not a backslash: MySQL would read the rendered escape '\' literal as an escaped quote
+    private static final char LIKE_ESCAPE = '!';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<DrugView> findPage(DrugFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DrugView> query = cb.createQuery(DrugView.class);
+        Root<DrugInfo> root = query.from(DrugInfo.class);
+        Join<DrugInfo, DrugCategory> category = root.join("category", JoinType.LEFT);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getAfter() != null) {
+            predicates.add(cb.greaterThan(root.<Long>get("id"), filter.getAfter()));
+        }
+        if (filter.getKeyword() != null) {
+            predicates.add(cb.like(root.<String>get("name"),
+                    "%" + escapeLike(filter.getKeyword()) + "%", LIKE_ESCAPE));
+        }
+        if (filter.getCategoryId() != null) {
+            predicates.add(cb.equal(category.get("id"), filter.getCategoryId()));
+        }
+        if (filter.getStatus() != null) {
+            predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+        }
+        if (filter.getMinStock() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.<Integer>get("stock"), filter.getMinStock()));
+        }
+        if (filter.getMaxStock() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.<Integer>get("stock"), filter.getMaxStock()));
+        }
+        if (filter.isLowStock()) {
+            predicates.add(cb.lessThan(root.<Integer>get("stock"),
+                    cb.coalesce(root.<Integer>get("reorderLevel"), DrugInfo.DEFAULT_REORDER_LEVEL)));
+        }
+        if (filter.getExpireFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("expireDate"), filter.getExpireFrom()));
+        }
+        if (filter.getExpireTo() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("expireDate"), filter.getExpireTo()));
+        }
+
+        query.select(cb.construct(DrugView.class,
+                        root.get("id"),
+                        root.get("name"),
+                        category.get("id"),
+                        category.get("name"),
+                        root.get("specification"),
+                        root.get("unit"),
+                        root.get("price"),
+                        root.get("stock"),
+                        root.get("reorderLevel"),
+                        root.get("manufacturer"),
+                        root.get("productionDate"),
+                        root.get("expireDate"),
+                        root.get("status"),
+                        root.get("createTime")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(filter.getLimit())
+                .getResultList();
+    }
+
+    /**
+     * Makes {@code %}, {@code _} and the escape character itself match literally.
+     */
+    static String escapeLike(String keyword) {
+        StringBuilder escaped = new StringBuilder(keyword.length() + 8);
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.drugmanagement.repository;
+
+import com.example.drugmanagement.dto.LotView;
+import com.example.drugmanagement.entity.DrugLot;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DrugLotRepository extends JpaRepository<DrugLot, Long> {
+
+    @Query("select new com.example.drugmanagement.dto.LotView("
+            + "l.id, d.id, d.name, l.batchNo, l.expireDate, l.quantity) "
+            + "from DrugLot l join l.drug d where d.id = :drugId and l.quantity > 0 "
+            + "order by case when l.expireDate is null then 1 else 0 end, l.expireDate, l.id")
+    List<LotView> findOpenViewsByDrug(@Param("drugId") Long drugId);
+
+    @Query("select new com.example.drugmanagement.dto.LotView("
+            + "l.id, d.id, d.name, l.batchNo, l.expireDate, l.quantity) "
+            + "from DrugLot l join l.drug d where l.expireDate < :before and l.quantity > 0 "
+            + "order by l.expireDate, l.id")
+    List<LotView> findOpenViewsExpiringBefore(@Param("before") LocalDate before, Pageable pageable);
+}
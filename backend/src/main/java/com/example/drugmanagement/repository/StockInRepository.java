@@ -1,7 +1,30 @@
 package com.example.drugmanagement.repository;
 
+import com.example.drugmanagement.dto.StockInView;
 import com.example.drugmanagement.entity.StockIn;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface StockInRepository extends JpaRepository<StockIn, Long> {
+
+    @Query("select new com.example.drugmanagement.dto.StockInView("
+            + "s.id, d.id, d.name, s.quantity, s.price, s.supplier, s.batchNo, s.expireDate, s.inTime, "
+            + "o.username, s.remark) "
+            + "from StockIn s join s.drug d left join s.operator o order by s.id")
+    List<StockInView> findAllViews();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select s from StockIn s join fetch s.drug left join fetch s.operator "
+            + "where s.inTime >= :from and s.inTime < :to order by s.inTime, s.id")
+    Stream<StockIn> streamByInTimeRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -1,7 +1,29 @@
 package com.example.drugmanagement.repository;
 
+import com.example.drugmanagement.dto.StockOutView;
 import com.example.drugmanagement.entity.StockOut;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface StockOutRepository extends JpaRepository<StockOut, Long> {
+
+    @Query("select new com.example.drugmanagement.dto.StockOutView("
+            + "s.id, d.id, d.name, s.quantity, s.reason, s.outTime, o.username, s.remark) "
+            + "from StockOut s join s.drug d left join s.operator o order by s.id")
+    List<StockOutView> findAllViews();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select s from StockOut s join fetch s.drug left join fetch s.operator "
+            + "where s.outTime >= :from and s.outTime < :to order by s.outTime, s.id")
+    Stream<StockOut> streamByOutTimeRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
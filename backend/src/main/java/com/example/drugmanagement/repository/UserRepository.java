@@ -3,7 +3,12 @@ package com.example.drugmanagement.repository;
 import com.example.drugmanagement.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface UserRepository extends JpaRepository<User, Long> {
 
     User findByUsername(String username);
+
+    List<User> findByUsernameIn(Collection<String> usernames);
 }
@@ -0,0 +1,364 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.dto.AlertResponse;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.event.DataReloadedEvent;
+import com.example.drugmanagement.event.DrugChangedEvent;
+import com.example.drugmanagement.event.LotChangedEvent;
+import com.example.drugmanagement.event.LotChangedEvent.LotState;
+import com.example.drugmanagement.event.StockChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Low-stock and expiry alerts kept in memory. Drugs below their reorder level are held
+ * in a set; open lots, and drugs whose stock is not tracked in lots, are held in a tree
+ * ordered by expiry date, so listing the alerts of the next N days only walks the head
+ * of the tree. Both are loaded once at startup and then maintained from the committed
+ * stock, lot and drug events; a daily tick moves the expiry window forward. Alerts that
+ * become active are pushed to the SSE feed. A reload keeps each drug's journal sequence
+ * number next to its stock and skips the stock events that number already covers.
+ */
+@Service
+public class AlertService {
+
+    private static final Comparator<ExpiryEntry> EXPIRY_ORDER = Comparator
+            .comparing((ExpiryEntry e) -> e.expireDate)
+            .thenComparingLong(e -> e.drugId)
+            .thenComparingLong(e -> e.lotId != null ? e.lotId : 0L);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int expiryWindowDays;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final SseBroadcaster feed = new SseBroadcaster("alert");
+
+    private final Map<Long, DrugState> drugs = new HashMap<>();
+    private final Set<Long> lowStock = new HashSet<>();
+    private final TreeSet<ExpiryEntry> expiries = new TreeSet<>(EXPIRY_ORDER);
+    private LocalDate today = LocalDate.now();
+
+    public AlertService(JdbcTemplate jdbcTemplate,
+                        @Value("${alerts.expiry-window-days:30}") int expiryWindowDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.expiryWindowDays = expiryWindowDays;
+    }
+
+    public int getExpiryWindowDays() {
+        return expiryWindowDays;
+    }
+
+    public SseEmitter subscribe() {
+        return feed.subscribe();
+    }
+
+    /**
+     * Active alerts: expired and expiring stock first (by expiry date, up to
+     * {@code days} ahead), then drugs below their reorder level (lowest stock first).
+     */
+    public List<AlertResponse> alerts(String type, int days, int limit) {
+        lock.lock();
+        try {
+            LocalDate now = LocalDate.now();
+            LocalDate horizon = now.plusDays(days);
+            List<AlertResponse> result = new ArrayList<>();
+            if (type == null || !AlertResponse.LOW_STOCK.equals(type)) {
+                for (ExpiryEntry entry : expiries) {
+                    if (result.size() >= limit || entry.expireDate.isAfter(horizon)) {
+                        break;
+                    }
+                    AlertResponse alert = expiryAlert(entry, now);
+                    if (type == null || type.equals(alert.getType())) {
+                        result.add(alert);
+                    }
+                }
+            }
+            if (type == null || AlertResponse.LOW_STOCK.equals(type)) {
+                List<DrugState> low = new ArrayList<>(lowStock.size());
+                for (Long drugId : lowStock) {
+                    low.add(drugs.get(drugId));
+                }
+                low.sort(Comparator.comparingInt((DrugState d) -> d.stock).thenComparingLong(d -> d.drugId));
+                for (DrugState drug : low) {
+                    if (result.size() >= limit) {
+                        break;
+                    }
+                    result.add(lowStockAlert(drug));
+                }
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @EventListener({ApplicationReadyEvent.class, DataReloadedEvent.class})
+    public void rebuild() {
+        lock.lock();
+        try {
+            drugs.clear();
+            lowStock.clear();
+            expiries.clear();
+            today = LocalDate.now();
+            jdbcTemplate.query("select id, name, stock, reorder_level, expire_date, "
+                    + "(select max(seq) from stock_journal j where j.drug_id = d.id) from drug_info d", rs -> {
+                DrugState drug = new DrugState(rs.getLong(1));
+                drug.name = rs.getString(2);
+                drug.stock = rs.getInt(3);
+                drug.reorderLevel = reorderLevel((Integer) rs.getObject(4));
+                drug.expireDate = toLocalDate(rs.getDate(5));
+                drug.loadedSeq = rs.getLong(6);
+                drugs.put(drug.drugId, drug);
+            });
+            jdbcTemplate.query("select id, drug_id, batch_no, expire_date, quantity from drug_lot where quantity > 0",
+                    rs -> {
+                        DrugState drug = drugs.get(rs.getLong(2));
+                        if (drug != null) {
+                            putLot(drug, new LotState(rs.getLong(1), rs.getString(3), toLocalDate(rs.getDate(4)),
+                                    rs.getInt(5)), false);
+                        }
+                    });
+            for (DrugState drug : drugs.values()) {
+                refresh(drug, false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        lock.lock();
+        try {
+            DrugState drug = drugs.get(event.getDrugId());
+            if (drug == null || event.getSeq() <= drug.loadedSeq) {
+                return;
+            }
+            drug.stock += event.getDelta();
+            refresh(drug, true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLotChanged(LotChangedEvent event) {
+        lock.lock();
+        try {
+            DrugState drug = drugs.get(event.getDrugId());
+            if (drug == null) {
+                return;
+            }
+            if (event.isReload()) {
+                for (ExpiryEntry entry : drug.lots.values()) {
+                    unindex(entry);
+                }
+                drug.lots.clear();
+                jdbcTemplate.query("select id, batch_no, expire_date, quantity from drug_lot "
+                        + "where drug_id = ? and quantity > 0", rs -> {
+                            putLot(drug, new LotState(rs.getLong(1), rs.getString(2), toLocalDate(rs.getDate(3)),
+                                    rs.getInt(4)), false);
+                        }, drug.drugId);
+            } else {
+                for (LotState lot : event.getLots()) {
+                    putLot(drug, lot, true);
+                }
+            }
+            refresh(drug, true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDrugChanged(DrugChangedEvent event) {
+        lock.lock();
+        try {
+            DrugState drug = drugs.get(event.getDrugId());
+            if (event.isDeleted()) {
+                if (drug != null) {
+                    drugs.remove(drug.drugId);
+                    lowStock.remove(drug.drugId);
+                    for (ExpiryEntry entry : drug.lots.values()) {
+                        unindex(entry);
+                    }
+                    unindex(drug.untracked);
+                }
+                return;
+            }
+            DrugInfo info = event.getDrug();
+            if (drug == null) {
+                drug = new DrugState(info.getId());
+                drugs.put(drug.drugId, drug);
+            }
+            drug.name = info.getName();
+            drug.stock = info.getStock() != null ? info.getStock() : 0;
+            drug.reorderLevel = reorderLevel(info.getReorderLevel());
+            drug.expireDate = info.getExpireDate();
+            refresh(drug, true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the expiry window to the new day and pushes the stock that expired today or
+     * just entered the window.
+     */
+    @Scheduled(cron = "${alerts.daily-cron:0 0 0 * * *}")
+    public void tick() {
+        lock.lock();
+        try {
+            LocalDate now = LocalDate.now();
+            if (!now.isAfter(today)) {
+                return;
+            }
+            LocalDate oldHorizon = today.plusDays(expiryWindowDays);
+            LocalDate newHorizon = now.plusDays(expiryWindowDays);
+            for (ExpiryEntry entry : expiries) {
+                if (entry.expireDate.isAfter(newHorizon)) {
+                    break;
+                }
+                boolean expiredToday = !entry.expireDate.isBefore(today) && entry.expireDate.isBefore(now);
+                if (expiredToday || entry.expireDate.isAfter(oldHorizon)) {
+                    feed.broadcast(expiryAlert(entry, now));
+                }
+            }
+            today = now;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        feed.close();
+    }
+
+    private void putLot(DrugState drug, LotState lot, boolean notify) {
+        ExpiryEntry previous = drug.lots.remove(lot.getLotId());
+        unindex(previous);
+        if (lot.getQuantity() <= 0) {
+            return;
+        }
+        ExpiryEntry entry = new ExpiryEntry(drug.drugId, lot.getLotId(), lot.getBatchNo(), lot.getExpireDate(),
+                lot.getQuantity());
+        drug.lots.put(lot.getLotId(), entry);
+        if (entry.expireDate != null) {
+            expiries.add(entry);
+            boolean moved = previous == null || !entry.expireDate.equals(previous.expireDate);
+            if (notify && moved && inWindow(entry.expireDate)) {
+                feed.broadcast(expiryAlert(entry, LocalDate.now()));
+            }
+        }
+    }
+
+    /**
+     * Re-evaluates the low-stock flag and the expiry entry for stock not held in lots.
+     * Untracked stock only gets its own entry while the drug has no open lots.
+     */
+    private void refresh(DrugState drug, boolean notify) {
+        boolean low = drug.stock < drug.reorderLevel;
+        if (low && lowStock.add(drug.drugId) && notify) {
+            feed.broadcast(lowStockAlert(drug));
+        } else if (!low) {
+            lowStock.remove(drug.drugId);
+        }
+
+        ExpiryEntry previous = drug.untracked;
+        ExpiryEntry current = null;
+        if (drug.lots.isEmpty() && drug.stock > 0 && drug.expireDate != null) {
+            current = new ExpiryEntry(drug.drugId, null, null, drug.expireDate, drug.stock);
+        }
+        unindex(previous);
+        drug.untracked = current;
+        if (current != null) {
+            expiries.add(current);
+            boolean moved = previous == null || !current.expireDate.equals(previous.expireDate);
+            if (notify && moved && inWindow(current.expireDate)) {
+                feed.broadcast(expiryAlert(current, LocalDate.now()));
+            }
+        }
+    }
+
+    private void unindex(ExpiryEntry entry) {
+        if (entry != null && entry.expireDate != null) {
+            expiries.remove(entry);
+        }
+    }
+
+    private boolean inWindow(LocalDate expireDate) {
+        return !expireDate.isAfter(LocalDate.now().plusDays(expiryWindowDays));
+    }
+
+    private AlertResponse expiryAlert(ExpiryEntry entry, LocalDate now) {
+        long daysLeft = ChronoUnit.DAYS.between(now, entry.expireDate);
+        DrugState drug = drugs.get(entry.drugId);
+        return new AlertResponse(daysLeft < 0 ? AlertResponse.EXPIRED : AlertResponse.EXPIRING, entry.drugId,
+                drug != null ? drug.name : null, entry.lotId, entry.batchNo, entry.quantity, null,
+                entry.expireDate, daysLeft);
+    }
+
+    private static AlertResponse lowStockAlert(DrugState drug) {
+        return new AlertResponse(AlertResponse.LOW_STOCK, drug.drugId, drug.name, null, null, drug.stock,
+                drug.reorderLevel, null, null);
+    }
+
+    private static int reorderLevel(Integer configured) {
+        return configured != null ? configured : DrugInfo.DEFAULT_REORDER_LEVEL;
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+
+    private static class DrugState {
+        private final long drugId;
+        private String name;
+        private int stock;
+        private int reorderLevel;
+        private LocalDate expireDate;
+        private long loadedSeq;
+        private final Map<Long, ExpiryEntry> lots = new HashMap<>();
+        private ExpiryEntry untracked;
+
+        DrugState(long drugId) {
+            this.drugId = drugId;
+        }
+    }
+
+    private static class ExpiryEntry {
+        private final long drugId;
+        private final Long lotId;
+        private final String batchNo;
+        private final LocalDate expireDate;
+        private final int quantity;
+
+        ExpiryEntry(long drugId, Long lotId, String batchNo, LocalDate expireDate, int quantity) {
+            this.drugId = drugId;
+            this.lotId = lotId;
+            this.batchNo = batchNo;
+            this.expireDate = expireDate;
+            this.quantity = quantity;
+        }
+    }
+}
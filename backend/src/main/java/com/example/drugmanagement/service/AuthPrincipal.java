@@ -0,0 +1,65 @@
+package com.example.drugmanagement.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * The user a verified token was issued to. The auth filter stores it as a request
+ * attribute, so handlers read the caller without touching the database. A link token
+ * also names the one path it is valid for.
+ */
+public class AuthPrincipal {
+
+    public static final String REQUEST_ATTRIBUTE = AuthPrincipal.class.getName();
+
+    private final Long userId;
+    private final String username;
+    private final String role;
+    private final String tokenId;
+    private final long expiresAt;
+    private final String linkPath;
+
+    public AuthPrincipal(Long userId, String username, String role, String tokenId, long expiresAt) {
+        this(userId, username, role, tokenId, expiresAt, null);
+    }
+
+    public AuthPrincipal(Long userId, String username, String role, String tokenId, long expiresAt,
+                         String linkPath) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.tokenId = tokenId;
+        this.expiresAt = expiresAt;
+        this.linkPath = linkPath;
+    }
+
+    public static AuthPrincipal from(HttpServletRequest request) {
+        return (AuthPrincipal) request.getAttribute(REQUEST_ATTRIBUTE);
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * The path a link token is limited to; {@code null} for a session token.
+     */
+    public String getLinkPath() {
+        return linkPath;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.entity.User;
+import com.example.drugmanagement.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Password checks for login and hashing for registration. Passwords are stored as
+ * BCrypt hashes with the configured cost; an account still holding a plain-text
+ * password, or a hash of a lower cost, is re-hashed on its next successful login.
+ * Logins read the user row itself, not {@link ReferenceDataCache}: a disabled account or
+ * changed password takes effect at once on every node, and the re-hash edits a row of
+ * its own rather than the shared cached entity.
+ */
+@Service
+public class AuthService {
+
+    private final UserRepository userRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final BCryptPasswordEncoder passwordEncoder;
+
+    public AuthService(UserRepository userRepository,
+                       ReferenceDataCache referenceDataCache,
+                       @Value("${auth.password.bcrypt-cost:10}") int bcryptCost) {
+        this.userRepository = userRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.passwordEncoder = new BCryptPasswordEncoder(bcryptCost);
+    }
+
+    public String hashPassword(String rawPassword) {
+        return passwordEncoder.encode(rawPassword);
+    }
+
+    /**
+     * The enabled user with this username and password, or {@code null}.
+     */
+    public User authenticate(String username, String rawPassword) {
+        User user = userRepository.findByUsername(username);
+        if (user == null || user.getStatus() == null || user.getStatus() != 1 || rawPassword == null) {
+            return null;
+        }
+        String stored = user.getPassword();
+        boolean hashed = isHashed(stored);
+        boolean matches = hashed
+                ? passwordEncoder.matches(rawPassword, stored)
+                : stored != null && MessageDigest.isEqual(stored.getBytes(StandardCharsets.UTF_8),
+                rawPassword.getBytes(StandardCharsets.UTF_8));
+        if (!matches) {
+            return null;
+        }
+        if (!hashed || passwordEncoder.upgradeEncoding(stored)) {
+            user.setPassword(hashPassword(rawPassword));
+            userRepository.save(user);
+            referenceDataCache.evictUser(user.getUsername());
+        }
+        return user;
+    }
+
+    private static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith("$2") && stored.length() == 60;
+    }
+}
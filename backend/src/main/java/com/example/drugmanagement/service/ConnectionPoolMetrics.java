@@ -0,0 +1,128 @@
+package com.example.drugmanagement.service;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hikari metrics tracker that keeps per-pool counters in memory: how long callers waited
+ * for a connection, how long connections were held, and how often a wait timed out,
+ * next to the pool's live active / idle / pending counts. The same counters are
+ * published to Micrometer under Hikari's usual {@code hikaricp.connections.*} names,
+ * which Actuator would otherwise register itself.
+ */
+public class ConnectionPoolMetrics implements MetricsTrackerFactory, MeterBinder {
+
+    private final Map<String, Tracker> pools = new ConcurrentHashMap<>();
+    private MeterRegistry registry;
+
+    @Override
+    public synchronized IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Tracker tracker = new Tracker(poolStats);
+        pools.put(poolName, tracker);
+        if (registry != null) {
+            register(registry, poolName, tracker);
+        }
+        return tracker;
+    }
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        for (Map.Entry<String, Tracker> pool : pools.entrySet()) {
+            register(registry, pool.getKey(), pool.getValue());
+        }
+    }
+
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Tracker> pool : pools.entrySet()) {
+            Tracker tracker = pool.getValue();
+            PoolStats poolStats = tracker.poolStats;
+            long acquired = tracker.acquireCount.sum();
+            long released = tracker.usageCount.sum();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("active", poolStats.getActiveConnections());
+            entry.put("idle", poolStats.getIdleConnections());
+            entry.put("total", poolStats.getTotalConnections());
+            entry.put("max", poolStats.getMaxConnections());
+            entry.put("pending", poolStats.getPendingThreads());
+            entry.put("acquireCount", acquired);
+            entry.put("acquireWaitAvgMs", acquired > 0 ? toMillis(tracker.acquireNanos.sum()) / acquired : 0.0);
+            entry.put("acquireWaitMaxMs", toMillis(tracker.maxAcquireNanos.get()));
+            entry.put("timeoutCount", tracker.timeoutCount.sum());
+            entry.put("usageAvgMs", released > 0 ? (double) tracker.usageMillis.sum() / released : 0.0);
+            result.put(pool.getKey(), entry);
+        }
+        return result;
+    }
+
+    private static void register(MeterRegistry registry, String poolName, Tracker tracker) {
+        PoolStats poolStats = tracker.poolStats;
+        Gauge.builder("hikaricp.connections.active", poolStats, PoolStats::getActiveConnections)
+                .tag("pool", poolName).register(registry);
+        Gauge.builder("hikaricp.connections.idle", poolStats, PoolStats::getIdleConnections)
+                .tag("pool", poolName).register(registry);
+        Gauge.builder("hikaricp.connections.pending", poolStats, PoolStats::getPendingThreads)
+                .tag("pool", poolName).register(registry);
+        Gauge.builder("hikaricp.connections.max", poolStats, PoolStats::getMaxConnections)
+                .tag("pool", poolName).register(registry);
+        FunctionTimer.builder("hikaricp.connections.acquire", tracker,
+                t -> t.acquireCount.sum(), t -> t.acquireNanos.sum(), TimeUnit.NANOSECONDS)
+                .tag("pool", poolName).register(registry);
+        FunctionTimer.builder("hikaricp.connections.usage", tracker,
+                t -> t.usageCount.sum(), t -> t.usageMillis.sum(), TimeUnit.MILLISECONDS)
+                .tag("pool", poolName).register(registry);
+        FunctionCounter.builder("hikaricp.connections.timeout", tracker, t -> t.timeoutCount.sum())
+                .tag("pool", poolName).register(registry);
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static final class Tracker implements IMetricsTracker {
+
+        private final PoolStats poolStats;
+        private final LongAdder acquireCount = new LongAdder();
+        private final LongAdder acquireNanos = new LongAdder();
+        private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder timeoutCount = new LongAdder();
+        private final LongAdder usageCount = new LongAdder();
+        private final LongAdder usageMillis = new LongAdder();
+
+        private Tracker(PoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireCount.increment();
+            acquireNanos.add(elapsedAcquiredNanos);
+            maxAcquireNanos.accumulate(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageCount.increment();
+            usageMillis.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeoutCount.increment();
+        }
+    }
+}
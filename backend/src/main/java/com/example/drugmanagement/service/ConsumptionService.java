@@ -0,0 +1,109 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.dto.ConsumptionBucket;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consumption over a date range in day, week or month buckets, read from the daily
+ * rollups instead of the ledger. A drug's range is a primary key range of
+ * {@code stock_rollup}; category and overall totals come from
+ * {@code category_stock_rollup} for the rolled-up days and from the per-drug rows of
+ * the days after that (normally just today), so apart from those days a query reads at
+ * most one row per day and category.
+ */
+@Service
+public class ConsumptionService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StockRollupService stockRollupService;
+
+    public ConsumptionService(JdbcTemplate jdbcTemplate, StockRollupService stockRollupService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stockRollupService = stockRollupService;
+    }
+
+    /**
+     * Every bucket from the one containing {@code from} to the one containing {@code to},
+     * including empty ones, in date order. {@code unit} is {@link ChronoUnit#DAYS},
+     * {@link ChronoUnit#WEEKS} or {@link ChronoUnit#MONTHS}; at most one of
+     * {@code drugId} and {@code categoryId} is set.
+     */
+    @Transactional(readOnly = true)
+    public List<ConsumptionBucket> consumption(LocalDate from, LocalDate to, ChronoUnit unit,
+                                               Long drugId, Long categoryId) {
+        Map<LocalDate, ConsumptionBucket> buckets = new TreeMap<>();
+        for (LocalDate bucket = bucketOf(from, unit); !bucket.isAfter(to); bucket = bucket.plus(1, unit)) {
+            buckets.put(bucket, ConsumptionBucket.empty(bucket));
+        }
+        RowCallbackHandler add = rs -> {
+            LocalDate bucket = bucketOf(rs.getDate(1).toLocalDate(), unit);
+            buckets.put(bucket, buckets.get(bucket).plus(rs.getLong(2), value(rs.getBigDecimal(3)), rs.getLong(4),
+                    value(rs.getBigDecimal(5))));
+        };
+
+        if (drugId != null) {
+            jdbcTemplate.query("select bucket_date, qty_in, in_value, qty_out, out_value from stock_rollup "
+                    + "where drug_id = ? and bucket_date between ? and ?", add, drugId, Date.valueOf(from),
+                    Date.valueOf(to));
+            return new ArrayList<>(buckets.values());
+        }
+
+        LocalDate rolledThrough = stockRollupService.getRolledThrough();
+        LocalDate liveFrom = from;
+        if (rolledThrough != null && !rolledThrough.isBefore(from)) {
+            Date rolledTo = Date.valueOf(rolledThrough.isBefore(to) ? rolledThrough : to);
+            if (categoryId != null) {
+                jdbcTemplate.query("select bucket_date, qty_in, in_value, qty_out, out_value "
+                        + "from category_stock_rollup where category_id = ? and bucket_date between ? and ?",
+                        add, categoryId, Date.valueOf(from), rolledTo);
+            } else {
+                jdbcTemplate.query("select bucket_date, sum(qty_in), sum(in_value), sum(qty_out), sum(out_value) "
+                        + "from category_stock_rollup where bucket_date between ? and ? group by bucket_date",
+                        add, Date.valueOf(from), rolledTo);
+            }
+            liveFrom = rolledThrough.plusDays(1);
+        }
+        if (!liveFrom.isAfter(to)) {
+            if (categoryId != null) {
+                jdbcTemplate.query("select r.bucket_date, sum(r.qty_in), sum(r.in_value), sum(r.qty_out), "
+                        + "sum(r.out_value) from stock_rollup r join drug_info d on d.id = r.drug_id "
+                        + "where d.category_id = ? and r.bucket_date between ? and ? group by r.bucket_date",
+                        add, categoryId, Date.valueOf(liveFrom), Date.valueOf(to));
+            } else {
+                jdbcTemplate.query("select bucket_date, sum(qty_in), sum(in_value), sum(qty_out), sum(out_value) "
+                        + "from stock_rollup where bucket_date between ? and ? group by bucket_date",
+                        add, Date.valueOf(liveFrom), Date.valueOf(to));
+            }
+        }
+        return new ArrayList<>(buckets.values());
+    }
+
+    private static LocalDate bucketOf(LocalDate day, ChronoUnit unit) {
+        switch (unit) {
+            case WEEKS:
+                return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTHS:
+                return day.withDayOfMonth(1);
+            default:
+                return day;
+        }
+    }
+
+    private static BigDecimal value(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
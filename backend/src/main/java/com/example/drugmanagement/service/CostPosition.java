@@ -0,0 +1,172 @@
+package com.example.drugmanagement.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A drug's stock at cost: the quantity with its moving weighted average value, and the
+ * FIFO layers that quantity is made of. Receipts add a layer; issues take the oldest
+ * layers first and the average unit cost, and dispenses add both to the cost of goods.
+ */
+final class CostPosition {
+
+    static final int SCALE = 4;
+
+    private int quantity;
+    private BigDecimal avgValue;
+    private BigDecimal fifoValue;
+    private final Deque<Layer> layers;
+    private final List<Layer> emptied = new ArrayList<>();
+    private final List<Layer> added = new ArrayList<>();
+    private BigDecimal cogsAvg = BigDecimal.ZERO;
+    private BigDecimal cogsFifo = BigDecimal.ZERO;
+
+    CostPosition(int quantity, BigDecimal avgValue, BigDecimal fifoValue, Collection<Layer> layers) {
+        this.quantity = quantity;
+        this.avgValue = avgValue;
+        this.fifoValue = fifoValue;
+        this.layers = new ArrayDeque<>(layers);
+    }
+
+    static CostPosition empty() {
+        return new CostPosition(0, BigDecimal.ZERO, BigDecimal.ZERO, new ArrayList<>());
+    }
+
+    /**
+     * Unit cost of a receipt: its price, else the current average cost, else
+     * {@code fallback} (the drug's price) for a drug without stock.
+     */
+    BigDecimal unitCost(BigDecimal price, BigDecimal fallback) {
+        if (price != null) {
+            return price;
+        }
+        if (quantity > 0) {
+            return avgValue.divide(BigDecimal.valueOf(quantity), SCALE, RoundingMode.HALF_UP);
+        }
+        return fallback != null ? fallback : BigDecimal.ZERO;
+    }
+
+    void receive(int received, BigDecimal unitCost) {
+        if (received <= 0) {
+            return;
+        }
+        BigDecimal value = unitCost.multiply(BigDecimal.valueOf(received));
+        Layer layer = new Layer(null, unitCost, received);
+        layers.addLast(layer);
+        added.add(layer);
+        quantity += received;
+        avgValue = avgValue.add(value);
+        fifoValue = fifoValue.add(value);
+    }
+
+    /**
+     * Takes stock out at cost; {@code dispensed} books it as cost of goods, otherwise it
+     * is a write-off. Quantities beyond the valued stock carry no cost.
+     */
+    void issue(int issued, boolean dispensed) {
+        int taken = Math.min(issued, quantity);
+        if (taken <= 0) {
+            return;
+        }
+        BigDecimal avgCost = taken == quantity ? avgValue : avgValue.multiply(BigDecimal.valueOf(taken))
+                .divide(BigDecimal.valueOf(quantity), SCALE, RoundingMode.HALF_UP);
+        BigDecimal fifoCost = BigDecimal.ZERO;
+        int left = taken;
+        while (left > 0 && !layers.isEmpty()) {
+            Layer layer = layers.peekFirst();
+            int used = Math.min(left, layer.remaining);
+            fifoCost = fifoCost.add(layer.unitCost.multiply(BigDecimal.valueOf(used)));
+            layer.remaining -= used;
+            layer.changed = true;
+            left -= used;
+            if (layer.remaining == 0) {
+                layers.pollFirst();
+                emptied.add(layer);
+            }
+        }
+        quantity -= taken;
+        avgValue = quantity == 0 ? BigDecimal.ZERO : avgValue.subtract(avgCost);
+        fifoValue = layers.isEmpty() ? BigDecimal.ZERO : fifoValue.subtract(fifoCost);
+        if (dispensed) {
+            cogsAvg = cogsAvg.add(avgCost);
+            cogsFifo = cogsFifo.add(fifoCost);
+        }
+    }
+
+    /**
+     * Moves the quantity to {@code target}: receives the difference at the average cost
+     * (else {@code fallback}) or writes it off.
+     */
+    void adjustTo(int target, BigDecimal fallback) {
+        if (target > quantity) {
+            receive(target - quantity, unitCost(null, fallback));
+        } else if (target < quantity) {
+            issue(quantity - target, false);
+        }
+    }
+
+    /**
+     * Starts a new day's cost of goods.
+     */
+    void closeDay() {
+        cogsAvg = BigDecimal.ZERO;
+        cogsFifo = BigDecimal.ZERO;
+    }
+
+    int getQuantity() {
+        return quantity;
+    }
+
+    BigDecimal getAvgValue() {
+        return avgValue;
+    }
+
+    BigDecimal getFifoValue() {
+        return fifoValue;
+    }
+
+    BigDecimal getCogsAvg() {
+        return cogsAvg;
+    }
+
+    BigDecimal getCogsFifo() {
+        return cogsFifo;
+    }
+
+    Collection<Layer> getLayers() {
+        return layers;
+    }
+
+    /**
+     * Stored layers used up since loading.
+     */
+    List<Layer> getEmptied() {
+        return emptied;
+    }
+
+    /**
+     * Layers received since loading, including ones already used up again.
+     */
+    List<Layer> getAdded() {
+        return added;
+    }
+
+    static final class Layer {
+
+        final Long id;
+        final BigDecimal unitCost;
+        int remaining;
+        boolean changed;
+
+        Layer(Long id, BigDecimal unitCost, int remaining) {
+            this.id = id;
+            this.unitCost = unitCost;
+            this.remaining = remaining;
+        }
+    }
+}
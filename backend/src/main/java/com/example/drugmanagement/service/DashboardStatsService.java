@@ -0,0 +1,190 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.dto.DashboardStats;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.event.CategoryChangedEvent;
+import com.example.drugmanagement.event.DataReloadedEvent;
+import com.example.drugmanagement.event.DrugChangedEvent;
+import com.example.drugmanagement.event.StockChangedEvent;
+import com.example.drugmanagement.repository.DrugCategoryRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps dashboard totals in memory. The aggregate is loaded once at startup and then
+ * maintained from the committed stock, drug and category events, so reading it never
+ * touches the database.
+ *
+ * <p>A reload can read a stock change that committed before its after-commit event was
+ * handled. Each drug therefore keeps the journal sequence number its loaded stock
+ * includes, and stock events up to it are skipped instead of being applied twice.
+ */
+@Service
+public class DashboardStatsService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DrugCategoryRepository categoryRepository;
+
+    private final Map<Long, DrugEntry> drugs = new HashMap<>();
+    private final Map<Long, CategoryTotals> categoryTotals = new HashMap<>();
+    private final Set<Long> lowStock = new HashSet<>();
+    private BigDecimal totalValue = BigDecimal.ZERO;
+    private long categoryCount;
+
+    private volatile DashboardStats snapshot = DashboardStats.EMPTY;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public DashboardStatsService(JdbcTemplate jdbcTemplate, DrugCategoryRepository categoryRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.categoryRepository = categoryRepository;
+    }
+
+    public DashboardStats getStats() {
+        return snapshot;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, DataReloadedEvent.class})
+    public void rebuild() {
+        lock.lock();
+        try {
+            drugs.clear();
+            categoryTotals.clear();
+            lowStock.clear();
+            totalValue = BigDecimal.ZERO;
+            jdbcTemplate.query("select id, category_id, price, stock, reorder_level, "
+                    + "(select max(seq) from stock_journal j where j.drug_id = d.id) from drug_info d", rs -> {
+                add(rs.getLong(1), new DrugEntry((Long) rs.getObject(2), rs.getBigDecimal(3), rs.getInt(4),
+                        reorderLevel((Integer) rs.getObject(5)), rs.getLong(6)));
+            });
+            categoryCount = categoryRepository.count();
+            publish();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        lock.lock();
+        try {
+            DrugEntry entry = drugs.get(event.getDrugId());
+            if (entry == null || event.getSeq() <= entry.loadedSeq) {
+                return;
+            }
+            remove(event.getDrugId());
+            add(event.getDrugId(), new DrugEntry(entry.categoryId, entry.price, entry.stock + event.getDelta(),
+                    entry.reorderLevel, entry.loadedSeq));
+            publish();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDrugChanged(DrugChangedEvent event) {
+        lock.lock();
+        try {
+            DrugEntry previous = drugs.get(event.getDrugId());
+            remove(event.getDrugId());
+            if (!event.isDeleted()) {
+                DrugInfo drug = event.getDrug();
+                add(drug.getId(), new DrugEntry(drug.getCategory() != null ? drug.getCategory().getId() : null,
+                        drug.getPrice(), drug.getStock() != null ? drug.getStock() : 0,
+                        reorderLevel(drug.getReorderLevel()), previous != null ? previous.loadedSeq : 0));
+            }
+            publish();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        lock.lock();
+        try {
+            categoryCount = categoryRepository.count();
+            publish();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void add(Long drugId, DrugEntry entry) {
+        drugs.put(drugId, entry);
+        BigDecimal value = entry.value();
+        totalValue = totalValue.add(value);
+        CategoryTotals totals = categoryTotals.computeIfAbsent(entry.categoryId, k -> new CategoryTotals());
+        totals.drugCount++;
+        totals.value = totals.value.add(value);
+        if (entry.stock < entry.reorderLevel) {
+            lowStock.add(drugId);
+        }
+    }
+
+    private void remove(Long drugId) {
+        DrugEntry entry = drugs.remove(drugId);
+        if (entry == null) {
+            return;
+        }
+        BigDecimal value = entry.value();
+        totalValue = totalValue.subtract(value);
+        CategoryTotals totals = categoryTotals.get(entry.categoryId);
+        if (totals != null) {
+            totals.drugCount--;
+            totals.value = totals.value.subtract(value);
+            if (totals.drugCount == 0) {
+                categoryTotals.remove(entry.categoryId);
+            }
+        }
+        lowStock.remove(drugId);
+    }
+
+    private static int reorderLevel(Integer configured) {
+        return configured != null ? configured : DrugInfo.DEFAULT_REORDER_LEVEL;
+    }
+
+    private void publish() {
+        List<DashboardStats.CategoryStats> categories = new ArrayList<>(categoryTotals.size());
+        for (Map.Entry<Long, CategoryTotals> e : categoryTotals.entrySet()) {
+            categories.add(new DashboardStats.CategoryStats(e.getKey(), e.getValue().drugCount, e.getValue().value));
+        }
+        snapshot = new DashboardStats(drugs.size(), lowStock.size(), totalValue, categoryCount, categories);
+    }
+
+    private static class DrugEntry {
+        private final Long categoryId;
+        private final BigDecimal price;
+        private final int stock;
+        private final int reorderLevel;
+        private final long loadedSeq;
+
+        DrugEntry(Long categoryId, BigDecimal price, int stock, int reorderLevel, long loadedSeq) {
+            this.categoryId = categoryId;
+            this.price = price;
+            this.stock = stock;
+            this.reorderLevel = reorderLevel;
+            this.loadedSeq = loadedSeq;
+        }
+
+        BigDecimal value() {
+            return price != null ? price.multiply(BigDecimal.valueOf(stock)) : BigDecimal.ZERO;
+        }
+    }
+
+    private static class CategoryTotals {
+        private int drugCount;
+        private BigDecimal value = BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.event.DataReloadedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates synthetic drugs and stock-in / stock-out history with JDBC batch inserts,
+ * split into chunks that run on a small thread pool. Every chunk draws from its own
+ * random stream derived from {@code seed.random-seed}, so the same plan produces the
+ * same data regardless of thread count. Each drug's history is simulated in time order
+ * and never dispenses more than it holds, and its stock is set to the net of its
+ * history. Seeded stock is not held in lots.
+ */
+@Service
+public class DataSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSeeder.class);
+
+    private static final String[] CATEGORIES = {
+            "抗生素", "解热镇痛", "维生素", "消化系统", "心血管", "抗过敏"
+    };
+    private static final String[] NAMES = {
+            "阿莫西林", "布洛芬", "头孢克肟", "维生素C", "对乙酰氨基酚",
+            "甲硝唑", "奥美拉唑", "氯雷他定", "阿奇霉素", "二甲双胍"
+    };
+    private static final String[] FORMS = {"胶囊", "片", "缓释片", "颗粒", "注射液"};
+    private static final String[] UNITS = {"盒", "瓶", "袋", "支"};
+    private static final String[] MANUFACTURERS = {"华北制药", "石药集团", "扬子江药业", "恒瑞医药"};
+    private static final String[] SUPPLIERS = {"华东医药仓库", "华南医药仓库", "国药控股", "九州通"};
+    private static final String[] REASONS = {"门诊使用", "住院使用", "科室领用", "报废处理"};
+    private static final int HISTORY_DAYS = 365;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int threads;
+    private final int batchSize;
+    private final long randomSeed;
+
+    public DataSeeder(JdbcTemplate jdbcTemplate,
+                      ApplicationEventPublisher eventPublisher,
+                      @Value("${seed.threads:4}") int threads,
+                      @Value("${seed.batch-size:1000}") int batchSize,
+                      @Value("${seed.random-seed:42}") long randomSeed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.threads = Math.max(1, threads);
+        this.batchSize = Math.max(1, batchSize);
+        this.randomSeed = randomSeed;
+    }
+
+    /**
+     * Inserts {@code drugCount} drugs and about {@code ledgerRows} stock-in / stock-out
+     * rows spread evenly over them, then publishes {@link DataReloadedEvent}.
+     */
+    public void seed(int drugCount, long ledgerRows) {
+        if (drugCount <= 0) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        Long[] categoryIds = categories();
+        long maxIdBefore = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from drug_info", Long.class);
+        boolean withHistory = ledgerRows > 0;
+        long stockInRows = 0;
+        long stockOutRows = 0;
+
+        ExecutorService pool = Executors.newFixedThreadPool(writerThreads(), r -> {
+            Thread thread = new Thread(r, "data-seed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> drugChunks = new ArrayList<>();
+            for (int from = 0; from < drugCount; from += batchSize) {
+                int chunkFrom = from;
+                int chunkTo = Math.min(from + batchSize, drugCount);
+                drugChunks.add(pool.submit(() -> insertDrugs(chunkFrom, chunkTo, categoryIds, withHistory)));
+            }
+            await(drugChunks);
+
+            if (withHistory) {
+                List<Long> drugIds = jdbcTemplate.queryForList(
+                        "select id from drug_info where id > ? order by id", Long.class, maxIdBefore);
+                int perDrug = (int) Math.max(1, ledgerRows / drugIds.size());
+                int drugsPerChunk = Math.max(1, batchSize / perDrug);
+                List<Future<int[]>> historyChunks = new ArrayList<>();
+                for (int from = 0; from < drugIds.size(); from += drugsPerChunk) {
+                    List<Long> slice = drugIds.subList(from, Math.min(from + drugsPerChunk, drugIds.size()));
+                    long chunkSeed = randomSeed * 31 + from;
+                    historyChunks.add(pool.submit(() -> insertHistory(slice, perDrug, chunkSeed)));
+                }
+                for (Future<int[]> chunk : historyChunks) {
+                    int[] counts = getUnchecked(chunk);
+                    stockInRows += counts[0];
+                    stockOutRows += counts[1];
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        log.info("Seeded {} drugs, {} stock-in and {} stock-out rows in {} ms", drugCount, stockInRows,
+                stockOutRows, System.currentTimeMillis() - started);
+        eventPublisher.publishEvent(new DataReloadedEvent());
+    }
+
+    /**
+     * H2 (benchmarks, local runs) hands out duplicate identity values to concurrent batch
+     * inserts, so it is seeded from one thread.
+     */
+    private int writerThreads() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "H2".equals(product) ? 1 : threads;
+    }
+
+    private Long[] categories() {
+        List<Long> ids = jdbcTemplate.queryForList("select id from drug_category order by id", Long.class);
+        if (ids.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> rows = new ArrayList<>();
+            for (String name : CATEGORIES) {
+                rows.add(new Object[]{name, now});
+            }
+            jdbcTemplate.batchUpdate("insert into drug_category (name, create_time) values (?, ?)", rows);
+            ids = jdbcTemplate.queryForList("select id from drug_category order by id", Long.class);
+        }
+        return ids.toArray(new Long[0]);
+    }
+
+    private void insertDrugs(int from, int to, Long[] categoryIds, boolean withHistory) {
+        SplittableRandom random = new SplittableRandom(randomSeed + from);
+        LocalDate today = LocalDate.now();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            String name = NAMES[i % NAMES.length] + FORMS[(i / NAMES.length) % FORMS.length] + " " + i;
+            LocalDate produced = today.minusDays(30 + random.nextInt(700));
+            rows.add(new Object[]{name, categoryIds[i % categoryIds.length], "0.25g*24",
+                    UNITS[random.nextInt(UNITS.length)], price(random), withHistory ? 0 : random.nextInt(1000),
+                    MANUFACTURERS[i % MANUFACTURERS.length], Date.valueOf(produced),
+                    Date.valueOf(today.plusDays(random.nextInt(-30, 730))), 1, now});
+        }
+        jdbcTemplate.batchUpdate("insert into drug_info (name, category_id, specification, unit, price, stock, "
+                + "manufacturer, production_date, expire_date, status, create_time) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private int[] insertHistory(List<Long> drugIds, int perDrug, long chunkSeed) {
+        SplittableRandom random = new SplittableRandom(chunkSeed);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> stockIns = new ArrayList<>();
+        List<Object[]> stockOuts = new ArrayList<>();
+        List<Object[]> stock = new ArrayList<>(drugIds.size());
+        for (Long drugId : drugIds) {
+            long[] offsets = new long[perDrug];
+            for (int i = 0; i < perDrug; i++) {
+                offsets[i] = random.nextLong(HISTORY_DAYS * 24L * 3600);
+            }
+            Arrays.sort(offsets);
+            int balance = 0;
+            for (int i = perDrug - 1; i >= 0; i--) {
+                Timestamp time = Timestamp.valueOf(now.minusSeconds(offsets[i]));
+                int quantity = 1 + random.nextInt(20);
+                if (balance >= quantity && random.nextInt(10) < 6) {
+                    balance -= quantity;
+                    stockOuts.add(new Object[]{quantity, REASONS[random.nextInt(REASONS.length)], time, drugId});
+                } else {
+                    quantity *= 5;
+                    balance += quantity;
+                    stockIns.add(new Object[]{quantity, price(random),
+                            SUPPLIERS[random.nextInt(SUPPLIERS.length)], "S" + drugId + "-" + i, time, drugId});
+                }
+            }
+            stock.add(new Object[]{balance, drugId});
+        }
+        batchUpdate("insert into stock_in (drug_id, quantity, price, list_price, supplier, batch_no, in_time) "
+                + "select id, ?, ?, price, ?, ?, ? from drug_info where id = ?", stockIns);
+        batchUpdate("insert into stock_out (drug_id, quantity, list_price, reason, out_time) "
+                + "select id, ?, price, ?, ? from drug_info where id = ?", stockOuts);
+        batchUpdate("update drug_info set stock = ? where id = ?", stock);
+        return new int[]{stockIns.size(), stockOuts.size()};
+    }
+
+    private void batchUpdate(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+    }
+
+    private static BigDecimal price(SplittableRandom random) {
+        return BigDecimal.valueOf(200 + random.nextInt(19800), 2);
+    }
+
+    private static void await(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            getUnchecked(future);
+        }
+    }
+
+    private static <T> T getUnchecked(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Seeding interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Seeding failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.dto.DemandForecast;
+import com.example.drugmanagement.event.RollupsRebuiltEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-drug demand forecasts from the daily dispensed quantities in {@code stock_rollup}:
+ * a moving average over {@code forecast.window-days} and simple exponential smoothing of
+ * the level and the variance of daily demand. From those, the reorder point covers the
+ * lead time plus safety stock for the configured service level, and the order-up-to
+ * level covers lead time and review period.
+ *
+ * <p>The forecasts are held in memory as an immutable snapshot. A full computation reads
+ * {@code forecast.history-days} of rollups in drug id ranges on a fork-join pool; it runs
+ * at startup and after the rollups were rebuilt. The nightly run only advances the
+ * existing state by the completed days since, reading the dispenses of the new day and
+ * of the day leaving the moving-average window, and updates all drugs in parallel.
+ * Drugs without recent demand are left out of the snapshot and forecast as zero.
+ */
+@Service
+public class DemandForecastService {
+
+    private static final Logger log = LoggerFactory.getLogger(DemandForecastService.class);
+
+    private static final double NEGLIGIBLE = 0.001;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int historyDays;
+    private final int windowDays;
+    private final double smoothing;
+    private final int leadTimeDays;
+    private final int reviewDays;
+    private final double serviceLevelZ;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+    private final DemandState zero;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(null, Collections.<Long, DemandState>emptyMap());
+
+    public DemandForecastService(JdbcTemplate jdbcTemplate,
+                                 @Value("${forecast.history-days:90}") int historyDays,
+                                 @Value("${forecast.window-days:28}") int windowDays,
+                                 @Value("${forecast.smoothing:0.3}") double smoothing,
+                                 @Value("${forecast.lead-time-days:7}") int leadTimeDays,
+                                 @Value("${forecast.review-days:14}") int reviewDays,
+                                 @Value("${forecast.service-level-z:1.65}") double serviceLevelZ,
+                                 @Value("${forecast.parallelism:4}") int parallelism,
+                                 @Value("${forecast.chunk-size:2000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.windowDays = Math.max(1, windowDays);
+        this.historyDays = Math.max(this.windowDays, historyDays);
+        this.smoothing = smoothing;
+        this.leadTimeDays = Math.max(0, leadTimeDays);
+        this.reviewDays = Math.max(0, reviewDays);
+        this.serviceLevelZ = serviceLevelZ;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pool = new ForkJoinPool(Math.max(1, parallelism), p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("forecast-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        this.zero = state(0, 0, 0);
+    }
+
+    /**
+     * Whether a first computation has finished.
+     */
+    public boolean isReady() {
+        return snapshot.through != null;
+    }
+
+    public DemandForecast forecast(Long drugId, int stock, Integer reorderLevel) {
+        Snapshot current = snapshot;
+        DemandState state = current.states.getOrDefault(drugId, zero);
+        int suggested = stock <= state.reorderPoint ? Math.max(0, state.orderUpTo - stock) : 0;
+        return new DemandForecast(drugId, current.through, round((double) state.windowSum / windowDays),
+                round(state.level), round(Math.sqrt(state.variance)), leadTimeDays, reviewDays, state.safetyStock,
+                state.reorderPoint, state.orderUpTo, stock, reorderLevel, suggested);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::recompute, "forecast-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @EventListener(RollupsRebuiltEvent.class)
+    public void onRollupsRebuilt() {
+        recompute();
+    }
+
+    /**
+     * Computes every drug's forecast from the rollups of the last {@code history-days}
+     * completed days.
+     */
+    public void recompute() {
+        lock.lock();
+        try {
+            try {
+                long started = System.currentTimeMillis();
+                LocalDate through = LocalDate.now().minusDays(1);
+                LocalDate first = through.minusDays(historyDays - 1);
+                long[] ids = jdbcTemplate.queryForList("select id from drug_info order by id", Long.class)
+                        .stream().mapToLong(Long::longValue).toArray();
+                Map<Long, DemandState> states = new ConcurrentHashMap<>();
+                pool.invoke(new Batch(ids, 0, ids.length, (from, to) -> {
+                    HistoryReader reader = new HistoryReader(first, states);
+                    jdbcTemplate.query("select drug_id, bucket_date, qty_out from stock_rollup "
+                            + "where drug_id between ? and ? and bucket_date between ? and ? and qty_out > 0 "
+                            + "order by drug_id, bucket_date", reader, ids[from], ids[to - 1], Date.valueOf(first),
+                            Date.valueOf(through));
+                    reader.flush();
+                }));
+                snapshot = new Snapshot(through, states);
+                log.info("Computed demand forecasts of {} drugs ({} with recent demand) in {} ms", ids.length,
+                        states.size(), System.currentTimeMillis() - started);
+            } catch (RuntimeException e) {
+                log.error("Computing demand forecasts failed", e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Advances the forecasts by the days completed since the last run, or recomputes
+     * them when there is no state yet or it is older than the history.
+     */
+    @Scheduled(cron = "${forecast.cron:0 30 0 * * *}")
+    public void update() {
+        lock.lock();
+        try {
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            LocalDate through = snapshot.through;
+            if (through == null || ChronoUnit.DAYS.between(through, yesterday) >= historyDays) {
+                recompute();
+                return;
+            }
+            long started = System.currentTimeMillis();
+            int days = 0;
+            for (LocalDate day = through.plusDays(1); !day.isAfter(yesterday); day = day.plusDays(1)) {
+                advance(day);
+                days++;
+            }
+            if (days > 0) {
+                log.info("Advanced demand forecasts by {} day(s) in {} ms", days, System.currentTimeMillis() - started);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private void advance(LocalDate day) {
+        Map<Long, Integer> added = dispensed(day);
+        Map<Long, Integer> dropped = dispensed(day.minusDays(windowDays));
+        Map<Long, DemandState> previous = snapshot.states;
+        Set<Long> drugIds = new HashSet<>(previous.keySet());
+        drugIds.addAll(added.keySet());
+        long[] ids = drugIds.stream().mapToLong(Long::longValue).toArray();
+        Map<Long, DemandState> states = new ConcurrentHashMap<>(ids.length * 4 / 3 + 1);
+        pool.invoke(new Batch(ids, 0, ids.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                DemandState state = step(previous.getOrDefault(ids[i], zero), added.getOrDefault(ids[i], 0),
+                        dropped.getOrDefault(ids[i], 0));
+                if (!state.isNegligible()) {
+                    states.put(ids[i], state);
+                }
+            }
+        }));
+        snapshot = new Snapshot(day, states);
+    }
+
+    private Map<Long, Integer> dispensed(LocalDate day) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query("select drug_id, qty_out from stock_rollup where bucket_date = ? and qty_out > 0", rs -> {
+            quantities.put(rs.getLong(1), rs.getInt(2));
+        }, Date.valueOf(day));
+        return quantities;
+    }
+
+    /**
+     * Starts level and variance at the mean and variance of the whole history, then
+     * smooths through it day by day.
+     */
+    private DemandState fromHistory(int[] series) {
+        double mean = 0;
+        for (int quantity : series) {
+            mean += quantity;
+        }
+        mean /= series.length;
+        double variance = 0;
+        for (int quantity : series) {
+            variance += (quantity - mean) * (quantity - mean);
+        }
+        DemandState state = state(0, mean, variance / series.length);
+        for (int i = 0; i < series.length; i++) {
+            state = step(state, series[i], i >= windowDays ? series[i - windowDays] : 0);
+        }
+        return state;
+    }
+
+    private DemandState step(DemandState state, int quantity, int leavingWindow) {
+        double error = quantity - state.level;
+        return state(state.windowSum + quantity - leavingWindow, state.level + smoothing * error,
+                (1 - smoothing) * (state.variance + smoothing * error * error));
+    }
+
+    private DemandState state(long windowSum, double level, double variance) {
+        double sigma = Math.sqrt(variance);
+        int safetyStock = units(serviceLevelZ * sigma * Math.sqrt(leadTimeDays));
+        int reorderPoint = units(level * leadTimeDays) + safetyStock;
+        int cover = leadTimeDays + reviewDays;
+        int orderUpTo = Math.max(reorderPoint, units(level * cover + serviceLevelZ * sigma * Math.sqrt(cover)));
+        return new DemandState(windowSum, level, variance, safetyStock, reorderPoint, orderUpTo);
+    }
+
+    /**
+     * Whole units covering the quantity; the residue a smoothed series keeps long after
+     * its last dispense does not round up to a unit.
+     */
+    private static int units(double quantity) {
+        return (int) Math.ceil(round(quantity));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * Splits a range of drug ids until a range fits {@code forecast.chunk-size}.
+     */
+    private final class Batch extends RecursiveAction {
+
+        private final long[] ids;
+        private final int from;
+        private final int to;
+        private final Chunk chunk;
+
+        private Batch(long[] ids, int from, int to, Chunk chunk) {
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                if (to > from) {
+                    chunk.run(from, to);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Batch(ids, from, middle, chunk), new Batch(ids, middle, to, chunk));
+        }
+    }
+
+    private interface Chunk {
+
+        void run(int from, int to);
+    }
+
+    /**
+     * Collects the rows of one drug at a time, in drug and date order, into a daily
+     * series and turns it into the drug's state when the next drug starts; the last
+     * drug is flushed by the caller.
+     */
+    private final class HistoryReader implements RowCallbackHandler {
+
+        private final LocalDate first;
+        private final Map<Long, DemandState> states;
+        private final int[] series = new int[historyDays];
+        private long drugId = -1;
+
+        private HistoryReader(LocalDate first, Map<Long, DemandState> states) {
+            this.first = first;
+            this.states = states;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long next = rs.getLong(1);
+            if (next != drugId) {
+                flush();
+                drugId = next;
+            }
+            series[(int) ChronoUnit.DAYS.between(first, rs.getDate(2).toLocalDate())] += rs.getInt(3);
+        }
+
+        private void flush() {
+            if (drugId >= 0) {
+                states.put(drugId, fromHistory(series));
+                Arrays.fill(series, 0);
+                drugId = -1;
+            }
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final LocalDate through;
+        private final Map<Long, DemandState> states;
+
+        private Snapshot(LocalDate through, Map<Long, DemandState> states) {
+            this.through = through;
+            this.states = states;
+        }
+    }
+
+    private static final class DemandState {
+
+        private final long windowSum;
+        private final double level;
+        private final double variance;
+        private final int safetyStock;
+        private final int reorderPoint;
+        private final int orderUpTo;
+
+        private DemandState(long windowSum, double level, double variance, int safetyStock, int reorderPoint,
+                            int orderUpTo) {
+            this.windowSum = windowSum;
+            this.level = level;
+            this.variance = variance;
+            this.safetyStock = safetyStock;
+            this.reorderPoint = reorderPoint;
+            this.orderUpTo = orderUpTo;
+        }
+
+        private boolean isNegligible() {
+            return windowSum == 0 && level < NEGLIGIBLE;
+        }
+    }
+}
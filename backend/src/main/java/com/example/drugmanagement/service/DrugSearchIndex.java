@@ -0,0 +1,329 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.dto.DrugSearchHit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over drug name, pinyin, specification and manufacturer.
+ * Chinese text is indexed as character unigrams and bigrams, Latin/digit runs and
+ * pinyin (full and initials) as edge n-grams, so both "西林" and "amxl" resolve with
+ * a handful of hash lookups and sorted posting-list intersections.
+ */
+class DrugSearchIndex {
+
+    private static final String NAME = "n:";
+    private static final String PINYIN = "p:";
+    private static final String SPEC = "s:";
+    private static final String MANUFACTURER = "m:";
+
+    private static final int NAME_SCORE = 100;
+    private static final int PINYIN_SCORE = 60;
+    private static final int MANUFACTURER_SCORE = 30;
+    private static final int SPEC_SCORE = 20;
+    private static final int PREFIX_BONUS = 50;
+    private static final int EXACT_BONUS = 100;
+
+    private static final int MAX_EDGE_GRAM = 16;
+
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private final Map<String, PostingList> terms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void put(long id, String name, String specification, String manufacturer, int stock) {
+        Doc doc = new Doc(id, name, specification, manufacturer, stock);
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            docs.put(id, doc);
+            for (String term : doc.terms) {
+                terms.computeIfAbsent(term, k -> new PostingList()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void adjustStock(long id, int delta) {
+        lock.writeLock().lock();
+        try {
+            Doc doc = docs.get(id);
+            if (doc != null) {
+                doc.stock += delta;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<DrugSearchHit> search(String query, int limit) {
+        String[] parts = query.toLowerCase().trim().split("\\s+");
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String part : parts) {
+                if (part.isEmpty()) {
+                    continue;
+                }
+                Map<Long, Integer> partScores = matchPart(part, scores);
+                if (scores == null) {
+                    scores = partScores;
+                } else {
+                    Map<Long, Integer> merged = new HashMap<>();
+                    for (Map.Entry<Long, Integer> e : partScores.entrySet()) {
+                        Integer previous = scores.get(e.getKey());
+                        if (previous != null) {
+                            merged.put(e.getKey(), previous + e.getValue());
+                        }
+                    }
+                    scores = merged;
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            if (scores == null) {
+                return Collections.emptyList();
+            }
+            return topHits(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> matchPart(String part, Map<Long, Integer> restrictTo) {
+        Map<Long, Integer> result = new HashMap<>();
+        collect(NAME, part, NAME_SCORE, restrictTo, result);
+        if (isPinyinQuery(part)) {
+            PostingList postings = terms.get(PINYIN + part);
+            if (postings != null) {
+                for (int i = 0; i < postings.size(); i++) {
+                    long id = postings.get(i);
+                    if (restrictTo == null || restrictTo.containsKey(id)) {
+                        result.merge(id, PINYIN_SCORE, Math::max);
+                    }
+                }
+            }
+        }
+        collect(MANUFACTURER, part, MANUFACTURER_SCORE, restrictTo, result);
+        collect(SPEC, part, SPEC_SCORE, restrictTo, result);
+        for (Map.Entry<Long, Integer> e : result.entrySet()) {
+            String name = docs.get(e.getKey()).normalizedName;
+            if (name.equals(part)) {
+                e.setValue(e.getValue() + EXACT_BONUS);
+            } else if (name.startsWith(part)) {
+                e.setValue(e.getValue() + PREFIX_BONUS);
+            }
+        }
+        return result;
+    }
+
+    private void collect(String field, String part, int score, Map<Long, Integer> restrictTo,
+                         Map<Long, Integer> result) {
+        Set<String> queryTerms = queryTerms(part);
+        if (queryTerms.isEmpty()) {
+            return;
+        }
+        List<PostingList> lists = new ArrayList<>(queryTerms.size());
+        for (String term : queryTerms) {
+            PostingList postings = terms.get(field + term);
+            if (postings == null) {
+                return;
+            }
+            lists.add(postings);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        PostingList smallest = lists.get(0);
+        for (int i = 0; i < smallest.size(); i++) {
+            long id = smallest.get(i);
+            if (restrictTo != null && !restrictTo.containsKey(id)) {
+                continue;
+            }
+            boolean all = true;
+            for (int j = 1; j < lists.size() && all; j++) {
+                all = lists.get(j).contains(id);
+            }
+            if (all && docs.get(id).field(field).contains(part)) {
+                result.merge(id, score, Math::max);
+            }
+        }
+    }
+
+    private List<DrugSearchHit> topHits(Map<Long, Integer> scores, int limit) {
+        Comparator<Map.Entry<Long, Integer>> order = Comparator
+                .<Map.Entry<Long, Integer>>comparingInt(Map.Entry::getValue)
+                .thenComparing(e -> -docs.get(e.getKey()).name.length())
+                .thenComparing(e -> -e.getKey());
+        PriorityQueue<Map.Entry<Long, Integer>> heap = new PriorityQueue<>(limit + 1, order);
+        for (Map.Entry<Long, Integer> e : scores.entrySet()) {
+            heap.offer(e);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<DrugSearchHit> hits = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            Map.Entry<Long, Integer> e = heap.poll();
+            Doc doc = docs.get(e.getKey());
+            hits.add(new DrugSearchHit(doc.id, doc.name, doc.specification, doc.manufacturer, doc.stock, e.getValue()));
+        }
+        Collections.reverse(hits);
+        return hits;
+    }
+
+    private void removeLocked(long id) {
+        Doc doc = docs.remove(id);
+        if (doc == null) {
+            return;
+        }
+        for (String term : doc.terms) {
+            PostingList postings = terms.get(term);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.size() == 0) {
+                    terms.remove(term);
+                }
+            }
+        }
+    }
+
+    private static boolean isPinyinQuery(String part) {
+        for (int i = 0; i < part.length(); i++) {
+            char c = part.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> queryTerms(String part) {
+        Set<String> result = new LinkedHashSet<>();
+        int i = 0;
+        while (i < part.length()) {
+            char c = part.charAt(i);
+            if (Pinyin.isCjk(c)) {
+                int start = i;
+                while (i < part.length() && Pinyin.isCjk(part.charAt(i))) {
+                    i++;
+                }
+                if (i - start == 1) {
+                    result.add(String.valueOf(c));
+                } else {
+                    for (int k = start; k + 1 < i; k++) {
+                        result.add(part.substring(k, k + 2));
+                    }
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < part.length() && Character.isLetterOrDigit(part.charAt(i)) && !Pinyin.isCjk(part.charAt(i))) {
+                    i++;
+                }
+                result.add(part.substring(start, Math.min(i, start + MAX_EDGE_GRAM)));
+            } else {
+                i++;
+            }
+        }
+        return result;
+    }
+
+    private static void textTerms(String field, String text, Set<String> out) {
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Pinyin.isCjk(c)) {
+                out.add(field + c);
+                if (i + 1 < text.length() && Pinyin.isCjk(text.charAt(i + 1))) {
+                    out.add(field + text.substring(i, i + 2));
+                }
+                i++;
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < text.length() && Character.isLetterOrDigit(text.charAt(i)) && !Pinyin.isCjk(text.charAt(i))) {
+                    i++;
+                }
+                edgeGrams(field, text.substring(start, i), out);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static void edgeGrams(String field, String token, Set<String> out) {
+        for (int len = 1; len <= Math.min(token.length(), MAX_EDGE_GRAM); len++) {
+            out.add(field + token.substring(0, len));
+        }
+    }
+
+    private static String normalize(String text) {
+        return text != null ? text.toLowerCase() : "";
+    }
+
+    private static final class Doc {
+        private final long id;
+        private final String name;
+        private final String specification;
+        private final String manufacturer;
+        private final String normalizedName;
+        private final String normalizedSpec;
+        private final String normalizedManufacturer;
+        private final Set<String> terms = new LinkedHashSet<>();
+        private int stock;
+
+        private Doc(long id, String name, String specification, String manufacturer, int stock) {
+            this.id = id;
+            this.name = name != null ? name : "";
+            this.specification = specification;
+            this.manufacturer = manufacturer;
+            this.stock = stock;
+            this.normalizedName = normalize(name);
+            this.normalizedSpec = normalize(specification);
+            this.normalizedManufacturer = normalize(manufacturer);
+
+            textTerms(NAME, normalizedName, terms);
+            textTerms(SPEC, normalizedSpec, terms);
+            textTerms(MANUFACTURER, normalizedManufacturer, terms);
+            for (String pinyin : Pinyin.convert(normalizedName)) {
+                edgeGrams(PINYIN, pinyin, terms);
+            }
+        }
+
+        private String field(String field) {
+            if (NAME.equals(field)) {
+                return normalizedName;
+            }
+            if (SPEC.equals(field)) {
+                return normalizedSpec;
+            }
+            return normalizedManufacturer;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.dto.DrugSearchHit;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.event.DataReloadedEvent;
+import com.example.drugmanagement.event.DrugChangedEvent;
+import com.example.drugmanagement.event.StockChangedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves drug lookups from an in-memory {@link DrugSearchIndex}. The index is built at
+ * startup and kept current from committed drug and stock events; {@link #rebuild()}
+ * replaces it wholesale if it ever drifts from the table.
+ */
+@Service
+public class DrugSearchService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile DrugSearchIndex index = new DrugSearchIndex();
+
+    public DrugSearchService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<DrugSearchHit> search(String query, int limit) {
+        if (query == null || query.trim().isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        return index.search(query, limit);
+    }
+
+    @EventListener({ApplicationReadyEvent.class, DataReloadedEvent.class})
+    public int rebuild() {
+        lock.lock();
+        try {
+            DrugSearchIndex fresh = new DrugSearchIndex();
+            jdbcTemplate.query("select id, name, specification, manufacturer, stock from drug_info order by id", rs -> {
+                fresh.put(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getInt(5));
+            });
+            index = fresh;
+            return fresh.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDrugChanged(DrugChangedEvent event) {
+        lock.lock();
+        try {
+            if (event.isDeleted()) {
+                index.remove(event.getDrugId());
+                return;
+            }
+            DrugInfo drug = event.getDrug();
+            index.put(drug.getId(), drug.getName(), drug.getSpecification(), drug.getManufacturer(),
+                    drug.getStock() != null ? drug.getStock() : 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        lock.lock();
+        try {
+            index.adjustStock(event.getDrugId(), event.getDelta());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.drugmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Runs a write at most once per {@code Idempotency-Key}. The key is claimed in the
+ * transaction of the write itself, so a concurrent duplicate blocks on the claim until
+ * the first request commits or rolls back; only successful responses are kept, and a
+ * replay gets that response back. Kept responses are cached in memory up to
+ * {@code idempotency.cache-size} and read from the table on other nodes.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Cache<String, Stored> responses;
+
+    public IdempotencyService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              @Value("${idempotency.ttl:24h}") Duration ttl,
+                              @Value("${idempotency.cache-size:10000}") long cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(Expiry.<String, Stored>creating((cacheKey, stored) -> remaining(stored)))
+                .build();
+    }
+
+    /**
+     * Keys are per endpoint and per user, so one user's key never replays another's response.
+     */
+    public static String scope(String endpoint, AuthPrincipal principal) {
+        return endpoint + ":" + (principal != null ? principal.getUsername() : "");
+    }
+
+    /**
+     * Runs {@code write} under {@code key} within {@code scope}, or replays the response
+     * of the earlier request with that key. Without a key the write simply runs.
+     */
+    public ResponseEntity<?> execute(String key, String scope, Object request, Supplier<ResponseEntity<?>> write) {
+        if (key == null || key.trim().isEmpty()) {
+            return write.get();
+        }
+        key = key.trim();
+        if (key.length() > MAX_KEY_LENGTH) {
+            return message(HttpStatus.BAD_REQUEST, HEADER + " 不能超过 " + MAX_KEY_LENGTH + " 个字符");
+        }
+        String fingerprint = fingerprint(request);
+        String cacheKey = scope + " " + key;
+        Stored stored = find(cacheKey, scope, key);
+        if (stored != null) {
+            return replay(stored, fingerprint);
+        }
+
+        String claimedKey = key;
+        Stored[] written = new Stored[1];
+        ResponseEntity<?> response = transactionTemplate.execute(status -> {
+            if (!claim(scope, claimedKey, fingerprint)) {
+                status.setRollbackOnly();
+                return null;
+            }
+            ResponseEntity<?> result = write.get();
+            if (!result.getStatusCode().is2xxSuccessful()) {
+                status.setRollbackOnly();
+                return result;
+            }
+            written[0] = new Stored(fingerprint, result.getStatusCode().value(), toJson(result.getBody()),
+                    System.currentTimeMillis());
+            jdbcTemplate.update("update idempotency_key set status = ?, response = ? where scope = ? and idem_key = ?",
+                    written[0].status, written[0].body, scope, claimedKey);
+            return result;
+        });
+        if (written[0] != null) {
+            responses.put(cacheKey, written[0]);
+        }
+        if (response != null) {
+            return response;
+        }
+        // Lost the claim: the other request has committed by now unless it is still running
+        stored = find(cacheKey, scope, key);
+        if (stored != null) {
+            return replay(stored, fingerprint);
+        }
+        return message(HttpStatus.CONFLICT, "相同 " + HEADER + " 的请求正在处理中");
+    }
+
+    /**
+     * Drops keys older than {@code idempotency.ttl}.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.purge-ms:600000}")
+    public void purge() {
+        int purged = jdbcTemplate.update("delete from idempotency_key where created_time < ?", cutoff());
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    /**
+     * Inserts the key, or takes over its row once it has expired. No range delete runs
+     * here: on MySQL's REPEATABLE READ a delete matching no row gap-locks, and two claims
+     * of different keys in one gap then deadlock on each other's inserts. A duplicate
+     * locks only that one row, which is updated in place when it is past the TTL.
+     */
+    private boolean claim(String scope, String key, String fingerprint) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            jdbcTemplate.update("insert into idempotency_key (scope, idem_key, fingerprint, status, created_time) "
+                    + "values (?, ?, ?, 0, ?)", scope, key, fingerprint, now);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return jdbcTemplate.update("update idempotency_key set fingerprint = ?, status = 0, response = null, "
+                    + "created_time = ? where scope = ? and idem_key = ? and created_time < ?",
+                    fingerprint, now, scope, key, cutoff()) == 1;
+        }
+    }
+
+    private Stored find(String cacheKey, String scope, String key) {
+        Stored stored = responses.getIfPresent(cacheKey);
+        if (stored != null) {
+            return stored;
+        }
+        List<Stored> rows = jdbcTemplate.query("select fingerprint, status, response, created_time "
+                        + "from idempotency_key where scope = ? and idem_key = ? and status > 0 and created_time >= ?",
+                (rs, rowNum) -> new Stored(rs.getString(1), rs.getInt(2), rs.getString(3),
+                        rs.getTimestamp(4).getTime()),
+                scope, key, cutoff());
+        if (rows.isEmpty()) {
+            return null;
+        }
+        stored = rows.get(0);
+        responses.put(cacheKey, stored);
+        return stored;
+    }
+
+    private ResponseEntity<?> replay(Stored stored, String fingerprint) {
+        if (!stored.fingerprint.equals(fingerprint)) {
+            return message(HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " 已用于内容不同的请求");
+        }
+        return ResponseEntity.status(stored.status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.body);
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Timestamp cutoff() {
+        return Timestamp.valueOf(LocalDateTime.now().minus(ttl));
+    }
+
+    private Duration remaining(Stored stored) {
+        long left = stored.createdAt + ttl.toMillis() - System.currentTimeMillis();
+        return Duration.ofMillis(Math.max(0, left));
+    }
+
+    private static ResponseEntity<?> message(HttpStatus status, String message) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", message);
+        return new ResponseEntity<>(body, status);
+    }
+
+    private static final class Stored {
+
+        final String fingerprint;
+        final int status;
+        final String body;
+        final long createdAt;
+
+        Stored(String fingerprint, int status, String body, long createdAt) {
+            this.fingerprint = fingerprint;
+            this.status = status;
+            this.body = body;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.entity.StockIn;
+import com.example.drugmanagement.entity.StockOut;
+import com.example.drugmanagement.entity.User;
+import com.example.drugmanagement.event.StockChangedEvent;
+import com.example.drugmanagement.repository.DrugInfoRepository;
+import com.example.drugmanagement.repository.StockInRepository;
+import com.example.drugmanagement.repository.StockOutRepository;
+import com.example.drugmanagement.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Service
+public class InventoryService {
+
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    private static final String INSERT_STOCK_IN = "insert into stock_in (drug_id, quantity, price, list_price, "
+            + "supplier, batch_no, expire_date, in_time, operator_id, remark) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final DrugInfoRepository drugInfoRepository;
+    private final StockInRepository stockInRepository;
+    private final StockOutRepository stockOutRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final LotService lotService;
+    private final StockRollupService stockRollupService;
+    private final StockJournalService stockJournalService;
+    private final ValuationService valuationService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public InventoryService(DrugInfoRepository drugInfoRepository,
+                            StockInRepository stockInRepository,
+                            StockOutRepository stockOutRepository,
+                            UserRepository userRepository,
+                            JdbcTemplate jdbcTemplate,
+                            LotService lotService,
+                            StockRollupService stockRollupService,
+                            StockJournalService stockJournalService,
+                            ValuationService valuationService,
+                            ApplicationEventPublisher eventPublisher) {
+        this.drugInfoRepository = drugInfoRepository;
+        this.stockInRepository = stockInRepository;
+        this.stockOutRepository = stockOutRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.lotService = lotService;
+        this.stockRollupService = stockRollupService;
+        this.stockJournalService = stockJournalService;
+        this.valuationService = valuationService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Adds the quantity to the drug's stock with a single UPDATE and records the
+     * stock-in row, the receipt into its lot, the day's rollup, the journal row and the
+     * valuation in the same transaction. The row keeps the drug's price read under the
+     * UPDATE's lock, which is what the rollup values an unpriced receipt at.
+     */
+    @Transactional
+    public StockIn stockIn(Long drugId, StockIn stockIn) {
+        if (drugInfoRepository.increaseStock(drugId, stockIn.getQuantity()) == 0) {
+            throw new StockOperationException("无效的药品");
+        }
+        stockIn.setDrug(drugInfoRepository.getReferenceById(drugId));
+        stockIn.setListPrice(drugInfoRepository.findPriceById(drugId));
+        if (stockIn.getInTime() == null) {
+            stockIn.setInTime(LocalDateTime.now());
+        }
+        StockIn saved = stockInRepository.save(stockIn);
+        lotService.receive(drugId, stockIn.getBatchNo(), stockIn.getExpireDate(), stockIn.getQuantity());
+        stockRollupService.recordIn(drugId, stockIn.getInTime(), stockIn.getQuantity(), stockIn.getPrice(),
+                stockIn.getListPrice());
+        long seq = stockJournalService.append(drugId, stockIn.getQuantity(), StockJournalService.IN, saved.getId(),
+                stockIn.getInTime());
+        valuationService.recordIn(drugId, stockIn.getInTime(), stockIn.getQuantity(), stockIn.getPrice(),
+                stockIn.getListPrice());
+        eventPublisher.publishEvent(new StockChangedEvent(drugId, stockIn.getQuantity(), seq));
+        return saved;
+    }
+
+    /**
+     * Deducts the quantity with a conditional UPDATE ({@code stock >= quantity}), so
+     * concurrent dispensing can neither lose updates nor oversell. The stock-out row
+     * is only written when the deduction succeeded, and is then drawn from the drug's
+     * lots first-expiring-first-out, and keeps the drug's price it is valued at.
+     */
+    @Transactional
+    public StockOut stockOut(Long drugId, StockOut stockOut) {
+        if (drugInfoRepository.decreaseStock(drugId, stockOut.getQuantity()) == 0) {
+            Integer stock = drugInfoRepository.findStockById(drugId);
+            if (stock == null && !drugInfoRepository.existsById(drugId)) {
+                throw new StockOperationException("无效的药品");
+            }
+            throw new StockOperationException("库存不足，当前库存为 " + (stock != null ? stock : 0));
+        }
+        stockOut.setDrug(drugInfoRepository.getReferenceById(drugId));
+        stockOut.setListPrice(drugInfoRepository.findPriceById(drugId));
+        if (stockOut.getOutTime() == null) {
+            stockOut.setOutTime(LocalDateTime.now());
+        }
+        StockOut saved = stockOutRepository.save(stockOut);
+        lotService.allocate(drugId, saved.getId(), stockOut.getQuantity());
+        stockRollupService.recordOut(drugId, stockOut.getOutTime(), stockOut.getQuantity(), stockOut.getListPrice());
+        long seq = stockJournalService.append(drugId, -stockOut.getQuantity(), StockJournalService.OUT,
+                saved.getId(), stockOut.getOutTime());
+        valuationService.recordOut(drugId, stockOut.getOutTime(), stockOut.getQuantity());
+        eventPublisher.publishEvent(new StockChangedEvent(drugId, -stockOut.getQuantity(), seq));
+        return saved;
+    }
+
+    /**
+     * Receives a whole delivery manifest: drugs and operators are resolved with one
+     * IN query each, ledger rows go through a JDBC batch insert, which hands back their
+     * ids for the journal, and the stock deltas are summed per drug before being
+     * applied. Any invalid line rolls back the lot.
+     */
+    @Transactional
+    public int stockInBatch(List<StockInLine> lines) {
+        Set<Long> drugIds = new HashSet<>();
+        Set<String> usernames = new HashSet<>();
+        for (StockInLine line : lines) {
+            drugIds.add(line.getDrugId());
+            if (line.getOperator() != null) {
+                usernames.add(line.getOperator());
+            }
+        }
+
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        for (Object[] row : drugInfoRepository.findPrices(drugIds)) {
+            prices.put((Long) row[0], (BigDecimal) row[1]);
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            StockInLine line = lines.get(i);
+            if (!prices.containsKey(line.getDrugId())) {
+                throw new StockOperationException("第 " + (i + 1) + " 行药品无效：" + line.getDrugId());
+            }
+            line.setListPrice(prices.get(line.getDrugId()));
+        }
+        Map<String, Long> operatorIds = new HashMap<>();
+        if (!usernames.isEmpty()) {
+            for (User user : userRepository.findByUsernameIn(usernames)) {
+                operatorIds.put(user.getUsername(), user.getId());
+            }
+        }
+
+        Timestamp inTime = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < lines.size(); from += JDBC_BATCH_SIZE) {
+            List<StockInLine> chunk = lines.subList(from, Math.min(from + JDBC_BATCH_SIZE, lines.size()));
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_STOCK_IN, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            StockInLine line = chunk.get(i);
+                            ps.setLong(1, line.getDrugId());
+                            ps.setInt(2, line.getQuantity());
+                            ps.setBigDecimal(3, line.getPrice());
+                            ps.setBigDecimal(4, line.getListPrice());
+                            ps.setString(5, line.getSupplier());
+                            ps.setString(6, line.getBatchNo());
+                            ps.setDate(7, line.getExpireDate() != null ? Date.valueOf(line.getExpireDate()) : null);
+                            ps.setTimestamp(8, inTime);
+                            Long operatorId = line.getOperator() != null ? operatorIds.get(line.getOperator()) : null;
+                            if (operatorId != null) {
+                                ps.setLong(9, operatorId);
+                            } else {
+                                ps.setNull(9, Types.BIGINT);
+                            }
+                            ps.setString(10, line.getRemark());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    }, keyHolder);
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            }
+        }
+
+        Map<Long, Integer> deltas = new TreeMap<>();
+        for (StockInLine line : lines) {
+            deltas.merge(line.getDrugId(), line.getQuantity(), Integer::sum);
+        }
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+            updates.add(new Object[]{entry.getValue(), entry.getKey()});
+        }
+        jdbcTemplate.batchUpdate("update drug_info set stock = coalesce(stock, 0) + ? where id = ?", updates);
+        lotService.receiveBatch(lines, JDBC_BATCH_SIZE);
+        stockRollupService.recordInBatch(lines, inTime.toLocalDateTime());
+        Map<Long, Long> seqs = stockJournalService.appendBatch(lines, inTime.toLocalDateTime());
+        valuationService.recordInBatch(lines, inTime.toLocalDateTime());
+        for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+            eventPublisher.publishEvent(new StockChangedEvent(entry.getKey(), entry.getValue(), seqs.get(entry.getKey())));
+        }
+        return lines.size();
+    }
+
+    /**
+     * Saves a drug from the edit forms. {@code stock} is a new drug's opening balance and
+     * is journalled as such; an existing drug's stock is left as it is, since a form can
+     * hold a stale value. Counted stock is corrected through {@link #adjustStock}.
+     */
+    @Transactional
+    public DrugInfo saveDrug(DrugInfo drug, Integer stock) {
+        if (drug.getId() == null) {
+            drug.setStock(stock != null ? stock : 0);
+            DrugInfo saved = drugInfoRepository.save(drug);
+            LocalDateTime now = LocalDateTime.now();
+            stockJournalService.append(saved.getId(), saved.getStock(), StockJournalService.OPENING, null, now);
+            valuationService.recordAdjust(saved.getId(), now, saved.getStock());
+            return saved;
+        }
+        DrugInfo saved = drugInfoRepository.save(drug);
+        saved.setStock(drugInfoRepository.findStockById(saved.getId()));
+        return saved;
+    }
+
+    /**
+     * Sets a drug's stock to a counted quantity, provided it is still
+     * {@code expectedStock}: the row is locked, the difference to the current stock is
+     * applied and journalled as an adjustment. A shortfall is written off the lots
+     * first-expiring-first-out, a surplus is booked like a receipt without batch number,
+     * so the lots never hold more than the drug. A stock that moved since the count was
+     * read fails with {@link StockConflictException}. Returns the difference.
+     */
+    @Transactional
+    public int adjustStock(Long drugId, int expectedStock, int stock) {
+        List<Integer> current = jdbcTemplate.queryForList(
+                "select coalesce(stock, 0) from drug_info where id = ? for update", Integer.class, drugId);
+        if (current.isEmpty()) {
+            throw new StockOperationException("无效的药品");
+        }
+        if (current.get(0) != expectedStock) {
+            throw new StockConflictException("库存已变化，当前库存为 " + current.get(0), current.get(0));
+        }
+        int delta = stock - current.get(0);
+        if (delta != 0) {
+            jdbcTemplate.update("update drug_info set stock = ? where id = ?", stock, drugId);
+            if (delta < 0) {
+                lotService.writeOff(drugId, -delta);
+            } else {
+                lotService.receive(drugId, null, null, delta);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            long seq = stockJournalService.append(drugId, delta, StockJournalService.ADJUST, null, now);
+            valuationService.recordAdjust(drugId, now, delta);
+            eventPublisher.publishEvent(new StockChangedEvent(drugId, delta, seq));
+        }
+        return delta;
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.dto.StockDelta;
+import com.example.drugmanagement.event.DrugChangedEvent;
+import com.example.drugmanagement.event.StockChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes committed stock changes to open inventory screens as {@code stock} server-sent
+ * events. Changes are summed per drug and flushed on a short interval, so a burst of
+ * dispenses on one drug becomes a single delta. Every connection coalesces on its own
+ * as well: while a send to a slow client is in flight, newer changes are merged into
+ * that connection's pending map instead of queueing, so its backlog never exceeds one
+ * entry per drug and fast clients are not held back.
+ */
+@Service
+public class InventoryStreamService {
+
+    private static final int IN_CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long heartbeatTicks;
+    private final Map<Long, Integer> changed = new ConcurrentHashMap<>();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender;
+    private long ticks;
+
+    public InventoryStreamService(JdbcTemplate jdbcTemplate,
+                                  @Value("${inventory.stream.flush-interval-ms:200}") long flushIntervalMs,
+                                  @Value("${inventory.stream.heartbeat-ms:25000}") long heartbeatMs,
+                                  @Value("${inventory.stream.sender-threads:2}") int senderThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.heartbeatTicks = Math.max(1, heartbeatMs / Math.max(1, flushIntervalMs));
+        this.sender = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread thread = new Thread(r, "sse-inventory");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter subscribe() {
+        Connection connection = new Connection(new SseEmitter());
+        connection.emitter.onCompletion(() -> connections.remove(connection));
+        connection.emitter.onTimeout(() -> connections.remove(connection));
+        connection.emitter.onError(e -> connections.remove(connection));
+        connections.add(connection);
+        return connection.emitter;
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (!connections.isEmpty()) {
+            changed.merge(event.getDrugId(), event.getDelta(), Integer::sum);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDrugChanged(DrugChangedEvent event) {
+        if (!connections.isEmpty()) {
+            changed.merge(event.getDrugId(), 0, Integer::sum);
+        }
+    }
+
+    /**
+     * Drains the changes collected since the last tick, reads the committed stock of the
+     * touched drugs with one IN query per chunk and hands the batch to every connection.
+     */
+    @Scheduled(fixedDelayString = "${inventory.stream.flush-interval-ms:200}")
+    public void flush() {
+        boolean heartbeat = ++ticks % heartbeatTicks == 0;
+        if (connections.isEmpty()) {
+            changed.clear();
+            return;
+        }
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        for (Iterator<Long> it = changed.keySet().iterator(); it.hasNext(); ) {
+            Long drugId = it.next();
+            Integer delta = changed.remove(drugId);
+            if (delta != null) {
+                deltas.put(drugId, delta);
+            }
+        }
+        List<StockDelta> batch = deltas.isEmpty() ? null : withStock(deltas);
+        for (Connection connection : connections) {
+            if (connection.offer(batch, heartbeat)) {
+                sender.execute(() -> drain(connection));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        sender.shutdownNow();
+        for (Connection connection : connections) {
+            try {
+                connection.emitter.complete();
+            } catch (Exception e) {
+                // the client is already gone
+            }
+        }
+        connections.clear();
+    }
+
+    private List<StockDelta> withStock(Map<Long, Integer> deltas) {
+        Map<Long, Integer> stock = new HashMap<>();
+        List<Long> ids = new ArrayList<>(deltas.keySet());
+        for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK, ids.size()));
+            StringBuilder in = new StringBuilder();
+            for (int i = 0; i < chunk.size(); i++) {
+                in.append(i == 0 ? "?" : ",?");
+            }
+            jdbcTemplate.query("select id, stock from drug_info where id in (" + in + ")",
+                    rs -> {
+                        stock.put(rs.getLong(1), rs.getInt(2));
+                    }, chunk.toArray());
+        }
+        List<StockDelta> batch = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+            batch.add(new StockDelta(entry.getKey(), entry.getValue(), stock.get(entry.getKey())));
+        }
+        return batch;
+    }
+
+    private void drain(Connection connection) {
+        try {
+            while (true) {
+                Connection.Pending next = connection.take();
+                if (next == null) {
+                    return;
+                }
+                if (!next.deltas.isEmpty()) {
+                    connection.emitter.send(SseEmitter.event().name("stock")
+                            .data(new ArrayList<>(next.deltas.values()), MediaType.APPLICATION_JSON));
+                } else if (next.heartbeat) {
+                    connection.emitter.send(SseEmitter.event().comment("ping"));
+                }
+            }
+        } catch (Exception e) {
+            connections.remove(connection);
+            connection.emitter.completeWithError(e);
+        }
+    }
+
+    private static final class Connection {
+
+        private final SseEmitter emitter;
+        private Map<Long, StockDelta> pending = new LinkedHashMap<>();
+        private boolean heartbeat;
+        private boolean sending;
+
+        private Connection(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Merges a batch into the pending changes; returns {@code true} when the caller
+         * must start a sender for this connection.
+         */
+        private synchronized boolean offer(List<StockDelta> batch, boolean heartbeatDue) {
+            if (batch != null) {
+                for (StockDelta delta : batch) {
+                    pending.merge(delta.getDrugId(), delta, StockDelta::merge);
+                }
+            }
+            heartbeat |= heartbeatDue;
+            if (sending || (pending.isEmpty() && !heartbeat)) {
+                return false;
+            }
+            sending = true;
+            return true;
+        }
+
+        private synchronized Pending take() {
+            if (pending.isEmpty() && !heartbeat) {
+                sending = false;
+                return null;
+            }
+            Pending next = new Pending(pending, heartbeat);
+            pending = new LinkedHashMap<>();
+            heartbeat = false;
+            return next;
+        }
+
+        private static final class Pending {
+
+            private final Map<Long, StockDelta> deltas;
+            private final boolean heartbeat;
+
+            private Pending(Map<Long, StockDelta> deltas, boolean heartbeat) {
+                this.deltas = deltas;
+                this.heartbeat = heartbeat;
+            }
+        }
+    }
+}
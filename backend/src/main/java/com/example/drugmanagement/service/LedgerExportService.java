@@ -0,0 +1,165 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.entity.StockIn;
+import com.example.drugmanagement.entity.StockOut;
+import com.example.drugmanagement.repository.StockInRepository;
+import com.example.drugmanagement.repository.StockOutRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Service
+public class LedgerExportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final int CLEAR_INTERVAL = 1000;
+
+    private static final String[] STOCK_IN_COLUMNS = {
+            "id", "drugId", "drugName", "quantity", "price", "supplier", "batchNumber", "createTime", "operator", "remark"
+    };
+
+    private static final String[] STOCK_OUT_COLUMNS = {
+            "id", "drugId", "drugName", "quantity", "reason", "createTime", "operator", "remark"
+    };
+
+    private final StockInRepository stockInRepository;
+    private final StockOutRepository stockOutRepository;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public LedgerExportService(StockInRepository stockInRepository,
+                               StockOutRepository stockOutRepository,
+                               ObjectMapper objectMapper) {
+        this.stockInRepository = stockInRepository;
+        this.stockOutRepository = stockOutRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public void exportStockIn(LocalDateTime from, LocalDateTime to, String format, OutputStream out) throws IOException {
+        try (Stream<StockIn> rows = stockInRepository.streamByInTimeRange(from, to)) {
+            write(rows, STOCK_IN_COLUMNS, s -> new Object[]{
+                    s.getId(),
+                    s.getDrug().getId(),
+                    s.getDrug().getName(),
+                    s.getQuantity(),
+                    s.getPrice() != null ? s.getPrice() : BigDecimal.ZERO,
+                    s.getSupplier(),
+                    s.getBatchNo(),
+                    s.getInTime(),
+                    s.getOperator() != null ? s.getOperator().getUsername() : null,
+                    s.getRemark()
+            }, format, out);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportStockOut(LocalDateTime from, LocalDateTime to, String format, OutputStream out) throws IOException {
+        try (Stream<StockOut> rows = stockOutRepository.streamByOutTimeRange(from, to)) {
+            write(rows, STOCK_OUT_COLUMNS, s -> new Object[]{
+                    s.getId(),
+                    s.getDrug().getId(),
+                    s.getDrug().getName(),
+                    s.getQuantity(),
+                    s.getReason(),
+                    s.getOutTime(),
+                    s.getOperator() != null ? s.getOperator().getUsername() : null,
+                    s.getRemark()
+            }, format, out);
+        }
+    }
+
+    private <T> void write(Stream<T> rows, String[] columns, Function<T, Object[]> mapper,
+                           String format, OutputStream out) throws IOException {
+        if (FORMAT_NDJSON.equals(format)) {
+            writeNdjson(rows.iterator(), columns, mapper, out);
+        } else {
+            writeCsv(rows.iterator(), columns, mapper, out);
+        }
+    }
+
+    private <T> void writeCsv(Iterator<T> rows, String[] columns, Function<T, Object[]> mapper,
+                              OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write('\uFEFF');
+        writeCsvLine(writer, columns);
+        int count = 0;
+        while (rows.hasNext()) {
+            T row = rows.next();
+            writeCsvLine(writer, mapper.apply(row));
+            if (++count % CLEAR_INTERVAL == 0) {
+                entityManager.clear();
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private <T> void writeNdjson(Iterator<T> rows, String[] columns, Function<T, Object[]> mapper,
+                                 OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        generator.setRootValueSeparator(null);
+        int count = 0;
+        while (rows.hasNext()) {
+            T row = rows.next();
+            Object[] values = mapper.apply(row);
+            generator.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                Object value = values[i];
+                if (value instanceof LocalDateTime) {
+                    value = value.toString();
+                }
+                generator.writeFieldName(columns[i]);
+                generator.writeObject(value);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            if (++count % CLEAR_INTERVAL == 0) {
+                entityManager.clear();
+                generator.flush();
+            }
+        }
+        generator.close();
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.event.LotChangedEvent;
+import com.example.drugmanagement.event.LotChangedEvent.LotState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lot-level stock. Every method runs inside the caller's stock transaction, after the
+ * drug row has been updated, so the drug row lock serializes all lot writes of a drug.
+ * Stock that was never received through a lot (opening stock) is untracked and only
+ * dispensed once the drug's open lots are used up.
+ */
+@Service
+public class LotService {
+
+    private static final String NO_BATCH = "";
+
+    private static final RowMapper<LotState> LOT_STATE = (rs, i) -> new LotState(rs.getLong(1), rs.getString(2),
+            rs.getDate(3) != null ? rs.getDate(3).toLocalDate() : null, rs.getInt(4));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OpenLotIndex openLotIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LotService(JdbcTemplate jdbcTemplate,
+                      OpenLotIndex openLotIndex,
+                      ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.openLotIndex = openLotIndex;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Adds received stock to the drug's lot with the given batch number, creating the
+     * lot on first receipt. A lot without its own expiry date takes the drug's.
+     */
+    public void receive(Long drugId, String batchNo, LocalDate expireDate, int quantity) {
+        String batch = normalize(batchNo);
+        SqlParameterValue expire = date(expireDate);
+        int updated = jdbcTemplate.update("update drug_lot set quantity = quantity + ?, "
+                + "expire_date = coalesce(?, expire_date) where drug_id = ? and batch_no = ?",
+                quantity, expire, drugId, batch);
+        if (updated == 0) {
+            jdbcTemplate.update("insert into drug_lot (drug_id, batch_no, expire_date, quantity, create_time) "
+                    + "select id, ?, coalesce(?, expire_date), ?, ? from drug_info where id = ?",
+                    batch, expire, quantity, Timestamp.valueOf(LocalDateTime.now()), drugId);
+        }
+        List<LotState> lots = jdbcTemplate.query(
+                "select id, batch_no, expire_date, quantity from drug_lot where drug_id = ? and batch_no = ?",
+                LOT_STATE, drugId, batch);
+        eventPublisher.publishEvent(new LotChangedEvent(drugId, lots));
+    }
+
+    /**
+     * Lot side of a batched stock-in: quantities are summed per drug and batch, existing
+     * lots are found with one query and updated and created with one JDBC batch each.
+     */
+    public void receiveBatch(List<StockInLine> lines, int batchSize) {
+        Map<LotKey, LotReceipt> receipts = new LinkedHashMap<>();
+        for (StockInLine line : lines) {
+            LotReceipt receipt = receipts.computeIfAbsent(
+                    new LotKey(line.getDrugId(), normalize(line.getBatchNo())), k -> new LotReceipt());
+            receipt.quantity += line.getQuantity();
+            if (line.getExpireDate() != null) {
+                receipt.expireDate = line.getExpireDate();
+            }
+        }
+        Set<Long> drugIds = new HashSet<>();
+        for (LotKey key : receipts.keySet()) {
+            drugIds.add(key.drugId);
+        }
+        List<Long> drugIdList = new ArrayList<>(drugIds);
+        String in = placeholders(drugIdList.size());
+
+        Set<LotKey> existing = new HashSet<>();
+        jdbcTemplate.query("select drug_id, batch_no from drug_lot where drug_id in (" + in + ")",
+                rs -> {
+                    existing.add(new LotKey(rs.getLong(1), rs.getString(2)));
+                }, drugIdList.toArray());
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Map.Entry<LotKey, LotReceipt> entry : receipts.entrySet()) {
+            LotKey key = entry.getKey();
+            LotReceipt receipt = entry.getValue();
+            if (existing.contains(key)) {
+                updates.add(new Object[]{receipt.quantity, date(receipt.expireDate), key.drugId, key.batchNo});
+            } else {
+                inserts.add(new Object[]{key.batchNo, date(receipt.expireDate), receipt.quantity, now, key.drugId});
+            }
+        }
+        batchUpdate("update drug_lot set quantity = quantity + ?, expire_date = coalesce(?, expire_date) "
+                + "where drug_id = ? and batch_no = ?", updates, batchSize);
+        batchUpdate("insert into drug_lot (drug_id, batch_no, expire_date, quantity, create_time) "
+                + "select id, ?, coalesce(?, expire_date), ?, ? from drug_info where id = ?", inserts, batchSize);
+
+        Map<Long, List<LotState>> byDrug = new HashMap<>();
+        jdbcTemplate.query("select id, batch_no, expire_date, quantity, drug_id from drug_lot "
+                + "where drug_id in (" + in + ")", rs -> {
+                    byDrug.computeIfAbsent(rs.getLong(5), k -> new ArrayList<>()).add(LOT_STATE.mapRow(rs, 0));
+                }, drugIdList.toArray());
+        for (Map.Entry<Long, List<LotState>> entry : byDrug.entrySet()) {
+            eventPublisher.publishEvent(new LotChangedEvent(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    /**
+     * Draws a dispensed quantity from the drug's open lots, first-expiring-first-out, and
+     * links the lots drawn from to the stock-out row with one JDBC batch. Any quantity
+     * the lots cannot cover comes from untracked stock.
+     */
+    public void allocate(Long drugId, Long stockOutId, int quantity) {
+        List<Object[]> allocations = new ArrayList<>();
+        for (LotState taken : draw(drugId, quantity)) {
+            allocations.add(new Object[]{stockOutId, taken.getLotId(), taken.getQuantity()});
+        }
+        if (!allocations.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into stock_out_lot (stock_out_id, lot_id, quantity) values (?, ?, ?)",
+                    allocations);
+        }
+    }
+
+    /**
+     * Writes a counted shortfall off the drug's open lots, first-expiring-first-out like a
+     * dispense but without a stock-out row; what the lots cannot cover comes off untracked
+     * stock. A counted surplus goes to {@link #receive} instead.
+     */
+    public void writeOff(Long drugId, int quantity) {
+        draw(drugId, quantity);
+    }
+
+    /**
+     * Decrements the drug's open lots by up to {@code quantity}, earliest expiry first,
+     * and returns how much was taken from each lot. The lots are picked from
+     * {@link OpenLotIndex}, locked and re-read with one query, then decremented with one
+     * JDBC batch. If the re-read disagrees with the index, the drug's open lots are read
+     * from the database instead.
+     */
+    private List<LotState> draw(Long drugId, int quantity) {
+        List<LotState> candidates = openLotIndex.candidates(drugId, quantity);
+        List<LotState> lots = Collections.emptyList();
+        boolean stale = false;
+        if (!candidates.isEmpty()) {
+            List<Object> args = new ArrayList<>(candidates.size() + 1);
+            args.add(drugId);
+            for (LotState candidate : candidates) {
+                args.add(candidate.getLotId());
+            }
+            lots = jdbcTemplate.query("select id, batch_no, expire_date, quantity from drug_lot where drug_id = ? "
+                    + "and id in (" + placeholders(candidates.size()) + ") for update", LOT_STATE, args.toArray());
+            stale = !sameQuantities(candidates, lots);
+        }
+        if (stale) {
+            lots = jdbcTemplate.query("select id, batch_no, expire_date, quantity from drug_lot "
+                    + "where drug_id = ? and quantity > 0 for update", LOT_STATE, drugId);
+        }
+        lots = new ArrayList<>(lots);
+        lots.sort(OpenLotIndex.FEFO);
+
+        List<Object[]> decrements = new ArrayList<>();
+        List<LotState> taken = new ArrayList<>();
+        List<LotState> changed = new ArrayList<>();
+        int remaining = quantity;
+        for (LotState lot : lots) {
+            if (remaining == 0) {
+                break;
+            }
+            int take = Math.min(remaining, lot.getQuantity());
+            if (take <= 0) {
+                continue;
+            }
+            remaining -= take;
+            decrements.add(new Object[]{take, lot.getLotId()});
+            taken.add(new LotState(lot.getLotId(), lot.getBatchNo(), lot.getExpireDate(), take));
+            changed.add(new LotState(lot.getLotId(), lot.getBatchNo(), lot.getExpireDate(), lot.getQuantity() - take));
+        }
+        if (!decrements.isEmpty()) {
+            jdbcTemplate.batchUpdate("update drug_lot set quantity = quantity - ? where id = ?", decrements);
+        }
+        if (stale) {
+            eventPublisher.publishEvent(LotChangedEvent.reload(drugId));
+        } else if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(new LotChangedEvent(drugId, changed));
+        }
+        return taken;
+    }
+
+    private void batchUpdate(String sql, List<Object[]> rows, int batchSize) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+    }
+
+    private static boolean sameQuantities(List<LotState> expected, List<LotState> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (LotState lot : actual) {
+            quantities.put(lot.getLotId(), lot.getQuantity());
+        }
+        for (LotState lot : expected) {
+            Integer quantity = quantities.get(lot.getLotId());
+            if (quantity == null || quantity != lot.getQuantity()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ",?");
+        }
+        return sb.toString();
+    }
+
+    private static String normalize(String batchNo) {
+        return batchNo != null ? batchNo.trim() : NO_BATCH;
+    }
+
+    private static SqlParameterValue date(LocalDate date) {
+        return new SqlParameterValue(Types.DATE, date != null ? Date.valueOf(date) : null);
+    }
+
+    private static final class LotKey {
+
+        private final long drugId;
+        private final String batchNo;
+
+        private LotKey(long drugId, String batchNo) {
+            this.drugId = drugId;
+            this.batchNo = batchNo;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LotKey)) {
+                return false;
+            }
+            LotKey other = (LotKey) o;
+            return drugId == other.drugId && batchNo.equals(other.batchNo);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(drugId) + batchNo.hashCode();
+        }
+    }
+
+    private static final class LotReceipt {
+
+        private int quantity;
+        private LocalDate expireDate;
+    }
+}
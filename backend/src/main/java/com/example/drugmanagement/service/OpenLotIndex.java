@@ -0,0 +1,192 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.event.DataReloadedEvent;
+import com.example.drugmanagement.event.DrugChangedEvent;
+import com.example.drugmanagement.event.LotChangedEvent;
+import com.example.drugmanagement.event.LotChangedEvent.LotState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Open lots (quantity > 0) of every drug, ordered first-expiring-first-out. Lot changes
+ * are applied before the writing transaction commits, i.e. while it still holds the drug
+ * row lock, so the next dispense of that drug already sees them; a rolled back write
+ * re-reads the drug's lots. A rebuild loads a new map on the side, replays the changes
+ * made while it was loading and then swaps it in, so readers never see a partial index.
+ */
+@Service
+public class OpenLotIndex {
+
+    static final Comparator<LotState> FEFO = Comparator
+            .comparing(LotState::getExpireDate, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingLong(LotState::getLotId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Map<Long, DrugLots> drugs = new ConcurrentHashMap<>();
+    private Queue<Consumer<Map<Long, DrugLots>>> pending;
+
+    public OpenLotIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Lots to draw from, earliest expiry first, up to the first one that brings the
+     * running total to {@code quantity}. Fewer lots come back when the open lots of the
+     * drug do not cover the quantity.
+     */
+    public List<LotState> candidates(Long drugId, int quantity) {
+        DrugLots lots = drugs.get(drugId);
+        if (lots == null) {
+            return Collections.emptyList();
+        }
+        synchronized (lots) {
+            List<LotState> result = new ArrayList<>();
+            int covered = 0;
+            for (LotState lot : lots.fefo) {
+                result.add(lot);
+                covered += lot.getQuantity();
+                if (covered >= quantity) {
+                    break;
+                }
+            }
+            return result;
+        }
+    }
+
+    @EventListener({ApplicationReadyEvent.class, DataReloadedEvent.class})
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            Queue<Consumer<Map<Long, DrugLots>>> changes = new ConcurrentLinkedQueue<>();
+            swapLock.writeLock().lock();
+            try {
+                pending = changes;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            Map<Long, DrugLots> loaded = new ConcurrentHashMap<>();
+            boolean complete = false;
+            try {
+                jdbcTemplate.query("select id, drug_id, batch_no, expire_date, quantity from drug_lot "
+                        + "where quantity > 0", rs -> {
+                            loaded.computeIfAbsent(rs.getLong(2), k -> new DrugLots()).put(new LotState(
+                                    rs.getLong(1), rs.getString(3), toLocalDate(rs.getDate(4)), rs.getInt(5)));
+                        });
+                complete = true;
+            } finally {
+                // Changes made while loading are replayed in order; one the load already saw
+                // sets the same lot state again.
+                swapLock.writeLock().lock();
+                try {
+                    if (complete) {
+                        for (Consumer<Map<Long, DrugLots>> change : changes) {
+                            change.accept(loaded);
+                        }
+                        drugs = loaded;
+                    }
+                    pending = null;
+                } finally {
+                    swapLock.writeLock().unlock();
+                }
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onLotChanged(LotChangedEvent event) {
+        if (event.isReload()) {
+            reload(event.getDrugId());
+            return;
+        }
+        change(map -> {
+            DrugLots lots = map.computeIfAbsent(event.getDrugId(), k -> new DrugLots());
+            synchronized (lots) {
+                for (LotState lot : event.getLots()) {
+                    lots.put(lot);
+                }
+            }
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onLotChangeRolledBack(LotChangedEvent event) {
+        reload(event.getDrugId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDrugChanged(DrugChangedEvent event) {
+        if (event.isDeleted()) {
+            change(map -> map.remove(event.getDrugId()));
+        }
+    }
+
+    /**
+     * Applies a change to the index, and records it for a rebuild that is loading.
+     */
+    private void change(Consumer<Map<Long, DrugLots>> change) {
+        swapLock.readLock().lock();
+        try {
+            change.accept(drugs);
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void reload(Long drugId) {
+        DrugLots lots = new DrugLots();
+        jdbcTemplate.query("select id, batch_no, expire_date, quantity from drug_lot "
+                + "where drug_id = ? and quantity > 0", rs -> {
+                    lots.put(new LotState(rs.getLong(1), rs.getString(2), toLocalDate(rs.getDate(3)), rs.getInt(4)));
+                }, drugId);
+        change(map -> map.put(drugId, lots));
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+
+    private static final class DrugLots {
+
+        private final TreeSet<LotState> fefo = new TreeSet<>(FEFO);
+        private final Map<Long, LotState> byId = new HashMap<>();
+
+        private void put(LotState lot) {
+            LotState previous = byId.remove(lot.getLotId());
+            if (previous != null) {
+                fefo.remove(previous);
+            }
+            if (lot.getQuantity() > 0) {
+                byId.put(lot.getLotId(), lot);
+                fefo.add(lot);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.drugmanagement.service;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class Pinyin {
+
+    private static final HanyuPinyinOutputFormat FORMAT = new HanyuPinyinOutputFormat();
+    private static final Map<Character, String> CACHE = new ConcurrentHashMap<>();
+
+    static {
+        FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+    }
+
+    private Pinyin() {
+    }
+
+    static boolean isCjk(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+
+    /**
+     * Returns {full, initials} for the text, e.g. 阿莫西林 -> {"amoxilin", "amxl"}.
+     * Letters and digits are kept as-is; polyphonic characters use their first reading.
+     */
+    static String[] convert(String text) {
+        StringBuilder full = new StringBuilder();
+        StringBuilder initials = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (isCjk(c)) {
+                String syllable = syllable(c);
+                if (!syllable.isEmpty()) {
+                    full.append(syllable);
+                    initials.append(syllable.charAt(0));
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                full.append(c);
+                initials.append(c);
+            }
+        }
+        return new String[]{full.toString(), initials.toString()};
+    }
+
+    private static String syllable(char c) {
+        return CACHE.computeIfAbsent(c, key -> {
+            try {
+                String[] readings = PinyinHelper.toHanyuPinyinStringArray(key, FORMAT);
+                return readings != null && readings.length > 0 ? readings[0] : "";
+            } catch (BadHanyuPinyinOutputFormatCombination e) {
+                return "";
+            }
+        });
+    }
+}
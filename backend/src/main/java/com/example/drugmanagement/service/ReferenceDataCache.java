@@ -0,0 +1,132 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.dto.DrugView;
+import com.example.drugmanagement.entity.DrugCategory;
+import com.example.drugmanagement.entity.User;
+import com.example.drugmanagement.event.CategoryChangedEvent;
+import com.example.drugmanagement.event.DataReloadedEvent;
+import com.example.drugmanagement.event.DrugChangedEvent;
+import com.example.drugmanagement.event.StockChangedEvent;
+import com.example.drugmanagement.repository.DrugCategoryRepository;
+import com.example.drugmanagement.repository.DrugInfoRepository;
+import com.example.drugmanagement.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cached lookups for rarely-changing reference data. Entries are evicted after the
+ * transaction that changed them commits, so a concurrent reader cannot re-populate the
+ * cache with the pre-commit row. Cached entities are shared and must not be modified;
+ * code that edits a row loads it from its repository instead.
+ */
+@Service
+public class ReferenceDataCache {
+
+    public static final String CATEGORY_LIST = "categoryList";
+    public static final String CATEGORIES = "categories";
+    public static final String DRUGS = "drugs";
+    public static final String USERS = "users";
+
+    private static final String[] CACHE_NAMES = {CATEGORY_LIST, CATEGORIES, DRUGS, USERS};
+
+    private final DrugCategoryRepository categoryRepository;
+    private final DrugInfoRepository drugInfoRepository;
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+
+    public ReferenceDataCache(DrugCategoryRepository categoryRepository,
+                              DrugInfoRepository drugInfoRepository,
+                              UserRepository userRepository,
+                              CacheManager cacheManager) {
+        this.categoryRepository = categoryRepository;
+        this.drugInfoRepository = drugInfoRepository;
+        this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    @Cacheable(cacheNames = CATEGORY_LIST, key = "'all'")
+    public List<DrugCategory> listCategories() {
+        return categoryRepository.findAll();
+    }
+
+    @Cacheable(cacheNames = CATEGORIES, key = "#id", unless = "#result == null")
+    public DrugCategory findCategory(Long id) {
+        return categoryRepository.findById(id).orElse(null);
+    }
+
+    @Cacheable(cacheNames = DRUGS, key = "#id", unless = "#result == null")
+    public DrugView findDrug(Long id) {
+        return drugInfoRepository.findViewById(id);
+    }
+
+    @Cacheable(cacheNames = USERS, key = "#username", unless = "#result == null")
+    public User findUser(String username) {
+        return userRepository.findByUsername(username);
+    }
+
+    public void evictUser(String username) {
+        cache(USERS).evict(username);
+    }
+
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (String name : CACHE_NAMES) {
+            Cache cache = cache(name);
+            if (!(cache instanceof CaffeineCache)) {
+                continue;
+            }
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+            CacheStats stats = nativeCache.stats();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("size", nativeCache.estimatedSize());
+            entry.put("hitCount", stats.hitCount());
+            entry.put("missCount", stats.missCount());
+            entry.put("hitRate", stats.hitRate());
+            entry.put("evictionCount", stats.evictionCount());
+            result.put(name, entry);
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        cache(CATEGORY_LIST).clear();
+        cache(CATEGORIES).evict(event.getCategoryId());
+        cache(DRUGS).clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDrugChanged(DrugChangedEvent event) {
+        cache(DRUGS).evict(event.getDrugId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        cache(DRUGS).evict(event.getDrugId());
+    }
+
+    @EventListener(DataReloadedEvent.class)
+    public void onDataReloaded() {
+        for (String name : CACHE_NAMES) {
+            cache(name).clear();
+        }
+    }
+
+    private Cache cache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("Cache not configured: " + name);
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.drugmanagement.service;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fan-out of one named server-sent event to every open connection. Sends run on a
+ * single background thread, so the committing request never waits on a slow client;
+ * a connection whose send fails is dropped and the browser's EventSource reconnects.
+ */
+public class SseBroadcaster {
+
+    private final String eventName;
+    private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender;
+
+    public SseBroadcaster(String eventName) {
+        this.eventName = eventName;
+        this.sender = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "sse-" + eventName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter();
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    public void broadcast(Object data) {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        sender.execute(() -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().name(eventName).data(data, MediaType.APPLICATION_JSON));
+                } catch (Exception e) {
+                    emitters.remove(emitter);
+                }
+            }
+        });
+    }
+
+    public int size() {
+        return emitters.size();
+    }
+
+    public void close() {
+        sender.shutdownNow();
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.complete();
+            } catch (Exception e) {
+                // the client is already gone
+            }
+        }
+        emitters.clear();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.drugmanagement.service;
+
+/**
+ * A stock correction based on a stock that has changed since it was read.
+ */
+public class StockConflictException extends StockOperationException {
+
+    private final int currentStock;
+
+    public StockConflictException(String message, int currentStock) {
+        super(message);
+        this.currentStock = currentStock;
+    }
+
+    public int getCurrentStock() {
+        return currentStock;
+    }
+}
@@ -0,0 +1,449 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.dto.JournalStock;
+import com.example.drugmanagement.dto.StockMismatch;
+import com.example.drugmanagement.dto.StockReconciliation;
+import com.example.drugmanagement.event.DataReloadedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Append-only journal of stock changes. Every write path that changes
+ * {@code drug_info.stock} appends the delta in the same transaction after updating the
+ * drug row, so a drug's journal rows are written under its row lock and their sequence
+ * numbers follow commit order; locking a range of drug rows waits for every in-flight
+ * journal write of those drugs.
+ *
+ * <p>A nightly run snapshots, under those locks, the journal balance of every drug
+ * changed since its last snapshot. A drug's stock is then replayed from its newest
+ * snapshot plus the rows after it, and its stock at an earlier time from the last
+ * snapshot before that time plus the rows up to the next one, so both read a short tail
+ * through the {@code (drug_id, seq)} index. The reconciliation compares every stock
+ * counter with the journal in parallel drug id ranges.
+ */
+@Service
+public class StockJournalService {
+
+    public static final String OPENING = "OPENING";
+    public static final String IN = "IN";
+    public static final String OUT = "OUT";
+    public static final String ADJUST = "ADJUST";
+
+    private static final Logger log = LoggerFactory.getLogger(StockJournalService.class);
+
+    private static final int MAX_REPORTED_MISMATCHES = 100;
+
+    private static final String INSERT = "insert into stock_journal (drug_id, delta, event_type, ref_id, event_time) "
+            + "values (?, ?, ?, ?, ?)";
+
+    private static final String LATEST_SNAPSHOTS = "select s.drug_id, s.seq, s.stock, s.snapshot_time "
+            + "from stock_snapshot s join (select drug_id, max(seq) seq from stock_snapshot "
+            + "where drug_id between ? and ? group by drug_id) m on m.drug_id = s.drug_id and m.seq = s.seq";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final int chunkSize;
+    private final int threads;
+    private final int batchSize;
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    private volatile StockReconciliation lastReconciliation;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public StockJournalService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${journal.chunk-size:5000}") int chunkSize,
+                               @Value("${journal.threads:4}") int threads,
+                               @Value("${seed.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.threads = Math.max(1, threads);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Records a stock change; must run in the transaction that changed the counter,
+     * after the drug row was updated or locked. Returns the row's sequence number.
+     */
+    public long append(Long drugId, int delta, String type, Long refId, LocalDateTime time) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT, new String[]{"seq"});
+            ps.setLong(1, drugId);
+            ps.setInt(2, delta);
+            ps.setString(3, type);
+            ps.setObject(4, refId, Types.BIGINT);
+            ps.setTimestamp(5, Timestamp.valueOf(time));
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    /**
+     * Journal side of a batched stock-in, one row per manifest line referencing its
+     * stock-in row. Returns the last sequence number written per drug.
+     */
+    public Map<Long, Long> appendBatch(List<StockInLine> lines, LocalDateTime time) {
+        Timestamp eventTime = Timestamp.valueOf(time);
+        Map<Long, Long> seqs = new HashMap<>();
+        for (int from = 0; from < lines.size(); from += batchSize) {
+            List<StockInLine> chunk = lines.subList(from, Math.min(from + batchSize, lines.size()));
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT, new String[]{"seq"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            ps.setLong(1, chunk.get(i).getDrugId());
+                            ps.setInt(2, chunk.get(i).getQuantity());
+                            ps.setString(3, IN);
+                            ps.setObject(4, chunk.get(i).getId(), Types.BIGINT);
+                            ps.setTimestamp(5, eventTime);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    }, keyHolder);
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < chunk.size(); i++) {
+                long seq = ((Number) keys.get(i).values().iterator().next()).longValue();
+                seqs.merge(chunk.get(i).getDrugId(), seq, Math::max);
+            }
+        }
+        return seqs;
+    }
+
+    /**
+     * Bulk loads write stock directly, so drugs without journal rows get their current
+     * stock as opening balance. Runs before the other reload listeners, as the valuation
+     * rebuild replays these balances.
+     */
+    @EventListener(DataReloadedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onDataReloaded() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int opened = 0;
+        for (long[] range : ranges()) {
+            opened += transactionTemplate.execute(status -> {
+                lock(range);
+                return jdbcTemplate.update("insert into stock_journal (drug_id, delta, event_type, event_time) "
+                        + "select d.id, coalesce(d.stock, 0), ?, ? from drug_info d where d.id between ? and ? "
+                        + "and not exists (select 1 from stock_journal j where j.drug_id = d.id) order by d.id",
+                        OPENING, now, range[0], range[1]);
+            });
+        }
+        if (opened > 0) {
+            log.info("Opened the stock journal of {} drugs", opened);
+        }
+    }
+
+    /**
+     * Current stock replayed from the newest snapshot and the rows after it, or
+     * {@code null} when the drug has no journal rows.
+     */
+    public JournalStock replay(Long drugId) {
+        Balance balance = balances(drugId, drugId, watermark()).get(drugId);
+        return balance != null ? balance.toJournalStock(drugId, LocalDateTime.now()) : null;
+    }
+
+    /**
+     * Stock at {@code at} from the last snapshot taken by then and the rows up to the
+     * next snapshot, or {@code null} when the drug's journal starts later.
+     */
+    public JournalStock stockAt(Long drugId, LocalDateTime at) {
+        Timestamp time = Timestamp.valueOf(at);
+        List<Balance> before = jdbcTemplate.query("select seq, stock, snapshot_time from stock_snapshot "
+                + "where drug_id = ? and snapshot_time <= ? order by snapshot_time desc, seq desc limit 1",
+                (rs, i) -> new Balance(rs.getLong(1), rs.getInt(2), rs.getTimestamp(3).toLocalDateTime()),
+                drugId, time);
+        List<Long> after = jdbcTemplate.queryForList("select seq from stock_snapshot "
+                + "where drug_id = ? and snapshot_time > ? order by snapshot_time, seq limit 1", Long.class,
+                drugId, time);
+        Balance balance = before.isEmpty() ? new Balance(0, 0, null) : before.get(0);
+        jdbcTemplate.query("select seq, delta from stock_journal where drug_id = ? and seq > ? and seq <= ? "
+                + "and event_time <= ?", rs -> {
+            balance.add(rs.getLong(1), rs.getInt(2));
+        }, drugId, balance.snapshotSeq, after.isEmpty() ? Long.MAX_VALUE : after.get(0), time);
+        if (before.isEmpty() && balance.tailEvents == 0) {
+            return null;
+        }
+        return balance.toJournalStock(drugId, at);
+    }
+
+    /**
+     * Snapshots every drug with journal rows after its newest snapshot, in parallel
+     * drug id ranges that are each locked for their transaction.
+     */
+    @Scheduled(cron = "${journal.snapshot-cron:0 0 1 * * *}")
+    public void snapshot() {
+        lock.lock();
+        try {
+            try {
+                long started = System.currentTimeMillis();
+                long watermark = watermark();
+                long runWatermark = jdbcTemplate.queryForObject("select coalesce(max(seq), 0) from stock_journal",
+                        Long.class);
+                List<Integer> written = inParallel(ranges(), range -> transactionTemplate.execute(status -> {
+                    List<Long> drugIds = lock(range);
+                    Map<Long, Balance> balances = balances(range[0], range[1], watermark);
+                    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                    List<Object[]> rows = new ArrayList<>();
+                    for (Long drugId : drugIds) {
+                        Balance balance = balances.get(drugId);
+                        if (balance != null && balance.tailEvents > 0) {
+                            rows.add(new Object[]{drugId, balance.seq, balance.stock, now});
+                        }
+                    }
+                    batchUpdate("insert into stock_snapshot (drug_id, seq, stock, snapshot_time) values (?, ?, ?, ?)",
+                            rows);
+                    return rows.size();
+                }));
+                int snapshots = 0;
+                for (int count : written) {
+                    snapshots += count;
+                }
+                jdbcTemplate.update("insert into stock_snapshot_run (watermark, run_time, snapshots) values (?, ?, ?)",
+                        runWatermark, Timestamp.valueOf(LocalDateTime.now()), snapshots);
+                log.info("Took {} stock snapshots in {} ms", snapshots, System.currentTimeMillis() - started);
+            } catch (RuntimeException e) {
+                log.error("Taking stock snapshots failed", e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public StockReconciliation getLastReconciliation() {
+        return lastReconciliation;
+    }
+
+    public boolean isReconciling() {
+        return reconciling.get();
+    }
+
+    /**
+     * Starts a reconciliation on a background thread; returns {@code false} when one
+     * is already running.
+     */
+    public boolean reconcileAsync() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(this::reconcile, "stock-reconcile");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Compares every drug's stock counter with its journal balance, one read-only
+     * transaction per drug id range. Drugs that differ are checked again with their row
+     * locked, so a stock write committing between the two reads is not reported.
+     */
+    @Scheduled(cron = "${journal.reconcile-cron:0 30 1 * * *}")
+    public void reconcile() {
+        lock.lock();
+        try {
+            reconciling.set(true);
+            try {
+                long started = System.currentTimeMillis();
+                long watermark = watermark();
+                List<Comparison> chunks = inParallel(ranges(), range -> readOnlyTransactionTemplate.execute(
+                        status -> compare(range[0], range[1], watermark, false)));
+                long checked = 0;
+                List<StockMismatch> mismatches = new ArrayList<>();
+                for (Comparison chunk : chunks) {
+                    checked += chunk.drugs;
+                    for (StockMismatch suspect : chunk.mismatches) {
+                        Long drugId = suspect.getDrugId();
+                        mismatches.addAll(transactionTemplate.execute(
+                                status -> compare(drugId, drugId, watermark, true)).mismatches);
+                    }
+                }
+                mismatches.sort(Comparator.comparing(StockMismatch::getDrugId));
+                lastReconciliation = new StockReconciliation(LocalDateTime.now(), System.currentTimeMillis() - started,
+                        checked, mismatches.size(), Collections.unmodifiableList(new ArrayList<>(
+                                mismatches.subList(0, Math.min(mismatches.size(), MAX_REPORTED_MISMATCHES)))));
+                if (mismatches.isEmpty()) {
+                    log.info("Reconciled the stock of {} drugs with the journal in {} ms", checked,
+                            lastReconciliation.getDurationMs());
+                } else {
+                    log.warn("Stock of {} of {} drugs differs from the journal, first: drug {}", mismatches.size(),
+                            checked, mismatches.get(0).getDrugId());
+                }
+            } catch (RuntimeException e) {
+                log.error("Reconciling stock with the journal failed", e);
+            } finally {
+                reconciling.set(false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Comparison compare(long from, long to, long watermark, boolean lock) {
+        Map<Long, Integer> counters = new LinkedHashMap<>();
+        jdbcTemplate.query("select id, coalesce(stock, 0) from drug_info where id between ? and ? order by id"
+                + (lock ? " for update" : ""), rs -> {
+            counters.put(rs.getLong(1), rs.getInt(2));
+        }, from, to);
+        Map<Long, Balance> balances = balances(from, to, watermark);
+        List<StockMismatch> mismatches = new ArrayList<>();
+        for (Map.Entry<Long, Integer> counter : counters.entrySet()) {
+            Balance balance = balances.get(counter.getKey());
+            if (balance == null || balance.stock != counter.getValue()) {
+                mismatches.add(new StockMismatch(counter.getKey(), counter.getValue(),
+                        balance != null ? balance.stock : null));
+            }
+        }
+        return new Comparison(counters.size(), mismatches);
+    }
+
+    /**
+     * Journal balances of the drugs in an id range: each drug's newest snapshot plus
+     * its rows after that. Rows up to {@code watermark} are covered by the snapshots
+     * of the last completed run, so only later rows are read.
+     */
+    private Map<Long, Balance> balances(long from, long to, long watermark) {
+        Map<Long, Balance> balances = new HashMap<>();
+        jdbcTemplate.query(LATEST_SNAPSHOTS, rs -> {
+            balances.put(rs.getLong(1), new Balance(rs.getLong(2), rs.getInt(3),
+                    rs.getTimestamp(4).toLocalDateTime()));
+        }, from, to);
+        jdbcTemplate.query("select drug_id, seq, delta from stock_journal where drug_id between ? and ? and seq > ?",
+                rs -> {
+                    Balance balance = balances.computeIfAbsent(rs.getLong(1), k -> new Balance(0, 0, null));
+                    long seq = rs.getLong(2);
+                    if (seq > balance.snapshotSeq) {
+                        balance.add(seq, rs.getInt(3));
+                    }
+                }, from, to, watermark);
+        return balances;
+    }
+
+    private long watermark() {
+        return jdbcTemplate.queryForObject("select coalesce(max(watermark), 0) from stock_snapshot_run", Long.class);
+    }
+
+    private List<Long> lock(long[] range) {
+        return jdbcTemplate.queryForList("select id from drug_info where id between ? and ? order by id for update",
+                Long.class, range[0], range[1]);
+    }
+
+    private List<long[]> ranges() {
+        Long[] bounds = jdbcTemplate.queryForObject("select min(id), max(id) from drug_info",
+                (rs, i) -> new Long[]{(Long) rs.getObject(1), (Long) rs.getObject(2)});
+        List<long[]> ranges = new ArrayList<>();
+        if (bounds[0] != null) {
+            for (long from = bounds[0]; from <= bounds[1]; from += chunkSize) {
+                ranges.add(new long[]{from, from + chunkSize - 1});
+            }
+        }
+        return ranges;
+    }
+
+    private <T> List<T> inParallel(List<long[]> ranges, Function<long[], T> task) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "stock-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<T>> futures = new ArrayList<>(ranges.size());
+            for (long[] range : ranges) {
+                futures.add(pool.submit(() -> task.apply(range)));
+            }
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Stock journal task interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Stock journal task failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void batchUpdate(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+    }
+
+    private static final class Balance {
+
+        private final long snapshotSeq;
+        private final LocalDateTime snapshotTime;
+        private long seq;
+        private int stock;
+        private int tailEvents;
+
+        private Balance(long snapshotSeq, int stock, LocalDateTime snapshotTime) {
+            this.snapshotSeq = snapshotSeq;
+            this.snapshotTime = snapshotTime;
+            this.seq = snapshotSeq;
+            this.stock = stock;
+        }
+
+        private void add(long seq, int delta) {
+            this.seq = Math.max(this.seq, seq);
+            this.stock += delta;
+            this.tailEvents++;
+        }
+
+        private JournalStock toJournalStock(Long drugId, LocalDateTime at) {
+            return new JournalStock(drugId, at, stock, snapshotSeq, snapshotTime, tailEvents);
+        }
+    }
+
+    private static final class Comparison {
+
+        private final int drugs;
+        private final List<StockMismatch> mismatches;
+
+        private Comparison(int drugs, List<StockMismatch> mismatches) {
+            this.drugs = drugs;
+            this.mismatches = mismatches;
+        }
+    }
+}
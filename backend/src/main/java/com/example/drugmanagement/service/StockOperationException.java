@@ -0,0 +1,8 @@
+package com.example.drugmanagement.service;
+
+public class StockOperationException extends RuntimeException {
+
+    public StockOperationException(String message) {
+        super(message);
+    }
+}
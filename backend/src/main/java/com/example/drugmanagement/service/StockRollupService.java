@@ -0,0 +1,311 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.event.DataReloadedEvent;
+import com.example.drugmanagement.event.RollupsRebuiltEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Daily stock movement rollups. {@code stock_rollup} holds one row per drug and day and
+ * is updated by the stock-in / stock-out write paths inside their transaction, after the
+ * drug row has been updated, so the drug row lock serializes the update-or-insert of a
+ * drug's row. {@code category_stock_rollup} sums the drug rows per category and is only
+ * rolled up for completed days, so dispensing never contends on a shared category row;
+ * {@link #getRolledThrough()} tells readers up to which day it is complete.
+ *
+ * <p>Both tables can be rebuilt from the ledger: on startup when the rollups are empty
+ * but the ledger is not, after bulk loads ({@link DataReloadedEvent}), and on request.
+ * The rebuild goes through the drugs in id ranges, each range in one transaction that
+ * first locks the drug rows so concurrent stock writes of those drugs wait for it.
+ */
+@Service
+public class StockRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockRollupService.class);
+
+    private static final int CATEGORY_ROLL_DAYS = 31;
+
+    /**
+     * Sums one drug id range of the ledger per drug and day, valuing each row the way
+     * the write paths did: a receipt at its price, else at the drug's price it was
+     * booked with, and a dispense at the drug's price it was booked with.
+     */
+    private static final String INSERT_FROM_LEDGER = "insert into stock_rollup "
+            + "(drug_id, bucket_date, qty_in, in_value, qty_out, out_value) "
+            + "select drug_id, bucket_date, sum(qty_in), sum(in_value), sum(qty_out), sum(out_value) from ("
+            + "select drug_id, cast(in_time as date) bucket_date, quantity qty_in, "
+            + "quantity * coalesce(price, list_price, 0) in_value, 0 qty_out, 0 out_value "
+            + "from stock_in where drug_id between ? and ? "
+            + "union all "
+            + "select drug_id, cast(out_time as date), 0, 0, quantity, quantity * coalesce(list_price, 0) "
+            + "from stock_out where drug_id between ? and ?"
+            + ") t group by drug_id, bucket_date";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int rebuildChunk;
+    private final int batchSize;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile LocalDate rolledThrough;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public StockRollupService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${analytics.rebuild-chunk:1000}") int rebuildChunk,
+                              @Value("${seed.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.rebuildChunk = Math.max(1, rebuildChunk);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Last day whose per-category rollup is complete, or {@code null} before the first
+     * roll-up; later days have to be summed from the per-drug rollup.
+     */
+    public LocalDate getRolledThrough() {
+        return rolledThrough;
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    /**
+     * Adds a receipt to the drug's rollup of that day. Without a receipt price the
+     * quantity is valued at {@code listPrice}, the drug's price stored on the row.
+     */
+    public void recordIn(Long drugId, LocalDateTime time, int quantity, BigDecimal price, BigDecimal listPrice) {
+        BigDecimal value = value(quantity, price != null ? price : listPrice);
+        Date day = Date.valueOf(time.toLocalDate());
+        int updated = jdbcTemplate.update("update stock_rollup set qty_in = qty_in + ?, in_value = in_value + ? "
+                + "where drug_id = ? and bucket_date = ?", quantity, value, drugId, day);
+        if (updated == 0) {
+            jdbcTemplate.update("insert into stock_rollup (drug_id, bucket_date, qty_in, in_value, qty_out, out_value) "
+                    + "values (?, ?, ?, ?, 0, 0)", drugId, day, quantity, value);
+        }
+    }
+
+    /**
+     * Adds a dispense to the drug's rollup of that day, valued at {@code listPrice},
+     * the drug's price stored on the row.
+     */
+    public void recordOut(Long drugId, LocalDateTime time, int quantity, BigDecimal listPrice) {
+        BigDecimal value = value(quantity, listPrice);
+        Date day = Date.valueOf(time.toLocalDate());
+        int updated = jdbcTemplate.update("update stock_rollup set qty_out = qty_out + ?, out_value = out_value + ? "
+                + "where drug_id = ? and bucket_date = ?", quantity, value, drugId, day);
+        if (updated == 0) {
+            jdbcTemplate.update("insert into stock_rollup (drug_id, bucket_date, qty_in, in_value, qty_out, out_value) "
+                    + "values (?, ?, 0, 0, ?, ?)", drugId, day, quantity, value);
+        }
+    }
+
+    /**
+     * Rollup side of a batched stock-in: lines are summed per drug, the drugs that
+     * already have a row for the day are found with one query and the rows are updated
+     * and created with one JDBC batch each.
+     */
+    public void recordInBatch(List<StockInLine> lines, LocalDateTime time) {
+        Map<Long, Receipt> receipts = new TreeMap<>();
+        for (StockInLine line : lines) {
+            Receipt receipt = receipts.computeIfAbsent(line.getDrugId(), k -> new Receipt());
+            receipt.quantity += line.getQuantity();
+            receipt.value = receipt.value.add(value(line.getQuantity(),
+                    line.getPrice() != null ? line.getPrice() : line.getListPrice()));
+        }
+        Date day = Date.valueOf(time.toLocalDate());
+        List<Object> args = new ArrayList<>(receipts.size() + 1);
+        args.add(day);
+        args.addAll(receipts.keySet());
+        Set<Long> existing = new HashSet<>(jdbcTemplate.queryForList("select drug_id from stock_rollup "
+                + "where bucket_date = ? and drug_id in (" + placeholders(receipts.size()) + ")",
+                Long.class, args.toArray()));
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        for (Map.Entry<Long, Receipt> entry : receipts.entrySet()) {
+            Long drugId = entry.getKey();
+            Receipt receipt = entry.getValue();
+            if (existing.contains(drugId)) {
+                updates.add(new Object[]{receipt.quantity, receipt.value, drugId, day});
+            } else {
+                inserts.add(new Object[]{drugId, day, receipt.quantity, receipt.value});
+            }
+        }
+        batchUpdate("update stock_rollup set qty_in = qty_in + ?, in_value = in_value + ? "
+                + "where drug_id = ? and bucket_date = ?", updates);
+        batchUpdate("insert into stock_rollup (drug_id, bucket_date, qty_in, in_value, qty_out, out_value) "
+                + "values (?, ?, ?, ?, 0, 0)", inserts);
+    }
+
+    /**
+     * Picks up where the last run stopped: rebuilds everything in the background when
+     * the ledger has rows but the rollups do not, otherwise rolls up the completed days
+     * since the last per-category day.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        boolean empty = jdbcTemplate.queryForList("select drug_id from stock_rollup limit 1", Long.class).isEmpty();
+        boolean ledger = !jdbcTemplate.queryForList("select id from stock_in limit 1", Long.class).isEmpty()
+                || !jdbcTemplate.queryForList("select id from stock_out limit 1", Long.class).isEmpty();
+        if (empty && ledger) {
+            rebuildAsync();
+        } else {
+            rolledThrough = toLocalDate(jdbcTemplate.queryForObject(
+                    "select max(bucket_date) from category_stock_rollup", Date.class));
+            rollUp();
+        }
+    }
+
+    @EventListener(DataReloadedEvent.class)
+    public void onDataReloaded() {
+        rebuild();
+    }
+
+    /**
+     * Starts a rebuild on a background thread; returns {@code false} when one is
+     * already running.
+     */
+    public boolean rebuildAsync() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(this::rebuild, "rollup-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Recomputes the per-drug rollups from the ledger and then every completed day of
+     * the per-category rollups, and publishes {@link RollupsRebuiltEvent}.
+     */
+    public void rebuild() {
+        lock.lock();
+        try {
+            rebuilding.set(true);
+            try {
+                long started = System.currentTimeMillis();
+                Long[] range = jdbcTemplate.queryForObject("select min(id), max(id) from drug_info",
+                        (rs, i) -> new Long[]{(Long) rs.getObject(1), (Long) rs.getObject(2)});
+                if (range[0] != null) {
+                    for (long from = range[0]; from <= range[1]; from += rebuildChunk) {
+                        long to = from + rebuildChunk - 1;
+                        long chunkFrom = from;
+                        transactionTemplate.executeWithoutResult(status -> {
+                            jdbcTemplate.queryForList("select id from drug_info where id between ? and ? for update",
+                                    Long.class, chunkFrom, to);
+                            jdbcTemplate.update("delete from stock_rollup where drug_id between ? and ?",
+                                    chunkFrom, to);
+                            jdbcTemplate.update(INSERT_FROM_LEDGER, chunkFrom, to, chunkFrom, to);
+                        });
+                    }
+                }
+                rolledThrough = null;
+                jdbcTemplate.update("delete from category_stock_rollup");
+                rollUp();
+                log.info("Rebuilt stock rollups in {} ms", System.currentTimeMillis() - started);
+                eventPublisher.publishEvent(new RollupsRebuiltEvent());
+            } catch (RuntimeException e) {
+                log.error("Rebuilding stock rollups failed", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rolls the per-drug rows of the completed days since {@link #getRolledThrough()}
+     * up per category. Writes are dated when they happen, so a completed day no longer
+     * changes once rolled up.
+     */
+    @Scheduled(cron = "${analytics.rollup-cron:0 5 0 * * *}")
+    public void rollUp() {
+        lock.lock();
+        try {
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            LocalDate from = rolledThrough != null ? rolledThrough.plusDays(1) : toLocalDate(
+                    jdbcTemplate.queryForObject("select min(bucket_date) from stock_rollup", Date.class));
+            if (from == null) {
+                rolledThrough = yesterday;
+                return;
+            }
+            for (LocalDate start = from; !start.isAfter(yesterday); start = start.plusDays(CATEGORY_ROLL_DAYS)) {
+                LocalDate end = start.plusDays(CATEGORY_ROLL_DAYS - 1);
+                Date chunkFrom = Date.valueOf(start);
+                Date chunkTo = Date.valueOf(end.isAfter(yesterday) ? yesterday : end);
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update("delete from category_stock_rollup where bucket_date between ? and ?",
+                            chunkFrom, chunkTo);
+                    jdbcTemplate.update("insert into category_stock_rollup "
+                            + "(category_id, bucket_date, qty_in, in_value, qty_out, out_value) "
+                            + "select d.category_id, r.bucket_date, sum(r.qty_in), sum(r.in_value), sum(r.qty_out), "
+                            + "sum(r.out_value) from stock_rollup r join drug_info d on d.id = r.drug_id "
+                            + "where r.bucket_date between ? and ? group by d.category_id, r.bucket_date",
+                            chunkFrom, chunkTo);
+                });
+            }
+            if (rolledThrough == null || yesterday.isAfter(rolledThrough)) {
+                rolledThrough = yesterday;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void batchUpdate(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+    }
+
+    private static BigDecimal value(int quantity, BigDecimal price) {
+        return price != null ? price.multiply(BigDecimal.valueOf(quantity)) : BigDecimal.ZERO;
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ",?");
+        }
+        return sb.toString();
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+
+    private static final class Receipt {
+
+        private int quantity;
+        private BigDecimal value = BigDecimal.ZERO;
+    }
+}
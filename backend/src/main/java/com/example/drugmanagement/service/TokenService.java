@@ -0,0 +1,209 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.entity.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Issues and verifies HS256-signed JWTs. A token carries everything a request needs
+ * (user id, username, role, expiry), so verifying it is a local HMAC check with no
+ * database access, and any node sharing {@code auth.token.secret} accepts it. Verified
+ * tokens are cached so repeat requests skip the HMAC and JSON parsing; revoked token ids
+ * are kept in a small cache until the tokens would have expired anyway.
+ * <p>
+ * Link tokens stand in for the session token where a URL has to carry it (EventSource
+ * streams, download links): they live {@code auth.link-token.ttl}, are valid for one path
+ * only, share the session's token id so logging out revokes them too, and are never
+ * accepted as a session token.
+ */
+@Service
+public class TokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final Duration linkTtl;
+    private final ThreadLocal<Mac> macs;
+    private final Cache<String, AuthPrincipal> verified;
+    private final Cache<String, Boolean> revoked;
+
+    public TokenService(ObjectMapper objectMapper,
+                        @Value("${auth.token.secret:}") String secret,
+                        @Value("${auth.token.ttl:8h}") Duration ttl,
+                        @Value("${auth.link-token.ttl:60s}") Duration linkTtl,
+                        @Value("${auth.token.cache-size:10000}") long cacheSize) {
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.linkTtl = linkTtl;
+        byte[] keyBytes;
+        if (secret == null || secret.isEmpty()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            log.warn("auth.token.secret is not set; using a random key, tokens will not survive a restart "
+                    + "or be accepted by other nodes");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+            if (keyBytes.length < 32) {
+                log.warn("auth.token.secret is shorter than 32 bytes; use a longer random secret");
+            }
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        this.verified = Caffeine.newBuilder().maximumSize(cacheSize).expireAfterWrite(ttl).build();
+        this.revoked = Caffeine.newBuilder().maximumSize(cacheSize).expireAfterWrite(ttl).build();
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public Duration getLinkTtl() {
+        return linkTtl;
+    }
+
+    public String issue(User user) {
+        long now = System.currentTimeMillis() / 1000;
+        ObjectNode claims = objectMapper.createObjectNode();
+        claims.put("sub", user.getUsername());
+        claims.put("uid", user.getId());
+        claims.put("role", user.getRole());
+        claims.put("iat", now);
+        claims.put("exp", now + ttl.getSeconds());
+        claims.put("jti", UUID.randomUUID().toString());
+        return sign(claims);
+    }
+
+    /**
+     * A token for {@code path} alone, expiring after {@code auth.link-token.ttl} or with
+     * the session, whichever comes first.
+     */
+    public String issueLink(AuthPrincipal session, String path) {
+        long now = System.currentTimeMillis() / 1000;
+        ObjectNode claims = objectMapper.createObjectNode();
+        claims.put("sub", session.getUsername());
+        if (session.getUserId() != null) {
+            claims.put("uid", session.getUserId());
+        }
+        claims.put("role", session.getRole());
+        claims.put("iat", now);
+        claims.put("exp", Math.min(now + linkTtl.getSeconds(), session.getExpiresAt()));
+        claims.put("jti", session.getTokenId());
+        claims.put("path", path);
+        return sign(claims);
+    }
+
+    /**
+     * The principal of a valid, unexpired and unrevoked session token, or {@code null}.
+     */
+    public AuthPrincipal verify(String token) {
+        AuthPrincipal principal = check(token);
+        return principal != null && principal.getLinkPath() == null ? principal : null;
+    }
+
+    /**
+     * The principal of a valid, unexpired and unrevoked link token for {@code path}, or
+     * {@code null}.
+     */
+    public AuthPrincipal verifyLink(String token, String path) {
+        AuthPrincipal principal = check(token);
+        return principal != null && path.equals(principal.getLinkPath()) ? principal : null;
+    }
+
+    private AuthPrincipal check(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        AuthPrincipal principal = verified.getIfPresent(token);
+        if (principal == null) {
+            principal = parse(token);
+            if (principal == null) {
+                return null;
+            }
+            verified.put(token, principal);
+        }
+        if (principal.getExpiresAt() <= System.currentTimeMillis() / 1000) {
+            verified.invalidate(token);
+            return null;
+        }
+        if (revoked.getIfPresent(principal.getTokenId()) != null) {
+            return null;
+        }
+        return principal;
+    }
+
+    public void revoke(AuthPrincipal principal) {
+        revoked.put(principal.getTokenId(), Boolean.TRUE);
+    }
+
+    private AuthPrincipal parse(String token) {
+        int first = token.indexOf('.');
+        int second = token.indexOf('.', first + 1);
+        if (first <= 0 || second <= first || token.indexOf('.', second + 1) >= 0) {
+            return null;
+        }
+        String signingInput = token.substring(0, second);
+        try {
+            byte[] signature = DECODER.decode(token.substring(second + 1));
+            if (!MessageDigest.isEqual(signature, sign(signingInput))
+                    || !HEADER.equals(token.substring(0, first))) {
+                return null;
+            }
+            JsonNode claims = objectMapper.readTree(DECODER.decode(token.substring(first + 1, second)));
+            if (!claims.hasNonNull("sub") || !claims.hasNonNull("exp") || !claims.hasNonNull("jti")) {
+                return null;
+            }
+            return new AuthPrincipal(claims.hasNonNull("uid") ? claims.get("uid").asLong() : null,
+                    claims.get("sub").asText(), claims.path("role").asText(null),
+                    claims.get("jti").asText(), claims.get("exp").asLong(), claims.path("path").asText(null));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private String sign(ObjectNode claims) {
+        String signingInput;
+        try {
+            signingInput = HEADER + "." + ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return signingInput + "." + ENCODER.encodeToString(sign(signingInput));
+    }
+
+    private byte[] sign(String signingInput) {
+        return macs.get().doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,504 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.dto.DrugValuation;
+import com.example.drugmanagement.dto.ValuationLine;
+import com.example.drugmanagement.dto.ValuationReport;
+import com.example.drugmanagement.event.DataReloadedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Inventory valued at cost, under moving weighted average and FIFO costing. Each stock
+ * write updates the drug's {@code stock_valuation} row of that day with the closing
+ * quantity and values and the day's cost of goods dispensed, and its FIFO
+ * {@code cost_layer} rows, inside the write's transaction after the drug row was
+ * updated; the drug row lock serializes a drug's valuation writes like its rollups.
+ *
+ * <p>The value as of any date is each drug's newest row up to that date, a
+ * {@code max(bucket_date)} per drug over the primary key, so reports do not depend on
+ * the length of the ledger. The tables can be rebuilt by replaying the stock-in and
+ * stock-out ledger with the journal's opening balances and adjustments, per drug id
+ * range with the drug rows locked. Ledger times are kept to the second, so movements
+ * of the same second are replayed in journal order, the order they were written in.
+ */
+@Service
+public class ValuationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ValuationService.class);
+
+    private static final String LATEST = "select v.drug_id, v.bucket_date, v.quantity, v.avg_value, v.fifo_value "
+            + "from stock_valuation v join (select drug_id, max(bucket_date) bucket_date from stock_valuation "
+            + "where %s group by drug_id) m on m.drug_id = v.drug_id and m.bucket_date = v.bucket_date";
+
+    /**
+     * A drug id range of the ledger and of the journal's opening balances (kind 0) and
+     * adjustments (kind 3) in the order they are replayed. Ledger rows carry the
+     * sequence number of their journal row; rows from before the journal have none and
+     * keep the kind and id order.
+     */
+    private static final String MOVEMENTS = "select drug_id, event_time, kind, quantity, price, list_price from ("
+            + "select i.drug_id, i.in_time event_time, 1 kind, i.id, j.seq, i.quantity, i.price, i.list_price "
+            + "from stock_in i left join stock_journal j on j.ref_id = i.id and j.event_type = 'IN' "
+            + "where i.drug_id between ? and ? "
+            + "union all "
+            + "select o.drug_id, o.out_time, 2, o.id, j.seq, o.quantity, null, null "
+            + "from stock_out o left join stock_journal j on j.ref_id = o.id and j.event_type = 'OUT' "
+            + "where o.drug_id between ? and ? "
+            + "union all "
+            + "select drug_id, event_time, case when event_type = 'OPENING' then 0 else 3 end, seq, seq, delta, "
+            + "null, null from stock_journal where drug_id between ? and ? and event_type in ('OPENING', 'ADJUST')"
+            + ") m order by drug_id, event_time, seq, kind, id";
+
+    private static final String INSERT_DAY = "insert into stock_valuation "
+            + "(drug_id, bucket_date, quantity, avg_value, fifo_value, cogs_avg, cogs_fifo) "
+            + "values (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_DAY = "update stock_valuation set quantity = ?, avg_value = ?, fifo_value = ?, "
+            + "cogs_avg = cogs_avg + ?, cogs_fifo = cogs_fifo + ? where drug_id = ? and bucket_date = ?";
+
+    private static final String INSERT_LAYER = "insert into cost_layer (drug_id, unit_cost, remaining) "
+            + "values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildChunk;
+    private final int batchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public ValuationService(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${valuation.rebuild-chunk:1000}") int rebuildChunk,
+                            @Value("${seed.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildChunk = Math.max(1, rebuildChunk);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    /**
+     * Values a receipt at its price; without one at the current average cost, or at
+     * {@code listPrice}, the drug's price stored on the row, when there is no stock.
+     */
+    public void recordIn(Long drugId, LocalDateTime time, int quantity, BigDecimal price, BigDecimal listPrice) {
+        Day latest = latest(drugId);
+        CostPosition position = latest.position(null);
+        position.receive(quantity, position.unitCost(price, listPrice));
+        save(drugId, time.toLocalDate(), latest, position);
+    }
+
+    /**
+     * Books a dispense as cost of goods.
+     */
+    public void recordOut(Long drugId, LocalDateTime time, int quantity) {
+        Day latest = latest(drugId);
+        CostPosition position = latest.position(layers(drugId));
+        position.issue(quantity, true);
+        save(drugId, time.toLocalDate(), latest, position);
+    }
+
+    /**
+     * Values a stock correction or opening balance: additions at the average cost (the
+     * drug's price when there is none), reductions as a write-off.
+     */
+    public void recordAdjust(Long drugId, LocalDateTime time, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        Day latest = latest(drugId);
+        CostPosition position = latest.position(delta < 0 ? layers(drugId) : null);
+        position.adjustTo(position.getQuantity() + delta, delta > 0 ? drugPrice(drugId) : null);
+        save(drugId, time.toLocalDate(), latest, position);
+    }
+
+    /**
+     * Valuation side of a batched stock-in: the drugs' newest rows are read with one
+     * query and layers and rows are written with JDBC batches.
+     */
+    public void recordInBatch(List<StockInLine> lines, LocalDateTime time) {
+        Map<Long, List<StockInLine>> byDrug = new TreeMap<>();
+        for (StockInLine line : lines) {
+            byDrug.computeIfAbsent(line.getDrugId(), k -> new ArrayList<>()).add(line);
+        }
+        String ids = placeholders(byDrug.size());
+        Object[] args = byDrug.keySet().toArray();
+        Map<Long, Day> latest = new HashMap<>();
+        jdbcTemplate.query(String.format(LATEST, "drug_id in (" + ids + ")"), rs -> {
+            latest.put(rs.getLong(1), Day.from(rs));
+        }, args);
+
+        LocalDate day = time.toLocalDate();
+        List<Object[]> layers = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        for (Map.Entry<Long, List<StockInLine>> entry : byDrug.entrySet()) {
+            Long drugId = entry.getKey();
+            Day previous = latest.getOrDefault(drugId, Day.NONE);
+            CostPosition position = previous.position(null);
+            for (StockInLine line : entry.getValue()) {
+                position.receive(line.getQuantity(), position.unitCost(line.getPrice(), line.getListPrice()));
+            }
+            for (CostPosition.Layer layer : position.getAdded()) {
+                layers.add(new Object[]{drugId, layer.unitCost, layer.remaining});
+            }
+            LocalDate bucket = previous.date != null && previous.date.isAfter(day) ? previous.date : day;
+            if (bucket.equals(previous.date)) {
+                updates.add(dayUpdate(drugId, bucket, position));
+            } else {
+                inserts.add(dayInsert(drugId, bucket, position));
+            }
+        }
+        batchUpdate(INSERT_LAYER, layers);
+        batchUpdate(UPDATE_DAY, updates);
+        batchUpdate(INSERT_DAY, inserts);
+    }
+
+    /**
+     * Rebuilds in the background when nothing has been valued yet but stock has moved,
+     * e.g. on the first start after upgrading.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        boolean empty = jdbcTemplate.queryForList("select drug_id from stock_valuation limit 1", Long.class)
+                .isEmpty();
+        boolean moved = !jdbcTemplate.queryForList("select id from stock_in limit 1", Long.class).isEmpty()
+                || !jdbcTemplate.queryForList("select seq from stock_journal limit 1", Long.class).isEmpty();
+        if (empty && moved) {
+            rebuildAsync();
+        }
+    }
+
+    @EventListener(DataReloadedEvent.class)
+    public void onDataReloaded() {
+        rebuild();
+    }
+
+    /**
+     * Starts a rebuild on a background thread; returns {@code false} when one is
+     * already running.
+     */
+    public boolean rebuildAsync() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(this::rebuild, "valuation-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Replays every drug's ledger and journal corrections into fresh valuation rows
+     * and cost layers, one locked drug id range per transaction.
+     */
+    public void rebuild() {
+        lock.lock();
+        try {
+            rebuilding.set(true);
+            try {
+                long started = System.currentTimeMillis();
+                Long[] range = jdbcTemplate.queryForObject("select min(id), max(id) from drug_info",
+                        (rs, i) -> new Long[]{(Long) rs.getObject(1), (Long) rs.getObject(2)});
+                if (range[0] != null) {
+                    for (long from = range[0]; from <= range[1]; from += rebuildChunk) {
+                        long to = from + rebuildChunk - 1;
+                        long chunkFrom = from;
+                        transactionTemplate.executeWithoutResult(status -> rebuild(chunkFrom, to));
+                    }
+                }
+                log.info("Rebuilt stock valuation in {} ms", System.currentTimeMillis() - started);
+            } catch (RuntimeException e) {
+                log.error("Rebuilding stock valuation failed", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closing quantity and values per category as of the end of {@code date}, with the
+     * cost of goods dispensed from {@code cogsFrom} through {@code date} when given.
+     */
+    @Transactional(readOnly = true)
+    public ValuationReport valuation(LocalDate date, LocalDate cogsFrom, Long categoryId) {
+        Map<Long, ValuationLine> lines = new TreeMap<>();
+        String category = categoryId != null ? " where d.category_id = ?" : "";
+        List<Object> args = new ArrayList<>();
+        args.add(Date.valueOf(date));
+        if (categoryId != null) {
+            args.add(categoryId);
+        }
+        jdbcTemplate.query("select d.category_id, count(*), sum(v.quantity), sum(v.avg_value), sum(v.fifo_value) "
+                + "from (" + String.format(LATEST, "bucket_date <= ?") + ") v join drug_info d on d.id = v.drug_id"
+                + category + " group by d.category_id", rs -> {
+            lines.put(rs.getLong(1), new ValuationLine(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                    money(rs.getBigDecimal(4)), money(rs.getBigDecimal(5)), money(null), money(null)));
+        }, args.toArray());
+        if (cogsFrom != null) {
+            args.add(0, Date.valueOf(cogsFrom));
+            jdbcTemplate.query("select d.category_id, sum(v.cogs_avg), sum(v.cogs_fifo) from stock_valuation v "
+                    + "join drug_info d on d.id = v.drug_id where v.bucket_date between ? and ?"
+                    + (categoryId != null ? " and d.category_id = ?" : "") + " group by d.category_id", rs -> {
+                ValuationLine line = lines.get(rs.getLong(1));
+                lines.put(rs.getLong(1), line != null
+                        ? line.withCogs(money(rs.getBigDecimal(2)), money(rs.getBigDecimal(3)))
+                        : new ValuationLine(rs.getLong(1), 0, 0, money(null), money(null),
+                        money(rs.getBigDecimal(2)), money(rs.getBigDecimal(3))));
+            }, args.toArray());
+        }
+        return ValuationReport.of(date, cogsFrom, new ArrayList<>(lines.values()));
+    }
+
+    /**
+     * One drug as of the end of {@code date}, with its cost of goods from
+     * {@code cogsFrom} when given.
+     */
+    @Transactional(readOnly = true)
+    public DrugValuation drugValuation(Long drugId, LocalDate date, LocalDate cogsFrom) {
+        List<Day> days = jdbcTemplate.query("select drug_id, bucket_date, quantity, avg_value, fifo_value "
+                + "from stock_valuation where drug_id = ? and bucket_date <= ? order by bucket_date desc limit 1",
+                (rs, i) -> Day.from(rs), drugId, Date.valueOf(date));
+        Day day = days.isEmpty() ? Day.NONE : days.get(0);
+        BigDecimal[] cogs = {BigDecimal.ZERO, BigDecimal.ZERO};
+        if (cogsFrom != null) {
+            jdbcTemplate.query("select sum(cogs_avg), sum(cogs_fifo) from stock_valuation "
+                    + "where drug_id = ? and bucket_date between ? and ?", rs -> {
+                cogs[0] = rs.getBigDecimal(1);
+                cogs[1] = rs.getBigDecimal(2);
+            }, drugId, Date.valueOf(cogsFrom), Date.valueOf(date));
+        }
+        BigDecimal averageUnitCost = day.quantity > 0
+                ? day.avgValue.divide(BigDecimal.valueOf(day.quantity), CostPosition.SCALE, RoundingMode.HALF_UP)
+                : null;
+        return new DrugValuation(drugId, date, day.quantity, averageUnitCost, money(day.avgValue),
+                money(day.fifoValue), money(cogs[0]), money(cogs[1]));
+    }
+
+    private void rebuild(long from, long to) {
+        jdbcTemplate.queryForList("select id from drug_info where id between ? and ? for update", Long.class,
+                from, to);
+        jdbcTemplate.update("delete from stock_valuation where drug_id between ? and ?", from, to);
+        jdbcTemplate.update("delete from cost_layer where drug_id between ? and ?", from, to);
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        jdbcTemplate.query("select id, price from drug_info where id between ? and ?", rs -> {
+            prices.put(rs.getLong(1), rs.getBigDecimal(2));
+        }, from, to);
+        Replay replay = new Replay(prices);
+        jdbcTemplate.query(MOVEMENTS, replay, from, to, from, to, from, to);
+        replay.finish();
+    }
+
+    private Day latest(Long drugId) {
+        List<Day> days = jdbcTemplate.query("select drug_id, bucket_date, quantity, avg_value, fifo_value "
+                + "from stock_valuation where drug_id = ? order by bucket_date desc limit 1", (rs, i) -> Day.from(rs),
+                drugId);
+        return days.isEmpty() ? Day.NONE : days.get(0);
+    }
+
+    private List<CostPosition.Layer> layers(Long drugId) {
+        return jdbcTemplate.query("select id, unit_cost, remaining from cost_layer where drug_id = ? order by id",
+                (rs, i) -> new CostPosition.Layer(rs.getLong(1), rs.getBigDecimal(2), rs.getInt(3)), drugId);
+    }
+
+    private BigDecimal drugPrice(Long drugId) {
+        List<BigDecimal> prices = jdbcTemplate.queryForList("select price from drug_info where id = ?",
+                BigDecimal.class, drugId);
+        return prices.isEmpty() ? null : prices.get(0);
+    }
+
+    /**
+     * Writes the position back: layers used up are deleted, partly used ones updated
+     * and new ones inserted, and the day's row is updated or created. A write dated
+     * before the newest row is booked on that row.
+     */
+    private void save(Long drugId, LocalDate day, Day latest, CostPosition position) {
+        for (CostPosition.Layer layer : position.getEmptied()) {
+            if (layer.id != null) {
+                jdbcTemplate.update("delete from cost_layer where id = ?", layer.id);
+            }
+        }
+        for (CostPosition.Layer layer : position.getLayers()) {
+            if (layer.id != null && layer.changed) {
+                jdbcTemplate.update("update cost_layer set remaining = ? where id = ?", layer.remaining, layer.id);
+            } else if (layer.id == null) {
+                jdbcTemplate.update(INSERT_LAYER, drugId, layer.unitCost, layer.remaining);
+            }
+        }
+        LocalDate bucket = latest.date != null && latest.date.isAfter(day) ? latest.date : day;
+        if (bucket.equals(latest.date)) {
+            jdbcTemplate.update(UPDATE_DAY, dayUpdate(drugId, bucket, position));
+        } else {
+            jdbcTemplate.update(INSERT_DAY, dayInsert(drugId, bucket, position));
+        }
+    }
+
+    private static Object[] dayUpdate(Long drugId, LocalDate day, CostPosition position) {
+        return new Object[]{position.getQuantity(), position.getAvgValue(), position.getFifoValue(),
+                position.getCogsAvg(), position.getCogsFifo(), drugId, Date.valueOf(day)};
+    }
+
+    private static Object[] dayInsert(Long drugId, LocalDate day, CostPosition position) {
+        return new Object[]{drugId, Date.valueOf(day), position.getQuantity(), position.getAvgValue(),
+                position.getFifoValue(), position.getCogsAvg(), position.getCogsFifo()};
+    }
+
+    private void batchUpdate(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+    }
+
+    private static BigDecimal money(BigDecimal value) {
+        return (value != null ? value : BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ",?");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A drug's newest valuation row.
+     */
+    private static final class Day {
+
+        private static final Day NONE = new Day(null, 0, BigDecimal.ZERO, BigDecimal.ZERO);
+
+        private final LocalDate date;
+        private final int quantity;
+        private final BigDecimal avgValue;
+        private final BigDecimal fifoValue;
+
+        private Day(LocalDate date, int quantity, BigDecimal avgValue, BigDecimal fifoValue) {
+            this.date = date;
+            this.quantity = quantity;
+            this.avgValue = avgValue;
+            this.fifoValue = fifoValue;
+        }
+
+        private static Day from(ResultSet rs) throws SQLException {
+            return new Day(rs.getDate(2).toLocalDate(), rs.getInt(3), rs.getBigDecimal(4), rs.getBigDecimal(5));
+        }
+
+        private CostPosition position(List<CostPosition.Layer> layers) {
+            return new CostPosition(quantity, avgValue, fifoValue, layers != null ? layers : new ArrayList<>());
+        }
+    }
+
+    /**
+     * Replays the movements of a drug id range, drug by drug in time order, writing a
+     * row for every day with movements and the layers left at the end.
+     */
+    private final class Replay implements RowCallbackHandler {
+
+        private final Map<Long, BigDecimal> prices;
+        private final List<Object[]> days = new ArrayList<>();
+        private final List<Object[]> layers = new ArrayList<>();
+        private Long drugId;
+        private LocalDate day;
+        private CostPosition position;
+
+        private Replay(Map<Long, BigDecimal> prices) {
+            this.prices = prices;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long rowDrugId = rs.getLong(1);
+            Timestamp time = rs.getTimestamp(2);
+            if (time == null) {
+                return;
+            }
+            LocalDate rowDay = time.toLocalDateTime().toLocalDate();
+            if (drugId == null || drugId != rowDrugId) {
+                closeDrug();
+                drugId = rowDrugId;
+                position = CostPosition.empty();
+            } else if (!rowDay.equals(day)) {
+                closeDay();
+            }
+            day = rowDay;
+            int quantity = rs.getInt(4);
+            BigDecimal fallback = prices.get(drugId);
+            switch (rs.getInt(3)) {
+                case 0:
+                    position.adjustTo(quantity, fallback);
+                    break;
+                case 1:
+                    BigDecimal listPrice = rs.getBigDecimal(6);
+                    position.receive(quantity, position.unitCost(rs.getBigDecimal(5),
+                            listPrice != null ? listPrice : fallback));
+                    break;
+                case 2:
+                    position.issue(quantity, true);
+                    break;
+                default:
+                    position.adjustTo(position.getQuantity() + quantity, fallback);
+                    break;
+            }
+        }
+
+        private void finish() {
+            closeDrug();
+            batchUpdate(INSERT_DAY, days);
+            batchUpdate(INSERT_LAYER, layers);
+        }
+
+        private void closeDay() {
+            days.add(dayInsert(drugId, day, position));
+            position.closeDay();
+            if (days.size() >= batchSize) {
+                batchUpdate(INSERT_DAY, days);
+                days.clear();
+            }
+        }
+
+        private void closeDrug() {
+            if (drugId == null) {
+                return;
+            }
+            closeDay();
+            for (CostPosition.Layer layer : position.getLayers()) {
+                layers.add(new Object[]{drugId, layer.unitCost, layer.remaining});
+            }
+            if (layers.size() >= batchSize) {
+                batchUpdate(INSERT_LAYER, layers);
+                layers.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+-- Stock by lot: each stock-in line books its quantity onto a lot of the drug, and each
+-- stock-out records which lots it drew from.
+
+ALTER TABLE stock_in ADD COLUMN expire_date DATE AFTER batch_no;
+
+CREATE TABLE drug_lot (
+    id           BIGINT        PRIMARY KEY AUTO_INCREMENT,
+    drug_id      BIGINT        NOT NULL,
+    batch_no     VARCHAR(50)   NOT NULL,
+    expire_date  DATE,
+    quantity     INT           NOT NULL,
+    create_time  DATETIME      NOT NULL,
+    CONSTRAINT fk_lot_drug FOREIGN KEY (drug_id) REFERENCES drug_info(id),
+    CONSTRAINT uk_lot_drug_batch UNIQUE (drug_id, batch_no)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE stock_out_lot (
+    id            BIGINT        PRIMARY KEY AUTO_INCREMENT,
+    stock_out_id  BIGINT        NOT NULL,
+    lot_id        BIGINT        NOT NULL,
+    quantity      INT           NOT NULL,
+    CONSTRAINT fk_outlot_stockout FOREIGN KEY (stock_out_id) REFERENCES stock_out(id),
+    CONSTRAINT fk_outlot_lot FOREIGN KEY (lot_id) REFERENCES drug_lot(id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
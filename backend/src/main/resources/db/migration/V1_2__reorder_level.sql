@@ -0,0 +1,3 @@
+-- Per-drug low-stock threshold; NULL falls back to the default reorder level.
+
+ALTER TABLE drug_info ADD COLUMN reorder_level INT AFTER stock;
@@ -0,0 +1,62 @@
+-- Tables of the baseline release, as in its db/schema.sql. A database created by that
+-- script is baselined at this version, so everything added since goes into later
+-- migrations. Secondary indexes are created by V2__PerformanceIndexes, which skips
+-- those an older schema already has.
+
+CREATE TABLE sys_user (
+    id           BIGINT       PRIMARY KEY AUTO_INCREMENT,
+    username     VARCHAR(50)  NOT NULL UNIQUE,
+    password     VARCHAR(100) NOT NULL,
+    role         VARCHAR(20)  NOT NULL,
+    status       TINYINT      NOT NULL,
+    create_time  DATETIME     NOT NULL
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE drug_category (
+    id           BIGINT       PRIMARY KEY AUTO_INCREMENT,
+    name         VARCHAR(50)  NOT NULL,
+    description  VARCHAR(200),
+    create_time  DATETIME     NOT NULL
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE drug_info (
+    id              BIGINT        PRIMARY KEY AUTO_INCREMENT,
+    name            VARCHAR(100)  NOT NULL,
+    category_id     BIGINT        NOT NULL,
+    specification   VARCHAR(100),
+    unit            VARCHAR(20),
+    price           DECIMAL(10,2),
+    stock           INT           NOT NULL DEFAULT 0,
+    manufacturer    VARCHAR(100),
+    production_date DATE,
+    expire_date     DATE,
+    status          TINYINT       NOT NULL DEFAULT 1,
+    create_time     DATETIME      NOT NULL,
+    CONSTRAINT fk_drug_category FOREIGN KEY (category_id) REFERENCES drug_category(id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE stock_in (
+    id           BIGINT        PRIMARY KEY AUTO_INCREMENT,
+    drug_id      BIGINT        NOT NULL,
+    quantity     INT           NOT NULL,
+    price        DECIMAL(10,2),
+    supplier     VARCHAR(100),
+    batch_no     VARCHAR(50),
+    in_time      DATETIME      NOT NULL,
+    operator_id  BIGINT,
+    remark       VARCHAR(200),
+    CONSTRAINT fk_stockin_drug FOREIGN KEY (drug_id) REFERENCES drug_info(id),
+    CONSTRAINT fk_stockin_user FOREIGN KEY (operator_id) REFERENCES sys_user(id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE stock_out (
+    id           BIGINT        PRIMARY KEY AUTO_INCREMENT,
+    drug_id      BIGINT        NOT NULL,
+    quantity     INT           NOT NULL,
+    reason       VARCHAR(100),
+    out_time     DATETIME      NOT NULL,
+    operator_id  BIGINT,
+    remark       VARCHAR(200),
+    CONSTRAINT fk_stockout_drug FOREIGN KEY (drug_id) REFERENCES drug_info(id),
+    CONSTRAINT fk_stockout_user FOREIGN KEY (operator_id) REFERENCES sys_user(id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
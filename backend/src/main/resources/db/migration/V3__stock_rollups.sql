@@ -0,0 +1,27 @@
+-- Daily stock movement rollups behind the consumption analytics. stock_rollup is kept
+-- up to date by the stock-in / stock-out write paths; category_stock_rollup is rolled
+-- up from it for completed days. Both can be rebuilt from the ledger.
+
+CREATE TABLE stock_rollup (
+    drug_id      BIGINT         NOT NULL,
+    bucket_date  DATE           NOT NULL,
+    qty_in       INT            NOT NULL DEFAULT 0,
+    in_value     DECIMAL(16,2)  NOT NULL DEFAULT 0,
+    qty_out      INT            NOT NULL DEFAULT 0,
+    out_value    DECIMAL(16,2)  NOT NULL DEFAULT 0,
+    PRIMARY KEY (drug_id, bucket_date)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE INDEX idx_rollup_date ON stock_rollup (bucket_date, drug_id);
+
+CREATE TABLE category_stock_rollup (
+    category_id  BIGINT         NOT NULL,
+    bucket_date  DATE           NOT NULL,
+    qty_in       BIGINT         NOT NULL DEFAULT 0,
+    in_value     DECIMAL(18,2)  NOT NULL DEFAULT 0,
+    qty_out      BIGINT         NOT NULL DEFAULT 0,
+    out_value    DECIMAL(18,2)  NOT NULL DEFAULT 0,
+    PRIMARY KEY (category_id, bucket_date)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE INDEX idx_category_rollup_date ON category_stock_rollup (bucket_date, category_id);
@@ -0,0 +1,38 @@
+-- Append-only stock journal: one row per change of drug_info.stock, written in the same
+-- transaction as the change, plus per-drug snapshots of the journal balance so a drug's
+-- stock now or at any earlier time is a snapshot plus a short tail of journal rows.
+
+CREATE TABLE stock_journal (
+    seq         BIGINT       NOT NULL AUTO_INCREMENT,
+    drug_id     BIGINT       NOT NULL,
+    delta       INT          NOT NULL,
+    event_type  VARCHAR(10)  NOT NULL,
+    ref_id      BIGINT,
+    event_time  DATETIME     NOT NULL,
+    PRIMARY KEY (seq)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE INDEX idx_journal_drug_seq ON stock_journal (drug_id, seq);
+
+CREATE TABLE stock_snapshot (
+    drug_id        BIGINT    NOT NULL,
+    seq            BIGINT    NOT NULL,
+    stock          INT       NOT NULL,
+    snapshot_time  DATETIME  NOT NULL,
+    PRIMARY KEY (drug_id, seq)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE INDEX idx_snapshot_drug_time ON stock_snapshot (drug_id, snapshot_time);
+
+-- Completed snapshot runs; a run covers every journal row up to its watermark.
+CREATE TABLE stock_snapshot_run (
+    id          BIGINT    NOT NULL AUTO_INCREMENT,
+    watermark   BIGINT    NOT NULL,
+    run_time    DATETIME  NOT NULL,
+    snapshots   INT       NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- The current stock of every existing drug becomes its opening balance.
+INSERT INTO stock_journal (drug_id, delta, event_type, event_time)
+SELECT id, COALESCE(stock, 0), 'OPENING', CURRENT_TIMESTAMP FROM drug_info ORDER BY id;
@@ -0,0 +1,28 @@
+-- Inventory valuation at cost. stock_valuation holds a drug's closing quantity and value
+-- under moving weighted average and FIFO costing for every day it changed, plus that
+-- day's cost of goods dispensed; cost_layer holds the receipts not yet fully consumed
+-- under FIFO. Both are maintained by the stock write paths and can be rebuilt from the
+-- ledger.
+
+CREATE TABLE stock_valuation (
+    drug_id      BIGINT         NOT NULL,
+    bucket_date  DATE           NOT NULL,
+    quantity     INT            NOT NULL,
+    avg_value    DECIMAL(18,4)  NOT NULL,
+    fifo_value   DECIMAL(18,4)  NOT NULL,
+    cogs_avg     DECIMAL(18,4)  NOT NULL DEFAULT 0,
+    cogs_fifo    DECIMAL(18,4)  NOT NULL DEFAULT 0,
+    PRIMARY KEY (drug_id, bucket_date)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE INDEX idx_valuation_date ON stock_valuation (bucket_date, drug_id);
+
+CREATE TABLE cost_layer (
+    id          BIGINT         NOT NULL AUTO_INCREMENT,
+    drug_id     BIGINT         NOT NULL,
+    unit_cost   DECIMAL(14,4)  NOT NULL,
+    remaining   INT            NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE INDEX idx_cost_layer_drug ON cost_layer (drug_id, id);
@@ -0,0 +1,10 @@
+-- Replica lag probe: the primary rewrites beat_time every replica.heartbeat-ms, so a
+-- replica's copy of the row shows how far behind it is.
+
+CREATE TABLE replica_heartbeat (
+    id          INT          NOT NULL,
+    beat_time   DATETIME(3)  NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO replica_heartbeat (id, beat_time) VALUES (1, CURRENT_TIMESTAMP(3));
@@ -0,0 +1,16 @@
+-- Idempotency-Key dedup for the stock-in/stock-out APIs: a key is claimed in the same
+-- transaction as the stock change it guards and keeps that change's response, so a
+-- retry on any node replays it instead of writing a second row. Rows past
+-- idempotency.ttl are purged.
+
+CREATE TABLE idempotency_key (
+    scope         VARCHAR(100)  NOT NULL,
+    idem_key      VARCHAR(100)  NOT NULL,
+    fingerprint   CHAR(64)      NOT NULL,
+    status        INT           NOT NULL,
+    response      TEXT,
+    created_time  DATETIME(3)   NOT NULL,
+    PRIMARY KEY (scope, idem_key)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE INDEX idx_idempotency_created ON idempotency_key (created_time);
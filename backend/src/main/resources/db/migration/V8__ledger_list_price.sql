@@ -0,0 +1,10 @@
+-- The drug's price when a ledger row was written. The stock rollups value dispenses and
+-- receipts without a receipt price at it, so rebuilding them from the ledger gives the
+-- same values the write paths added, whatever the drug's price is now. Existing rows
+-- get the current price, the best that is known about them.
+
+ALTER TABLE stock_in ADD COLUMN list_price DECIMAL(10,2) AFTER price;
+ALTER TABLE stock_out ADD COLUMN list_price DECIMAL(10,2) AFTER quantity;
+
+UPDATE stock_in SET list_price = (SELECT price FROM drug_info d WHERE d.id = stock_in.drug_id);
+UPDATE stock_out SET list_price = (SELECT price FROM drug_info d WHERE d.id = stock_out.drug_id);
@@ -0,0 +1,4 @@
+-- Looks up the journal row of a stock-in or stock-out row. The valuation rebuild
+-- orders ledger rows of the same second by their journal sequence number.
+
+CREATE INDEX idx_journal_ref ON stock_journal (ref_id, event_type);
@@ -0,0 +1,98 @@
+package com.example.drugmanagement.config;
+
+import com.example.drugmanagement.entity.User;
+import com.example.drugmanagement.repository.UserRepository;
+import com.example.drugmanagement.service.TokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The session token is only accepted in the {@code Authorization} header; a query
+ * {@code access_token} must be a link token for the very path requested. The export is
+ * asked for an unsupported format, so an accepted token answers 400 rather than 401.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthTokenFilterTest {
+
+    private static final String EXPORT = "/api/stock-in/export";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String session;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("link-" + UUID.randomUUID());
+        user.setPassword("-");
+        user.setRole("USER");
+        user.setStatus(1);
+        user.setCreateTime(LocalDateTime.now());
+        session = tokenService.issue(userRepository.save(user));
+    }
+
+    @Test
+    void sessionTokenIsRefusedInTheQuery() throws Exception {
+        mockMvc.perform(get(EXPORT).param("format", "xml").param("access_token", session))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get(EXPORT).param("format", "xml").header(HttpHeaders.AUTHORIZATION, "Bearer " + session))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void linkTokenOpensOnlyItsOwnPath() throws Exception {
+        String link = linkToken("/stock-in/export");
+        mockMvc.perform(get(EXPORT).param("format", "xml").param("access_token", link))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/stock-out/export").param("format", "xml").param("access_token", link))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/drugs").header(HttpHeaders.AUTHORIZATION, "Bearer " + link))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void linkTokensAreOnlyIssuedForLinkPaths() throws Exception {
+        mockMvc.perform(post("/api/auth/link-token").header(HttpHeaders.AUTHORIZATION, "Bearer " + session)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"path\":\"/drugs\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/auth/link-token")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"path\":\"/stock-in/export\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private String linkToken(String path) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/link-token")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + session)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"path\":\"" + path + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("token").asText();
+    }
+}
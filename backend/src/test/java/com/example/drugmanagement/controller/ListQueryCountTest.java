@@ -0,0 +1,147 @@
+package com.example.drugmanagement.controller;
+
+import com.example.drugmanagement.entity.DrugCategory;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.entity.StockIn;
+import com.example.drugmanagement.entity.StockOut;
+import com.example.drugmanagement.entity.User;
+import com.example.drugmanagement.repository.DrugCategoryRepository;
+import com.example.drugmanagement.repository.UserRepository;
+import com.example.drugmanagement.service.InventoryService;
+import com.example.drugmanagement.service.TokenService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The list endpoints must load their rows, with drug, category and operator, in a fixed
+ * number of statements: adding rows that each reference a different drug, category and
+ * user may not add statements (no N+1). Counted with Hibernate {@link Statistics}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ListQueryCountTest {
+
+    private static final String[] LIST_ENDPOINTS = {"/api/drugs", "/api/stock-in", "/api/stock-out"};
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private DrugCategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Statistics statistics;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        assertThat(statistics.isStatisticsEnabled()).as("hibernate.generate_statistics").isTrue();
+        token = tokenService.issue(newUser());
+    }
+
+    @Test
+    void listEndpointsIssueAConstantNumberOfStatements() throws Exception {
+        addRows(2);
+        long[] few = new long[LIST_ENDPOINTS.length];
+        for (int i = 0; i < LIST_ENDPOINTS.length; i++) {
+            few[i] = statements(LIST_ENDPOINTS[i]);
+        }
+        addRows(10);
+        for (int i = 0; i < LIST_ENDPOINTS.length; i++) {
+            assertThat(statements(LIST_ENDPOINTS[i])).as(LIST_ENDPOINTS[i]).isEqualTo(few[i]).isPositive();
+        }
+    }
+
+    /**
+     * Statements prepared by one call with cold caches, so per-row cache lookups count
+     * too; the least of three, since scheduled jobs share the global statistics and can
+     * only add to them.
+     */
+    private long statements(String url) throws Exception {
+        long least = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            for (String name : cacheManager.getCacheNames()) {
+                cacheManager.getCache(name).clear();
+            }
+            statistics.clear();
+            mockMvc.perform(get(url).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk());
+            least = Math.min(least, statistics.getPrepareStatementCount());
+        }
+        return least;
+    }
+
+    private void addRows(int count) {
+        for (int i = 0; i < count; i++) {
+            int n = SEQUENCE.incrementAndGet();
+            DrugCategory category = new DrugCategory();
+            category.setName("分类" + n);
+            category.setCreateTime(LocalDateTime.now());
+            category = categoryRepository.save(category);
+
+            DrugInfo drug = new DrugInfo();
+            drug.setName("药品" + n);
+            drug.setCategory(category);
+            drug.setPrice(new BigDecimal("2.00"));
+            drug.setStatus(1);
+            drug.setCreateTime(LocalDateTime.now());
+            Long drugId = inventoryService.saveDrug(drug, 10).getId();
+
+            User operator = newUser();
+            StockIn stockIn = new StockIn();
+            stockIn.setQuantity(5);
+            stockIn.setPrice(new BigDecimal("1.00"));
+            stockIn.setOperator(operator);
+            inventoryService.stockIn(drugId, stockIn);
+            StockOut stockOut = new StockOut();
+            stockOut.setQuantity(3);
+            stockOut.setOperator(operator);
+            inventoryService.stockOut(drugId, stockOut);
+        }
+    }
+
+    private User newUser() {
+        User user = new User();
+        user.setUsername("query-count-" + SEQUENCE.incrementAndGet());
+        user.setPassword("-");
+        user.setRole("USER");
+        user.setStatus(1);
+        user.setCreateTime(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.drugmanagement.migration;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A database created by the baseline release's schema script is baselined at version 1,
+ * as {@code spring.flyway.baseline-*} configures, and must migrate to the same schema as
+ * an empty one, keeping its rows.
+ */
+class MigrationTest {
+
+    @Test
+    void baselineReleaseDatabaseMigratesToTheCurrentSchema() {
+        DataSource fresh = h2("migration_fresh");
+        flyway(fresh).migrate();
+
+        DataSource existing = h2("migration_baseline");
+        new ResourceDatabasePopulator(new ClassPathResource("db/baseline-schema.sql")).execute(existing);
+        JdbcTemplate jdbc = new JdbcTemplate(existing);
+        jdbc.update("insert into drug_category (name, create_time) values ('旧分类', now())");
+        jdbc.update("insert into drug_info (name, category_id, price, stock, status, create_time) "
+                + "values ('旧药品', 1, 2.50, 30, 1, now())");
+        jdbc.update("insert into stock_in (drug_id, quantity, price, batch_no, in_time) "
+                + "values (1, 30, 2.00, 'B1', now())");
+
+        Flyway flyway = flyway(existing);
+        flyway.migrate();
+
+        assertThat(Arrays.stream(flyway.info().applied()).map(MigrationInfo::getVersion).map(Object::toString))
+                .startsWith("1", "1.1", "1.2", "2");
+        assertThat(flyway.info().current().getVersion().toString())
+                .isEqualTo(flyway(fresh).info().current().getVersion().toString());
+        assertThat(columns(existing)).isEqualTo(columns(fresh));
+        assertThat(jdbc.queryForObject("select stock from drug_info where name = '旧药品'", Integer.class))
+                .isEqualTo(30);
+        assertThat(jdbc.queryForObject("select count(*) from stock_in where expire_date is null", Integer.class))
+                .isEqualTo(1);
+        assertThat(jdbc.queryForObject("select list_price from stock_in", BigDecimal.class))
+                .isEqualByComparingTo("2.50");
+    }
+
+    private static Flyway flyway(DataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .javaMigrations(new V2__PerformanceIndexes())
+                .load();
+    }
+
+    private static List<Map<String, Object>> columns(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForList("select table_name, column_name, ordinal_position, "
+                + "data_type, is_nullable from information_schema.columns where table_schema = 'public' "
+                + "and table_name <> 'flyway_schema_history' order by table_name, ordinal_position");
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
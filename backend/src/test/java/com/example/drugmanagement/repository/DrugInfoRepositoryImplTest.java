@@ -0,0 +1,69 @@
+package com.example.drugmanagement.repository;
+
+import com.example.drugmanagement.dto.DrugView;
+import com.example.drugmanagement.entity.DrugCategory;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.service.InventoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The keyword filter matches {@code %}, {@code _} and the escape character literally.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DrugInfoRepositoryImplTest {
+
+    @Autowired
+    private DrugInfoRepository drugInfoRepository;
+
+    @Autowired
+    private DrugCategoryRepository categoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    private DrugCategory category;
+
+    @BeforeEach
+    void setUp() {
+        category = new DrugCategory();
+        category.setName("关键字测试");
+        category.setCreateTime(LocalDateTime.now());
+        category = categoryRepository.save(category);
+        for (String name : new String[] {"酒精50%", "酒精500ml", "维C_片", "维C泡腾片", "碘伏!装", "碘伏瓶装"}) {
+            DrugInfo drug = new DrugInfo();
+            drug.setName(name);
+            drug.setCategory(category);
+            drug.setPrice(BigDecimal.ONE);
+            drug.setStatus(1);
+            drug.setCreateTime(LocalDateTime.now());
+            inventoryService.saveDrug(drug, 0);
+        }
+    }
+
+    @Test
+    void keywordWildcardsMatchLiterally() {
+        assertThat(names("50%")).containsExactly("酒精50%");
+        assertThat(names("C_")).containsExactly("维C_片");
+        assertThat(names("!装")).containsExactly("碘伏!装");
+        assertThat(names("酒精")).containsExactlyInAnyOrder("酒精50%", "酒精500ml");
+    }
+
+    private List<String> names(String keyword) {
+        DrugFilter filter = new DrugFilter();
+        filter.setKeyword(keyword);
+        filter.setCategoryId(category.getId());
+        filter.setLimit(100);
+        return drugInfoRepository.findPage(filter).stream().map(DrugView::getName).toList();
+    }
+}
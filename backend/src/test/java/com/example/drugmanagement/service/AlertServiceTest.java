@@ -0,0 +1,90 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.dto.AlertResponse;
+import com.example.drugmanagement.entity.DrugCategory;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.entity.StockOut;
+import com.example.drugmanagement.repository.DrugCategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A reload that reads a committed stock change before that change's after-commit event
+ * is handled must not apply the change a second time; later changes still apply.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AlertServiceTest {
+
+    @Autowired
+    private AlertService alertService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private DrugCategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void reloadBetweenCommitAndEventDoesNotApplyTheChangeTwice() {
+        Long drugId = newDrug(20, 100);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    alertService.rebuild();
+                }
+            });
+            stockOut(drugId, 5);
+        });
+        assertThat(lowStockQuantity(drugId)).isEqualTo(15);
+
+        stockOut(drugId, 3);
+        assertThat(lowStockQuantity(drugId)).isEqualTo(12);
+    }
+
+    private Integer lowStockQuantity(Long drugId) {
+        for (AlertResponse alert : alertService.alerts(AlertResponse.LOW_STOCK, 0, Integer.MAX_VALUE)) {
+            if (drugId.equals(alert.getDrugId())) {
+                return alert.getQuantity();
+            }
+        }
+        return null;
+    }
+
+    private void stockOut(Long drugId, int quantity) {
+        StockOut stockOut = new StockOut();
+        stockOut.setQuantity(quantity);
+        inventoryService.stockOut(drugId, stockOut);
+    }
+
+    private Long newDrug(int stock, int reorderLevel) {
+        DrugCategory category = new DrugCategory();
+        category.setName("预警测试");
+        category.setCreateTime(LocalDateTime.now());
+        category = categoryRepository.save(category);
+        DrugInfo drug = new DrugInfo();
+        drug.setName("预警测试药");
+        drug.setCategory(category);
+        drug.setPrice(new BigDecimal("2.00"));
+        drug.setReorderLevel(reorderLevel);
+        drug.setStatus(1);
+        drug.setCreateTime(LocalDateTime.now());
+        return inventoryService.saveDrug(drug, stock).getId();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.entity.User;
+import com.example.drugmanagement.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Login reads the user row, not the reference-data cache: changes made behind the cache
+ * (as by another node) apply at once, and the re-hash leaves the cached user alone.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AuthServiceTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void disabledUserCannotLogInWhileStillCached() {
+        String username = newUser(authService.hashPassword("secret"));
+        assertThat(referenceDataCache.findUser(username).getStatus()).isEqualTo(1);
+
+        jdbcTemplate.update("update sys_user set status = 0 where username = ?", username);
+
+        assertThat(referenceDataCache.findUser(username).getStatus()).isEqualTo(1);
+        assertThat(authService.authenticate(username, "secret")).isNull();
+    }
+
+    @Test
+    void changedPasswordAppliesWhileStillCached() {
+        String username = newUser(authService.hashPassword("old"));
+        referenceDataCache.findUser(username);
+
+        jdbcTemplate.update("update sys_user set password = ? where username = ?",
+                authService.hashPassword("new"), username);
+
+        assertThat(authService.authenticate(username, "old")).isNull();
+        assertThat(authService.authenticate(username, "new")).isNotNull();
+    }
+
+    @Test
+    void rehashLeavesTheCachedUserUntouched() {
+        String username = newUser("plain");
+        User cached = referenceDataCache.findUser(username);
+
+        assertThat(authService.authenticate(username, "plain")).isNotNull();
+
+        assertThat(cached.getPassword()).isEqualTo("plain");
+        assertThat(userRepository.findByUsername(username).getPassword()).startsWith("$2");
+    }
+
+    private String newUser(String password) {
+        User user = new User();
+        user.setUsername("auth-" + UUID.randomUUID());
+        user.setPassword(password);
+        user.setRole("USER");
+        user.setStatus(1);
+        user.setCreateTime(LocalDateTime.now());
+        return userRepository.save(user).getUsername();
+    }
+}
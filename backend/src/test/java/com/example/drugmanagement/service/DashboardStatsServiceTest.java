@@ -0,0 +1,93 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.dto.DashboardStats;
+import com.example.drugmanagement.entity.DrugCategory;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.entity.StockOut;
+import com.example.drugmanagement.repository.DrugCategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A reload that reads a committed stock change before that change's after-commit event
+ * is handled must not apply the change a second time; later changes still apply.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DashboardStatsServiceTest {
+
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private DrugCategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void reloadBetweenCommitAndEventDoesNotApplyTheChangeTwice() {
+        DrugCategory category = newCategory();
+        Long drugId = newDrug(category, 20);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dashboardStatsService.rebuild();
+                }
+            });
+            stockOut(drugId, 5);
+        });
+        assertThat(categoryValue(category.getId())).isEqualByComparingTo("30.00");
+
+        stockOut(drugId, 3);
+        assertThat(categoryValue(category.getId())).isEqualByComparingTo("24.00");
+    }
+
+    private BigDecimal categoryValue(Long categoryId) {
+        for (DashboardStats.CategoryStats stats : dashboardStatsService.getStats().getCategories()) {
+            if (categoryId.equals(stats.getCategoryId())) {
+                return stats.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void stockOut(Long drugId, int quantity) {
+        StockOut stockOut = new StockOut();
+        stockOut.setQuantity(quantity);
+        inventoryService.stockOut(drugId, stockOut);
+    }
+
+    private DrugCategory newCategory() {
+        DrugCategory category = new DrugCategory();
+        category.setName("看板测试");
+        category.setCreateTime(LocalDateTime.now());
+        return categoryRepository.save(category);
+    }
+
+    private Long newDrug(DrugCategory category, int stock) {
+        DrugInfo drug = new DrugInfo();
+        drug.setName("看板测试药");
+        drug.setCategory(category);
+        drug.setPrice(new BigDecimal("2.00"));
+        drug.setStatus(1);
+        drug.setCreateTime(LocalDateTime.now());
+        return inventoryService.saveDrug(drug, stock).getId();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.drugmanagement.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A key runs its write once: a retry replays the kept response, a different request
+ * under the same key is refused, concurrent duplicates never write twice, and a key past
+ * its TTL may be used again.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+
+    private static final String SCOPE = "test:user";
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void retryReplaysTheKeptResponse() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger writes = new AtomicInteger();
+
+        ResponseEntity<?> first = idempotencyService.execute(key, SCOPE, Map.of("quantity", 5), write(writes));
+        ResponseEntity<?> retry = idempotencyService.execute(key, SCOPE, Map.of("quantity", 5), write(writes));
+
+        assertThat(writes.get()).isEqualTo(1);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(first.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(retry.getBody()).isEqualTo("{\"write\":1}");
+    }
+
+    @Test
+    void differentRequestUnderTheSameKeyIsRefused() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger writes = new AtomicInteger();
+
+        idempotencyService.execute(key, SCOPE, Map.of("quantity", 5), write(writes));
+        ResponseEntity<?> other = idempotencyService.execute(key, SCOPE, Map.of("quantity", 6), write(writes));
+
+        assertThat(writes.get()).isEqualTo(1);
+        assertThat(other.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @Test
+    void failedWriteReleasesTheKey() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger writes = new AtomicInteger();
+
+        ResponseEntity<?> failed = idempotencyService.execute(key, SCOPE, Map.of("quantity", 5), () -> {
+            writes.incrementAndGet();
+            return ResponseEntity.badRequest().body(Map.of("message", "库存不足"));
+        });
+        ResponseEntity<?> retry = idempotencyService.execute(key, SCOPE, Map.of("quantity", 5), write(writes));
+
+        assertThat(failed.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(writes.get()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentDuplicatesWriteOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger writes = new AtomicInteger();
+        int requests = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        List<ResponseEntity<?>> responses = new ArrayList<>();
+        try {
+            List<Future<ResponseEntity<?>>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute(key, SCOPE, Map.of("quantity", 5), () -> {
+                        sleep(200);
+                        return write(writes).get();
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<ResponseEntity<?>> future : futures) {
+                responses.add(future.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(writes.get()).isEqualTo(1);
+        assertThat(responses).allSatisfy(response -> assertThat(response.getStatusCode())
+                .isIn(HttpStatus.CREATED, HttpStatus.CONFLICT));
+        assertThat(responses).filteredOn(response -> response.getStatusCode() == HttpStatus.CREATED
+                && !response.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).hasSize(1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from idempotency_key where scope = ? and idem_key = ?",
+                Integer.class, SCOPE, key)).isEqualTo(1);
+    }
+
+    @Test
+    void expiredKeyIsClaimedAgain() {
+        String key = UUID.randomUUID().toString();
+        jdbcTemplate.update("insert into idempotency_key (scope, idem_key, fingerprint, status, response, created_time) "
+                        + "values (?, ?, ?, 201, '{}', ?)", SCOPE, key, "0".repeat(64),
+                Timestamp.valueOf(LocalDateTime.now().minusDays(30)));
+        AtomicInteger writes = new AtomicInteger();
+
+        ResponseEntity<?> response = idempotencyService.execute(key, SCOPE, Map.of("quantity", 5), write(writes));
+
+        assertThat(writes.get()).isEqualTo(1);
+        assertThat(response.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        assertThat(jdbcTemplate.queryForObject("select response from idempotency_key where scope = ? and idem_key = ?",
+                String.class, SCOPE, key)).isEqualTo("{\"write\":1}");
+    }
+
+    private static Supplier<ResponseEntity<?>> write(AtomicInteger writes) {
+        return () -> ResponseEntity.status(HttpStatus.CREATED).body(Map.of("write", writes.incrementAndGet()));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
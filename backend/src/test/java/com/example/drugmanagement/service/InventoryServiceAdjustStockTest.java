@@ -0,0 +1,150 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.entity.DrugCategory;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.entity.StockIn;
+import com.example.drugmanagement.event.LotChangedEvent.LotState;
+import com.example.drugmanagement.repository.DrugCategoryRepository;
+import com.example.drugmanagement.repository.DrugInfoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A stock count moves the lots with the drug: a shortfall is written off the earliest
+ * expiring lots, a surplus lands in the batchless lot, and the open-lot index follows.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class InventoryServiceAdjustStockTest {
+
+    private static final LocalDate DRUG_EXPIRY = LocalDate.now().plusYears(2);
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OpenLotIndex openLotIndex;
+
+    @Autowired
+    private DrugCategoryRepository categoryRepository;
+
+    @Autowired
+    private DrugInfoRepository drugInfoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shortfallIsWrittenOffFirstExpiringLots() {
+        Long drugId = newDrug(0);
+        receive(drugId, "LATE", 60, 5);
+        receive(drugId, "EARLY", 10, 5);
+
+        assertThat(inventoryService.adjustStock(drugId, 10, 3)).isEqualTo(-7);
+
+        assertThat(drugInfoRepository.findStockById(drugId)).isEqualTo(3);
+        assertThat(lots(drugId)).containsExactly(Map.entry("EARLY", 0), Map.entry("LATE", 3));
+        assertThat(indexed(drugId)).containsExactly(Map.entry("LATE", 3));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from stock_out_lot sol join drug_lot l "
+                + "on l.id = sol.lot_id where l.drug_id = ?", Integer.class, drugId)).isZero();
+        assertThat(journalTotal(drugId)).isEqualTo(3);
+    }
+
+    @Test
+    void shortfallBeyondTheLotsComesOffUntrackedStock() {
+        Long drugId = newDrug(4);
+        receive(drugId, "B1", 10, 5);
+
+        inventoryService.adjustStock(drugId, 9, 2);
+
+        assertThat(drugInfoRepository.findStockById(drugId)).isEqualTo(2);
+        assertThat(lots(drugId)).containsExactly(Map.entry("B1", 0));
+        assertThat(indexed(drugId)).isEmpty();
+    }
+
+    @Test
+    void surplusIsBookedIntoTheBatchlessLot() {
+        Long drugId = newDrug(0);
+        receive(drugId, "B1", 10, 5);
+
+        inventoryService.adjustStock(drugId, 5, 8);
+
+        assertThat(drugInfoRepository.findStockById(drugId)).isEqualTo(8);
+        assertThat(lots(drugId)).containsExactly(Map.entry("", 3), Map.entry("B1", 5));
+        assertThat(jdbcTemplate.queryForObject("select expire_date from drug_lot where drug_id = ? and batch_no = ''",
+                LocalDate.class, drugId)).isEqualTo(DRUG_EXPIRY);
+        assertThat(indexed(drugId)).containsExactly(Map.entry("B1", 5), Map.entry("", 3));
+        assertThat(journalTotal(drugId)).isEqualTo(8);
+    }
+
+    @Test
+    void staleCountChangesNothing() {
+        Long drugId = newDrug(0);
+        receive(drugId, "B1", 10, 5);
+
+        assertThatThrownBy(() -> inventoryService.adjustStock(drugId, 4, 1))
+                .isInstanceOf(StockConflictException.class);
+
+        assertThat(drugInfoRepository.findStockById(drugId)).isEqualTo(5);
+        assertThat(lots(drugId)).containsExactly(Map.entry("B1", 5));
+        assertThat(indexed(drugId)).containsExactly(Map.entry("B1", 5));
+    }
+
+    private void receive(Long drugId, String batchNo, int expiresInDays, int quantity) {
+        StockIn stockIn = new StockIn();
+        stockIn.setQuantity(quantity);
+        stockIn.setPrice(new BigDecimal("1.00"));
+        stockIn.setBatchNo(batchNo);
+        stockIn.setExpireDate(LocalDate.now().plusDays(expiresInDays));
+        inventoryService.stockIn(drugId, stockIn);
+    }
+
+    private Map<String, Integer> lots(Long drugId) {
+        Map<String, Integer> lots = new LinkedHashMap<>();
+        jdbcTemplate.query("select batch_no, quantity from drug_lot where drug_id = ? order by batch_no",
+                rs -> {
+                    lots.put(rs.getString(1), rs.getInt(2));
+                }, drugId);
+        return lots;
+    }
+
+    private Map<String, Integer> indexed(Long drugId) {
+        Map<String, Integer> lots = new LinkedHashMap<>();
+        for (LotState lot : openLotIndex.candidates(drugId, Integer.MAX_VALUE)) {
+            lots.put(lot.getBatchNo(), lot.getQuantity());
+        }
+        return lots;
+    }
+
+    private int journalTotal(Long drugId) {
+        return jdbcTemplate.queryForObject("select coalesce(sum(delta), 0) from stock_journal where drug_id = ?",
+                Integer.class, drugId);
+    }
+
+    private Long newDrug(int openingStock) {
+        DrugCategory category = new DrugCategory();
+        category.setName("盘点测试");
+        category.setCreateTime(LocalDateTime.now());
+        category = categoryRepository.save(category);
+        DrugInfo drug = new DrugInfo();
+        drug.setName("盘点测试药");
+        drug.setCategory(category);
+        drug.setPrice(new BigDecimal("1.00"));
+        drug.setStatus(1);
+        drug.setExpireDate(DRUG_EXPIRY);
+        drug.setCreateTime(LocalDateTime.now());
+        return inventoryService.saveDrug(drug, openingStock).getId();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.entity.DrugCategory;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.entity.StockOut;
+import com.example.drugmanagement.repository.DrugCategoryRepository;
+import com.example.drugmanagement.repository.DrugInfoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 200 parallel dispenses against a stock of 150: the conditional UPDATE must let
+ * exactly 150 through, reject the rest as out of stock and lose no update.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class InventoryServiceConcurrencyTest {
+
+    private static final int WRITERS = 200;
+    private static final int STOCK = 150;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private DrugCategoryRepository categoryRepository;
+
+    @Autowired
+    private DrugInfoRepository drugInfoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void parallelStockOutsNeitherOversellNorLoseUpdates() throws Exception {
+        Long drugId = newDrug(STOCK);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger outOfStock = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    StockOut stockOut = new StockOut();
+                    stockOut.setQuantity(1);
+                    try {
+                        inventoryService.stockOut(drugId, stockOut);
+                        succeeded.incrementAndGet();
+                    } catch (StockOperationException e) {
+                        outOfStock.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(succeeded.get()).isEqualTo(STOCK);
+        assertThat(outOfStock.get()).isEqualTo(WRITERS - STOCK);
+        assertThat(drugInfoRepository.findStockById(drugId)).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from stock_out where drug_id = ?",
+                Integer.class, drugId)).isEqualTo(STOCK);
+        assertThat(jdbcTemplate.queryForObject("select sum(delta) from stock_journal where drug_id = ?",
+                Integer.class, drugId)).isZero();
+    }
+
+    private Long newDrug(int stock) {
+        DrugCategory category = new DrugCategory();
+        category.setName("并发测试");
+        category.setCreateTime(LocalDateTime.now());
+        category = categoryRepository.save(category);
+        DrugInfo drug = new DrugInfo();
+        drug.setName("并发测试药");
+        drug.setCategory(category);
+        drug.setPrice(new BigDecimal("1.00"));
+        drug.setStatus(1);
+        drug.setCreateTime(LocalDateTime.now());
+        return inventoryService.saveDrug(drug, stock).getId();
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.entity.DrugCategory;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.entity.StockIn;
+import com.example.drugmanagement.entity.StockOut;
+import com.example.drugmanagement.event.LotChangedEvent.LotState;
+import com.example.drugmanagement.repository.DrugCategoryRepository;
+import com.example.drugmanagement.repository.DrugInfoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Dispensing draws lots first-expiring-first-out, links each draw to the stock-out row
+ * and takes what the lots cannot cover from untracked stock; the open-lot index follows
+ * committed writes only.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class LotServiceTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OpenLotIndex openLotIndex;
+
+    @Autowired
+    private DrugCategoryRepository categoryRepository;
+
+    @Autowired
+    private DrugInfoRepository drugInfoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void dispenseDrawsFirstExpiringLotsFirst() {
+        Long drugId = newDrug(0);
+        receive(drugId, "LATE", 30, 5);
+        receive(drugId, "NONE", null, 4);
+        receive(drugId, "EARLY", 10, 3);
+
+        Long stockOutId = stockOut(drugId, 6);
+
+        assertThat(drawn(stockOutId)).containsExactly(Map.entry("EARLY", 3), Map.entry("LATE", 3));
+        assertThat(lots(drugId)).containsExactly(Map.entry("EARLY", 0), Map.entry("LATE", 2), Map.entry("NONE", 4));
+        assertThat(indexed(drugId)).containsExactly(Map.entry("LATE", 2), Map.entry("NONE", 4));
+    }
+
+    @Test
+    void shortLotsFallBackToUntrackedStock() {
+        Long drugId = newDrug(5);
+        receive(drugId, "B1", 10, 3);
+
+        Long first = stockOut(drugId, 6);
+        Long second = stockOut(drugId, 2);
+
+        assertThat(drawn(first)).containsExactly(Map.entry("B1", 3));
+        assertThat(drawn(second)).isEmpty();
+        assertThat(drugInfoRepository.findStockById(drugId)).isZero();
+        assertThat(lots(drugId)).containsExactly(Map.entry("B1", 0));
+        assertThat(indexed(drugId)).isEmpty();
+    }
+
+    @Test
+    void rolledBackDispenseLeavesLotsAndIndexAlone() {
+        Long drugId = newDrug(0);
+        receive(drugId, "B1", 10, 5);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // Fails the commit after the index has applied the draw before commit
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status -> {
+            stockOut(drugId, 3);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    throw new IllegalStateException("rollback");
+                }
+            });
+        })).hasMessage("rollback");
+
+        assertThat(drugInfoRepository.findStockById(drugId)).isEqualTo(5);
+        assertThat(lots(drugId)).containsExactly(Map.entry("B1", 5));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from stock_out_lot sol join drug_lot l "
+                + "on l.id = sol.lot_id where l.drug_id = ?", Integer.class, drugId)).isZero();
+        assertThat(indexed(drugId)).containsExactly(Map.entry("B1", 5));
+    }
+
+    @Test
+    void staleIndexIsReadAgainFromTheDatabase() {
+        Long drugId = newDrug(0);
+        receive(drugId, "EARLY", 10, 5);
+        receive(drugId, "LATE", 20, 5);
+        jdbcTemplate.update("update drug_lot set quantity = 1 where drug_id = ? and batch_no = 'EARLY'", drugId);
+
+        Long stockOutId = stockOut(drugId, 4);
+
+        assertThat(drawn(stockOutId)).containsExactly(Map.entry("EARLY", 1), Map.entry("LATE", 3));
+        assertThat(lots(drugId)).containsExactly(Map.entry("EARLY", 0), Map.entry("LATE", 2));
+        assertThat(indexed(drugId)).containsExactly(Map.entry("LATE", 2));
+    }
+
+    private void receive(Long drugId, String batchNo, Integer expiresInDays, int quantity) {
+        StockIn stockIn = new StockIn();
+        stockIn.setQuantity(quantity);
+        stockIn.setPrice(new BigDecimal("1.00"));
+        stockIn.setBatchNo(batchNo);
+        stockIn.setExpireDate(expiresInDays != null ? LocalDate.now().plusDays(expiresInDays) : null);
+        inventoryService.stockIn(drugId, stockIn);
+    }
+
+    private Long stockOut(Long drugId, int quantity) {
+        StockOut stockOut = new StockOut();
+        stockOut.setQuantity(quantity);
+        return inventoryService.stockOut(drugId, stockOut).getId();
+    }
+
+    private Map<String, Integer> drawn(Long stockOutId) {
+        Map<String, Integer> drawn = new LinkedHashMap<>();
+        jdbcTemplate.query("select l.batch_no, sol.quantity from stock_out_lot sol join drug_lot l on l.id = sol.lot_id "
+                + "where sol.stock_out_id = ? order by l.batch_no", rs -> {
+                    drawn.put(rs.getString(1), rs.getInt(2));
+                }, stockOutId);
+        return drawn;
+    }
+
+    private Map<String, Integer> lots(Long drugId) {
+        Map<String, Integer> lots = new LinkedHashMap<>();
+        jdbcTemplate.query("select batch_no, quantity from drug_lot where drug_id = ? order by batch_no",
+                rs -> {
+                    lots.put(rs.getString(1), rs.getInt(2));
+                }, drugId);
+        return lots;
+    }
+
+    private Map<String, Integer> indexed(Long drugId) {
+        Map<String, Integer> lots = new LinkedHashMap<>();
+        for (LotState lot : openLotIndex.candidates(drugId, Integer.MAX_VALUE)) {
+            lots.put(lot.getBatchNo(), lot.getQuantity());
+        }
+        return lots;
+    }
+
+    private Long newDrug(int openingStock) {
+        DrugCategory category = new DrugCategory();
+        category.setName("批次测试");
+        category.setCreateTime(LocalDateTime.now());
+        category = categoryRepository.save(category);
+        DrugInfo drug = new DrugInfo();
+        drug.setName("批次测试药");
+        drug.setCategory(category);
+        drug.setPrice(new BigDecimal("1.00"));
+        drug.setStatus(1);
+        drug.setCreateTime(LocalDateTime.now());
+        return inventoryService.saveDrug(drug, openingStock).getId();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.dto.JournalStock;
+import com.example.drugmanagement.dto.StockMismatch;
+import com.example.drugmanagement.dto.StockReconciliation;
+import com.example.drugmanagement.entity.DrugCategory;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.entity.StockIn;
+import com.example.drugmanagement.entity.StockOut;
+import com.example.drugmanagement.repository.DrugCategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Replays a drug's stock around its snapshots and reconciles the counters with the
+ * journal. Drug id ranges of three make the reconciliation run several chunks in
+ * parallel.
+ */
+@SpringBootTest(properties = "journal.chunk-size=3")
+@ActiveProfiles("test")
+class StockJournalServiceTest {
+
+    @Autowired
+    private StockJournalService stockJournalService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private DrugCategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void stockIsReplayedAroundASnapshot() {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusHours(3);
+        Long drugId = newDrug();
+        stockIn(drugId, 10, start);
+        stockOut(drugId, 4, start.plusHours(1));
+
+        stockJournalService.snapshot();
+        LocalDateTime snapshotTime = jdbcTemplate.queryForObject(
+                "select max(snapshot_time) from stock_snapshot where drug_id = ?", LocalDateTime.class, drugId);
+        stockIn(drugId, 5, snapshotTime.plusMinutes(1));
+
+        JournalStock now = stockJournalService.replay(drugId);
+        assertThat(now.getStock()).isEqualTo(11);
+        assertThat(now.getSnapshotSeq()).isPositive();
+        assertThat(now.getTailEvents()).isEqualTo(1);
+
+        assertThat(stockJournalService.stockAt(drugId, start.minusHours(1))).isNull();
+        assertThat(stockJournalService.stockAt(drugId, start).getStock()).isEqualTo(10);
+        JournalStock beforeSnapshot = stockJournalService.stockAt(drugId, start.plusMinutes(90));
+        assertThat(beforeSnapshot.getStock()).isEqualTo(6);
+        assertThat(beforeSnapshot.getSnapshotSeq()).isZero();
+        JournalStock atSnapshot = stockJournalService.stockAt(drugId, snapshotTime);
+        assertThat(atSnapshot.getStock()).isEqualTo(6);
+        assertThat(atSnapshot.getSnapshotSeq()).isEqualTo(now.getSnapshotSeq());
+        assertThat(atSnapshot.getTailEvents()).isZero();
+        assertThat(stockJournalService.stockAt(drugId, snapshotTime.plusMinutes(1)).getStock()).isEqualTo(11);
+    }
+
+    @Test
+    void replayReadsOnlyPastTheWatermark() {
+        Long changed = newDrug();
+        Long unchanged = newDrug();
+        stockIn(changed, 7, LocalDateTime.now());
+        stockIn(unchanged, 9, LocalDateTime.now());
+        stockJournalService.snapshot();
+        long firstSnapshot = stockJournalService.replay(unchanged).getSnapshotSeq();
+
+        stockOut(changed, 2, LocalDateTime.now());
+        stockJournalService.snapshot();
+        stockIn(changed, 1, LocalDateTime.now());
+
+        JournalStock changedStock = stockJournalService.replay(changed);
+        assertThat(changedStock.getStock()).isEqualTo(6);
+        assertThat(changedStock.getTailEvents()).isEqualTo(1);
+        JournalStock unchangedStock = stockJournalService.replay(unchanged);
+        assertThat(unchangedStock.getStock()).isEqualTo(9);
+        assertThat(unchangedStock.getSnapshotSeq()).isEqualTo(firstSnapshot);
+        assertThat(unchangedStock.getTailEvents()).isZero();
+    }
+
+    @Test
+    void reconciliationReportsSeededDrift() {
+        Long clean = newDrug();
+        Long drifted = newDrug();
+        stockIn(clean, 4, LocalDateTime.now());
+        stockIn(drifted, 4, LocalDateTime.now());
+        stockJournalService.snapshot();
+        for (int i = 0; i < 5; i++) {
+            stockIn(newDrug(), 1, LocalDateTime.now());
+        }
+        jdbcTemplate.update("update drug_info set stock = stock + 3 where id = ?", drifted);
+        Long category = jdbcTemplate.queryForObject("select category_id from drug_info where id = ?", Long.class,
+                clean);
+        jdbcTemplate.update("insert into drug_info (name, category_id, stock, status, create_time) "
+                + "values ('未记流水', ?, 2, 1, now())", category);
+        Long unjournalled = jdbcTemplate.queryForObject("select max(id) from drug_info", Long.class);
+
+        stockJournalService.reconcile();
+
+        StockReconciliation result = stockJournalService.getLastReconciliation();
+        assertThat(result.getDrugsChecked()).isEqualTo(
+                jdbcTemplate.queryForObject("select count(*) from drug_info", Long.class));
+        assertThat(result.getMismatches()).extracting(StockMismatch::getDrugId)
+                .contains(drifted, unjournalled).doesNotContain(clean);
+        StockMismatch drift = result.getMismatches().stream()
+                .filter(m -> m.getDrugId().equals(drifted)).findFirst().orElseThrow();
+        assertThat(drift.getStock()).isEqualTo(7);
+        assertThat(drift.getJournalStock()).isEqualTo(4);
+        StockMismatch missing = result.getMismatches().stream()
+                .filter(m -> m.getDrugId().equals(unjournalled)).findFirst().orElseThrow();
+        assertThat(missing.getStock()).isEqualTo(2);
+        assertThat(missing.getJournalStock()).isNull();
+
+        jdbcTemplate.update("update drug_info set stock = stock - 3 where id = ?", drifted);
+        jdbcTemplate.update("delete from drug_info where id = ?", unjournalled);
+    }
+
+    private void stockIn(Long drugId, int quantity, LocalDateTime time) {
+        StockIn stockIn = new StockIn();
+        stockIn.setQuantity(quantity);
+        stockIn.setPrice(new BigDecimal("1.00"));
+        stockIn.setInTime(time);
+        inventoryService.stockIn(drugId, stockIn);
+    }
+
+    private void stockOut(Long drugId, int quantity, LocalDateTime time) {
+        StockOut stockOut = new StockOut();
+        stockOut.setQuantity(quantity);
+        stockOut.setOutTime(time);
+        inventoryService.stockOut(drugId, stockOut);
+    }
+
+    private Long newDrug() {
+        DrugCategory category = new DrugCategory();
+        category.setName("流水测试");
+        category.setCreateTime(LocalDateTime.now());
+        category = categoryRepository.save(category);
+        DrugInfo drug = new DrugInfo();
+        drug.setName("流水测试药");
+        drug.setCategory(category);
+        drug.setPrice(new BigDecimal("1.00"));
+        drug.setStatus(1);
+        drug.setCreateTime(LocalDateTime.now().minusHours(5));
+        return inventoryService.saveDrug(drug, 0).getId();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.entity.DrugCategory;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.entity.StockIn;
+import com.example.drugmanagement.entity.StockOut;
+import com.example.drugmanagement.repository.DrugCategoryRepository;
+import com.example.drugmanagement.repository.DrugInfoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The write paths and a rebuild from the ledger must value a drug's movements alike:
+ * unpriced receipts and dispenses at the drug's price when they were booked, not at
+ * the price the drug has when the rebuild runs.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class StockRollupServiceTest {
+
+    @Autowired
+    private StockRollupService stockRollupService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private DrugCategoryRepository categoryRepository;
+
+    @Autowired
+    private DrugInfoRepository drugInfoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void incrementalRollupsMatchARebuildAfterAPriceChange() {
+        Long drugId = newDrug("2.00");
+        stockIn(drugId, 10, new BigDecimal("1.50"));
+        stockIn(drugId, 4, null);
+        stockInBatch(drugId, 5);
+        stockOut(drugId, 3);
+        setPrice(drugId, "5.00");
+        stockIn(drugId, 6, null);
+        stockInBatch(drugId, 1);
+        stockOut(drugId, 2);
+
+        List<Map<String, Object>> incremental = rollups(drugId);
+        assertThat(jdbcTemplate.queryForMap("select sum(qty_in) qty_in, sum(in_value) in_value, "
+                + "sum(qty_out) qty_out, sum(out_value) out_value from stock_rollup where drug_id = ?", drugId))
+                .containsEntry("qty_in", 26L)
+                .containsEntry("in_value", new BigDecimal("68.00"))
+                .containsEntry("qty_out", 5L)
+                .containsEntry("out_value", new BigDecimal("16.00"));
+
+        stockRollupService.rebuild();
+
+        assertThat(rollups(drugId)).isEqualTo(incremental);
+    }
+
+    private List<Map<String, Object>> rollups(Long drugId) {
+        return jdbcTemplate.queryForList("select bucket_date, qty_in, in_value, qty_out, out_value "
+                + "from stock_rollup where drug_id = ? order by bucket_date", drugId);
+    }
+
+    private void stockIn(Long drugId, int quantity, BigDecimal price) {
+        StockIn stockIn = new StockIn();
+        stockIn.setQuantity(quantity);
+        stockIn.setPrice(price);
+        inventoryService.stockIn(drugId, stockIn);
+    }
+
+    private void stockInBatch(Long drugId, int quantity) {
+        StockInLine line = new StockInLine();
+        line.setDrugId(drugId);
+        line.setQuantity(quantity);
+        inventoryService.stockInBatch(List.of(line));
+    }
+
+    private void stockOut(Long drugId, int quantity) {
+        StockOut stockOut = new StockOut();
+        stockOut.setQuantity(quantity);
+        inventoryService.stockOut(drugId, stockOut);
+    }
+
+    private void setPrice(Long drugId, String price) {
+        DrugInfo drug = drugInfoRepository.findById(drugId).orElseThrow();
+        drug.setPrice(new BigDecimal(price));
+        inventoryService.saveDrug(drug, null);
+    }
+
+    private Long newDrug(String price) {
+        DrugCategory category = new DrugCategory();
+        category.setName("汇总测试");
+        category.setCreateTime(LocalDateTime.now());
+        category = categoryRepository.save(category);
+        DrugInfo drug = new DrugInfo();
+        drug.setName("汇总测试药");
+        drug.setCategory(category);
+        drug.setPrice(new BigDecimal(price));
+        drug.setStatus(1);
+        drug.setCreateTime(LocalDateTime.now());
+        return inventoryService.saveDrug(drug, 0).getId();
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.drugmanagement.service;
+
+import com.example.drugmanagement.entity.DrugCategory;
+import com.example.drugmanagement.entity.DrugInfo;
+import com.example.drugmanagement.entity.StockIn;
+import com.example.drugmanagement.entity.StockOut;
+import com.example.drugmanagement.repository.DrugCategoryRepository;
+import com.example.drugmanagement.repository.DrugInfoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The valuation kept up by the write paths must equal a rebuild that replays the
+ * ledger and the journal: the same daily rows, cost of goods and FIFO layers, for
+ * receipts, dispenses and stock counts booked within the same second, and for
+ * receipts valued at the drug's price before it changed.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ValuationServiceTest {
+
+    @Autowired
+    private ValuationService valuationService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private DrugCategoryRepository categoryRepository;
+
+    @Autowired
+    private DrugInfoRepository drugInfoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void dispenseExhaustsTheOldestLayersFirst() {
+        Long drugId = newDrug(0);
+        stockIn(drugId, 10, "1.00");
+        stockIn(drugId, 10, "3.00");
+        stockOut(drugId, 15);
+
+        assertThat(jdbcTemplate.queryForMap("select quantity, avg_value, fifo_value, cogs_avg, cogs_fifo "
+                + "from stock_valuation where drug_id = ?", drugId))
+                .containsEntry("quantity", 5)
+                .containsEntry("avg_value", new BigDecimal("10.0000"))
+                .containsEntry("fifo_value", new BigDecimal("15.0000"))
+                .containsEntry("cogs_avg", new BigDecimal("30.0000"))
+                .containsEntry("cogs_fifo", new BigDecimal("25.0000"));
+        assertThat(layers(drugId)).containsExactly(Map.of("unit_cost", new BigDecimal("3.0000"), "remaining", 5));
+
+        valuationService.rebuild();
+
+        assertThat(layers(drugId)).containsExactly(Map.of("unit_cost", new BigDecimal("3.0000"), "remaining", 5));
+    }
+
+    @Test
+    void rebuildReproducesMixedMovements() {
+        Long drugId = newDrug(6);
+        stockIn(drugId, 10, "1.00");
+        stockOut(drugId, 12);
+        stockIn(drugId, 10, "3.00");
+        adjust(drugId, -2);
+        stockOut(drugId, 8);
+        stockIn(drugId, 5, null);
+        stockInBatch(drugId, 4, "2.50");
+        adjust(drugId, 3);
+        stockOut(drugId, 15);
+        stockIn(drugId, 7, null);
+        stockOut(drugId, 1);
+
+        List<Map<String, Object>> days = days(drugId);
+        List<Map<String, Object>> layers = layers(drugId);
+        assertThat(days.get(days.size() - 1)).containsEntry("quantity", 7);
+        assertThat(layers).isNotEmpty();
+        onOneSecond(drugId, (Date) days.get(0).get("bucket_date"));
+
+        valuationService.rebuild();
+
+        assertThat(days(drugId)).isEqualTo(days);
+        assertThat(layers(drugId)).isEqualTo(layers);
+    }
+
+    @Test
+    void unpricedReceiptKeepsTheDrugPriceItWasBookedAt() {
+        Long drugId = newDrug(0);
+        stockIn(drugId, 5, null);
+        setPrice(drugId, "4.00");
+        stockIn(drugId, 5, "4.00");
+
+        List<Map<String, Object>> days = days(drugId);
+        assertThat(days.get(days.size() - 1)).containsEntry("avg_value", new BigDecimal("30.0000"));
+
+        valuationService.rebuild();
+
+        assertThat(days(drugId)).isEqualTo(days);
+    }
+
+    /**
+     * MySQL keeps ledger and journal times to the second, so a burst of writes shares
+     * one timestamp; emulated by moving all of the drug's movements onto one second.
+     */
+    private void onOneSecond(Long drugId, Date day) {
+        Timestamp second = Timestamp.valueOf(day.toLocalDate().atTime(12, 0));
+        jdbcTemplate.update("update stock_in set in_time = ? where drug_id = ?", second, drugId);
+        jdbcTemplate.update("update stock_out set out_time = ? where drug_id = ?", second, drugId);
+        jdbcTemplate.update("update stock_journal set event_time = ? where drug_id = ?", second, drugId);
+    }
+
+    private List<Map<String, Object>> days(Long drugId) {
+        return jdbcTemplate.queryForList("select bucket_date, quantity, avg_value, fifo_value, cogs_avg, cogs_fifo "
+                + "from stock_valuation where drug_id = ? order by bucket_date", drugId);
+    }
+
+    private List<Map<String, Object>> layers(Long drugId) {
+        return jdbcTemplate.queryForList("select unit_cost, remaining from cost_layer where drug_id = ? order by id",
+                drugId);
+    }
+
+    private void stockIn(Long drugId, int quantity, String price) {
+        StockIn stockIn = new StockIn();
+        stockIn.setQuantity(quantity);
+        stockIn.setPrice(price != null ? new BigDecimal(price) : null);
+        inventoryService.stockIn(drugId, stockIn);
+    }
+
+    private void stockInBatch(Long drugId, int quantity, String price) {
+        StockInLine line = new StockInLine();
+        line.setDrugId(drugId);
+        line.setQuantity(quantity);
+        line.setPrice(new BigDecimal(price));
+        inventoryService.stockInBatch(List.of(line));
+    }
+
+    private void stockOut(Long drugId, int quantity) {
+        StockOut stockOut = new StockOut();
+        stockOut.setQuantity(quantity);
+        inventoryService.stockOut(drugId, stockOut);
+    }
+
+    private void setPrice(Long drugId, String price) {
+        DrugInfo drug = drugInfoRepository.findById(drugId).orElseThrow();
+        drug.setPrice(new BigDecimal(price));
+        inventoryService.saveDrug(drug, null);
+    }
+
+    private void adjust(Long drugId, int delta) {
+        int stock = jdbcTemplate.queryForObject("select stock from drug_info where id = ?", Integer.class, drugId);
+        inventoryService.adjustStock(drugId, stock, stock + delta);
+    }
+
+    private Long newDrug(int stock) {
+        DrugCategory category = new DrugCategory();
+        category.setName("估值测试");
+        category.setCreateTime(LocalDateTime.now());
+        category = categoryRepository.save(category);
+        DrugInfo drug = new DrugInfo();
+        drug.setName("估值测试药");
+        drug.setCategory(category);
+        drug.setPrice(new BigDecimal("2.00"));
+        drug.setStatus(1);
+        drug.setCreateTime(LocalDateTime.now());
+        return inventoryService.saveDrug(drug, stock).getId();
+    }
+}
@@ -1,5 +1,5 @@
-CREATE DATABASE IF NOT EXISTS drug_management CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
-USE drug_management;
+-- db/schema.sql of the baseline release, the schema that existing databases are baselined
+-- at, without its CREATE DATABASE / USE lines.
 
 CREATE TABLE IF NOT EXISTS sys_user (
     id           BIGINT       PRIMARY KEY AUTO_INCREMENT,
@@ -0,0 +1,15 @@
+import request, { openStream } from './request';
+
+export const getAlerts = (params?: any) => {
+    return request({
+        url: '/alerts',
+        method: 'get',
+        params,
+    });
+};
+
+export const subscribeAlerts = (onAlert: (alert: any) => void) => {
+    return openStream('/alerts/stream', {
+        alert: (event) => onAlert(JSON.parse(event.data)),
+    });
+};
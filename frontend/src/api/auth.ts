@@ -8,6 +8,13 @@ export const login = (data: any) => {
     });
 };
 
+export const logout = () => {
+    return request({
+        url: '/auth/logout',
+        method: 'post',
+    });
+};
+
 export const register = (data: any) => {
     return request({
         url: '/auth/register',
@@ -24,9 +24,26 @@ export const updateDrug = (id: number, data: any) => {
     });
 };
 
+// Stock count correction; 409 when the stock is no longer expectedStock
+export const adjustDrugStock = (id: number, data: { expectedStock: number; stock: number }) => {
+    return request({
+        url: `/drugs/${id}/stock-adjustment`,
+        method: 'post',
+        data,
+    });
+};
+
 export const deleteDrug = (id: number) => {
     return request({
         url: `/drugs/${id}`,
         method: 'delete',
     });
 };
+
+export const searchDrugs = (q: string, limit?: number) => {
+    return request({
+        url: '/drugs/search',
+        method: 'get',
+        params: { q, limit },
+    });
+};
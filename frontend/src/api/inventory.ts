@@ -0,0 +1,28 @@
+import { openStream } from './request';
+
+export interface StockDelta {
+    drugId: number;
+    delta: number;
+    stock: number | null;
+}
+
+/**
+ * Opens the inventory SSE stream; `onChange` receives coalesced per-drug deltas with the
+ * committed stock. A dropped connection is reopened.
+ */
+export const subscribeInventory = (onChange: (changes: StockDelta[]) => void) => {
+    return openStream('/inventory/stream', {
+        stock: (event) => onChange(JSON.parse(event.data)),
+    });
+};
+
+export const applyStockDeltas = (rows: any[], changes: StockDelta[]) => {
+    const byId = new Map<number, StockDelta>();
+    changes.forEach((change) => byId.set(change.drugId, change));
+    rows.forEach((row) => {
+        const change = byId.get(row.id);
+        if (change && change.stock !== null) {
+            row.stock = change.stock;
+        }
+    });
+};
@@ -2,6 +2,12 @@ import axios from 'axios';
 import { ElMessage } from 'element-plus';
 import { useUserStore } from '../store/user';
 
+// Stock writes carrying an Idempotency-Key are resent this many times on a timeout or
+// network error; the server replays the first response instead of booking them twice.
+const IDEMPOTENT_RETRIES = 2;
+// Delay before reopening a stream the browser has given up on
+const STREAM_RETRY_MS = 3000;
+
 const service = axios.create({
     baseURL: 'http://localhost:8080/api', // Adjust as needed or use import.meta.env.VITE_API_URL
     timeout: 5000,
@@ -27,6 +33,12 @@ service.interceptors.response.use(
         return response.data;
     },
     (error) => {
+        const config = error.config;
+        if (config?.headers?.['Idempotency-Key'] && !error.response
+            && (config.retryCount ?? 0) < IDEMPOTENT_RETRIES) {
+            config.retryCount = (config.retryCount ?? 0) + 1;
+            return service(config);
+        }
         console.error('Request Error:', error);
         const message = error.response?.data?.message || error.message || 'Request failed';
         ElMessage.error(message);
@@ -42,4 +54,71 @@ service.interceptors.response.use(
     }
 );
 
+// One key per stock operation, reused by every retry of it
+export const newIdempotencyKey = () => {
+    if (typeof crypto !== 'undefined' && typeof crypto.randomUUID === 'function') {
+        return crypto.randomUUID();
+    }
+    return `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}-${Math.random().toString(36).slice(2)}`;
+};
+
+// EventSource and download links cannot send headers, so they carry a short-lived token
+// that the server accepts for that one path only; the session token never goes in a URL
+export const withLinkToken = async (path: string, params?: Record<string, string>) => {
+    const { token }: any = await service({
+        url: '/auth/link-token',
+        method: 'post',
+        data: { path },
+    });
+    return `${service.defaults.baseURL}${path}?${new URLSearchParams({ ...params, access_token: token })}`;
+};
+
+export interface Stream {
+    close: () => void;
+}
+
+/**
+ * Opens an EventSource on `path` with a link token. The browser reconnects on its own
+ * with the same URL; once that token has expired it gives up, and the stream is reopened
+ * with a new one.
+ */
+export const openStream = (path: string, listeners: Record<string, (event: MessageEvent) => void>): Stream => {
+    let source: EventSource | null = null;
+    let closed = false;
+    const reopen = () => {
+        if (!closed) {
+            setTimeout(open, STREAM_RETRY_MS);
+        }
+    };
+    const open = async () => {
+        let url: string;
+        try {
+            url = await withLinkToken(path);
+        } catch (e) {
+            reopen();
+            return;
+        }
+        if (closed) {
+            return;
+        }
+        const opened = new EventSource(url);
+        Object.entries(listeners).forEach(([type, listener]) => {
+            opened.addEventListener(type, (event) => listener(event as MessageEvent));
+        });
+        opened.onerror = () => {
+            if (opened.readyState === EventSource.CLOSED) {
+                reopen();
+            }
+        };
+        source = opened;
+    };
+    open();
+    return {
+        close: () => {
+            closed = true;
+            source?.close();
+        },
+    };
+};
+
 export default service;
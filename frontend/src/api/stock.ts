@@ -1,4 +1,4 @@
-import request from './request';
+import request, { newIdempotencyKey, withLinkToken } from './request';
 
 export const getStockIn = (params?: any) => {
     return request({
@@ -13,6 +13,7 @@ export const createStockIn = (data: any) => {
         url: '/stock-in',
         method: 'post',
         data,
+        headers: { 'Idempotency-Key': newIdempotencyKey() },
     });
 };
 
@@ -29,5 +30,31 @@ export const createStockOut = (data: any) => {
         url: '/stock-out',
         method: 'post',
         data,
+        headers: { 'Idempotency-Key': newIdempotencyKey() },
+    });
+};
+
+export const createStockInBatch = (data: any) => {
+    return request({
+        url: '/stock-in/batch',
+        method: 'post',
+        data,
+        headers: { 'Idempotency-Key': newIdempotencyKey() },
+    });
+};
+
+export const getStockInExportUrl = (params: Record<string, string>) => {
+    return withLinkToken('/stock-in/export', params);
+};
+
+export const getStockOutExportUrl = (params: Record<string, string>) => {
+    return withLinkToken('/stock-out/export', params);
+};
+
+export const getLots = (params?: any) => {
+    return request({
+        url: '/lots',
+        method: 'get',
+        params,
     });
 };
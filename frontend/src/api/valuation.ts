@@ -0,0 +1,13 @@
+import request from './request';
+
+/**
+ * Stock at cost as of `date` (default today) under moving weighted average and FIFO,
+ * with the cost of goods dispensed since `from` when given.
+ */
+export const getValuation = (params?: { date?: string; from?: string; categoryId?: number }) => {
+    return request({
+        url: '/valuation',
+        method: 'get',
+        params,
+    });
+};